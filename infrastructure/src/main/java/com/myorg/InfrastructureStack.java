@@ -5,6 +5,7 @@ import software.amazon.awscdk.services.elasticache.CfnSubnetGroup;
 import software.amazon.awscdk.services.elasticache.CfnCacheCluster;
 import java.util.List;
 import java.util.stream.Collectors;
+import software.amazon.awscdk.Duration;
 import software.amazon.awscdk.RemovalPolicy;
 import software.amazon.awscdk.Stack;
 import software.amazon.awscdk.StackProps;
@@ -13,6 +14,7 @@ import software.amazon.awscdk.services.s3.EventType;
 import software.amazon.awscdk.services.s3.notifications.SqsDestination;
 import software.amazon.awscdk.services.sns.Topic;
 import software.amazon.awscdk.services.sns.subscriptions.SqsSubscription;
+import software.amazon.awscdk.services.sqs.DeadLetterQueue;
 import software.amazon.awscdk.services.sqs.Queue;
 import software.amazon.awscdk.services.ssm.StringParameter;
 import software.constructs.Construct;
@@ -32,8 +34,18 @@ public class InfrastructureStack extends Stack {
                 ))
                 .build();
 
+        // Every service queue gets a dead-letter queue: the listeners leave failed messages unacknowledged
+        // with a growing visibility timeout, and after maxReceiveCount receives SQS moves them aside.
+        // Set in cdk.json, or -c maxReceiveCount=8.
+        // Each queue's visibility timeout is at least its service's app.ledger.lease, so a message still being
+        // worked on is not handed to a second consumer that would only find it claimed.
+        Object maxReceiveCountContext = this.getNode().tryGetContext("maxReceiveCount");
+        int maxReceiveCount = maxReceiveCountContext != null ? Integer.parseInt(String.valueOf(maxReceiveCountContext)) : 5;
+
         Queue intakeQueue = Queue.Builder.create(this, "AccordIntakeQueue")
                 .queueName("accord-intake-queue")
+                .visibilityTimeout(Duration.minutes(10))
+                .deadLetterQueue(deadLetterQueue("AccordIntakeDLQ", "accord-intake-dlq", maxReceiveCount))
                 .build();
 
         Bucket evidenceBucket = Bucket.Builder.create(this, "AccordEvidenceBucket")
@@ -47,6 +59,12 @@ public class InfrastructureStack extends Stack {
                 software.amazon.awscdk.services.s3.NotificationKeyFilter.builder().suffix(".pdf").build()
         );
 
+        // Raw message delivery hands subscribers the event itself instead of JSON escaped inside an SNS envelope;
+        // the 'accord-encoding' attribute then arrives as an SQS message attribute. Off by default: enable it
+        // (cdk.json, or -c rawMessageDelivery=true) only once every consumer runs a build that decodes both forms,
+        // since messages already queued stay enveloped and older consumers cannot read raw ones.
+        boolean rawMessageDelivery = "true".equals(String.valueOf(this.getNode().tryGetContext("rawMessageDelivery")));
+
         Topic transactionReceivedTopic = Topic.Builder.create(this, "TransactionReceivedTopic")
                 .topicName("accord-transaction-received-topic")
                 .build();
@@ -66,10 +84,14 @@ public class InfrastructureStack extends Stack {
         // 1. Create a dedicated SQS queue for the Verification service
         Queue verificationQueue = Queue.Builder.create(this, "VerificationQueue")
                 .queueName("verification-queue")
+                .visibilityTimeout(Duration.minutes(5))
+                .deadLetterQueue(deadLetterQueue("VerificationDLQ", "verification-dlq", maxReceiveCount))
                 .build();
 
         // 2. Subscribe this new queue to the existing SNS topic.
-        transactionReceivedTopic.addSubscription(new SqsSubscription(verificationQueue));
+        transactionReceivedTopic.addSubscription(SqsSubscription.Builder.create(verificationQueue)
+                .rawMessageDelivery(rawMessageDelivery)
+                .build());
 
         // 3. Store the new queue's URL in SSM Parameter Store for the new service to use.
         StringParameter.Builder.create(this, "VerificationQueueUrlParameter")
@@ -77,6 +99,16 @@ public class InfrastructureStack extends Stack {
                 .stringValue(verificationQueue.getQueueUrl())
                 .build();
 
+        // 4. Topic for the VerifiedEvents published by the Verification service.
+        Topic verifiedTopic = Topic.Builder.create(this, "TransactionVerifiedTopic")
+                .topicName("accord-transaction-verified-topic")
+                .build();
+
+        StringParameter.Builder.create(this, "VerifiedTopicArnParameter")
+                .parameterName("/accord/topics/verified-arn")
+                .stringValue(verifiedTopic.getTopicArn())
+                .build();
+
         // --- ElastiCache for Redis Cluster ---
         List<String> subnetIds = vpc.getIsolatedSubnets().stream().map(ISubnet::getSubnetId).collect(Collectors.toList());
 
@@ -104,8 +136,12 @@ public class InfrastructureStack extends Stack {
         // --- SQS Queue for the FraudDetectionService ---
         Queue fraudDetectionQueue = Queue.Builder.create(this, "FraudDetectionQueue")
                 .queueName("fraud-detection-queue")
+                .visibilityTimeout(Duration.minutes(5))
+                .deadLetterQueue(deadLetterQueue("FraudDetectionDLQ", "fraud-detection-dlq", maxReceiveCount))
                 .build();
-        transactionReceivedTopic.addSubscription(new SqsSubscription(fraudDetectionQueue));
+        transactionReceivedTopic.addSubscription(SqsSubscription.Builder.create(fraudDetectionQueue)
+                .rawMessageDelivery(rawMessageDelivery)
+                .build());
 
         // --- SSM Parameters for Redis and the new queue ---
         StringParameter.Builder.create(this, "FraudDetectionQueueUrlParameter")
@@ -113,6 +149,16 @@ public class InfrastructureStack extends Stack {
                 .stringValue(fraudDetectionQueue.getQueueUrl())
                 .build();
 
+        // Topic for the FraudScoredEvents published by the FraudDetectionService.
+        Topic fraudScoredTopic = Topic.Builder.create(this, "FraudScoredTopic")
+                .topicName("accord-fraud-scored-topic")
+                .build();
+
+        StringParameter.Builder.create(this, "FraudScoredTopicArnParameter")
+                .parameterName("/accord/topics/fraud-scored-arn")
+                .stringValue(fraudScoredTopic.getTopicArn())
+                .build();
+
         StringParameter.Builder.create(this, "RedisAddress")
                 .parameterName("/accord/redis/address")
                 .stringValue(redisCluster.getAttrRedisEndpointAddress())
@@ -123,4 +169,16 @@ public class InfrastructureStack extends Stack {
                 .stringValue(redisCluster.getAttrRedisEndpointPort())
                 .build();
     }
-}
\ No newline at end of file
+
+    // Kept for the maximum 14 days, so there is time to inspect and redrive failed messages
+    private DeadLetterQueue deadLetterQueue(String id, String queueName, int maxReceiveCount) {
+        Queue queue = Queue.Builder.create(this, id)
+                .queueName(queueName)
+                .retentionPeriod(Duration.days(14))
+                .build();
+        return DeadLetterQueue.builder()
+                .queue(queue)
+                .maxReceiveCount(maxReceiveCount)
+                .build();
+    }
+}
@@ -0,0 +1,172 @@
+package com.accord.benchmarks;
+
+import com.accord.events.EventEncoding;
+import com.accord.events.TransactionLines;
+import com.accord.events.TransactionProcessedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Realistic payloads shared by the benchmarks.
+final class BenchmarkData {
+
+    private static final String[] COUNTERPARTIES = {
+            "GROCER & SONS", "TESCO STORES 3321", "ACME LTD", "NORTHERN WATER", "CITY COUNCIL TAX", "J SMITH",
+            "AMZN MKTP UK", "SHELL FORECOURT 118", "NETFLIX.COM", "BRITISH GAS", "VODAFONE", "RENT - FLAT 4B",
+            "LONDON UNDERGROUND", "PRET A MANGER", "HMRC SELF ASSESSMENT", "O'NEILL PLUMBING"};
+
+    private BenchmarkData() {
+    }
+
+    static TransactionProcessedEvent transactionProcessedEvent() {
+        Random random = new Random(7);
+        int[] pageCharCounts = new int[12];
+        Arrays.setAll(pageCharCounts, i -> 2_000 + random.nextInt(1_500));
+        int[] minHashSignature = new int[128];
+        Arrays.setAll(minHashSignature, i -> random.nextInt());
+        String snippet = "ACCORD BANK\nStatement of account 0042-118734\nPeriod 01/03/2024 - 31/03/2024\n"
+                + "Date        Description                         Amount      Balance\n"
+                + "01/03/2024  Opening balance                                  1,204.77\n"
+                + "04/03/2024  CARD PAYMENT \"GROCER & SONS\"       -54.20      1,150.57\n";
+        return new TransactionProcessedEvent("accord-evidence-bucket", "statements/2024/03/0042-118734.pdf",
+                482_113, pageCharCounts.length, snippet.repeat(2), Arrays.stream(pageCharCounts).sum(), pageCharCounts,
+                "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08", minHashSignature,
+                transactionLines(random, 60), false);
+    }
+
+    // A month of statement lines: a dozen recurring counterparties, a reference on every third line
+    static TransactionLines transactionLines(Random random, int lines) {
+        List<String> counterparties = Arrays.asList(COUNTERPARTIES).subList(0, 12);
+        int[] dates = new int[lines];
+        long[] amountsMinor = new long[lines];
+        int[] counterpartyIndexes = new int[lines];
+        String[] references = new String[lines];
+        int[] pages = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            dates[i] = 19_783 + i * 30 / lines;
+            amountsMinor[i] = random.nextInt(10) == 0 ? random.nextInt(300_000) : -random.nextInt(40_000);
+            counterpartyIndexes[i] = random.nextInt(counterparties.size());
+            references[i] = i % 3 == 0 ? "INV-2024-" + (100 + i) : null;
+            pages[i] = 1 + i / 35;
+        }
+        return new TransactionLines(dates, amountsMinor, counterparties, counterpartyIndexes, references, pages, false);
+    }
+
+    // Statement text as the page-streaming stripper hands it over: page headers, column titles, balance
+    // lines and transaction lines of every shape the extraction rules know; exactly 'chars' characters in all,
+    // the last page cut short, so a pass over all pages of statementPages(1_000_000) is one MB of ASCII text
+    static List<String> statementPages(int chars) {
+        Random random = new Random(chars);
+        List<String> pages = new ArrayList<>();
+        StringBuilder page = new StringBuilder();
+        int total = 0;
+        double balance = 1_204.77;
+        while (total < chars) {
+            if (page.length() == 0) {
+                page.append("ACCORD BANK\nStatement of account 0042-118734    Page ").append(pages.size() + 1)
+                        .append("\nDate        Description                              Paid out   Paid in    Balance\n")
+                        .append(String.format(Locale.ROOT, "01/03/2024  Balance brought forward %38.2f\n", balance));
+            }
+            int day = 1 + random.nextInt(28);
+            String counterparty = COUNTERPARTIES[random.nextInt(COUNTERPARTIES.length)];
+            double amount = random.nextInt(40_000) / 100.0;
+            String line = switch (random.nextInt(6)) {
+                case 0 -> String.format(Locale.ROOT, "%02d/03/2024  CARD PAYMENT \"%s\"", day, counterparty);
+                case 1 -> String.format(Locale.ROOT, "%02d/03/2024  %s DIRECT DEBIT REF: INV-2024-%04d", day, counterparty, random.nextInt(10_000));
+                case 2 -> String.format(Locale.ROOT, "%d Mar 2024  Faster payment received %s", day, counterparty);
+                case 3 -> String.format(Locale.ROOT, "2024-03-%02d  STANDING ORDER %s REF %08d", day, counterparty, random.nextInt(100_000_000));
+                case 4 -> String.format(Locale.ROOT, "%02d/03/24  Transfer to %s", day, counterparty);
+                default -> String.format(Locale.ROOT, "            continued: %s branch %d", counterparty, random.nextInt(500));
+            };
+            balance -= amount;
+            page.append(String.format(Locale.ROOT, "%-62s %10.2f %12.2f\n", line, amount, balance));
+            if (page.length() > 6_000) {
+                page.append(String.format(Locale.ROOT, "31/03/2024  Balance carried forward %38.2f\n", balance));
+                int length = Math.min(page.length(), chars - total);
+                total += length;
+                pages.add(page.substring(0, length));
+                page.setLength(0);
+            }
+        }
+        return pages;
+    }
+
+    // The JSON SQS delivers for an SNS subscription without raw message delivery
+    static String snsEnvelope(ObjectMapper objectMapper, Object event) throws Exception {
+        return snsEnvelope(objectMapper, objectMapper.writeValueAsString(event), null);
+    }
+
+    // Same, for an already encoded message announced by the 'accord-encoding' attribute
+    static String snsEnvelope(ObjectMapper objectMapper, String message, EventEncoding encoding) throws Exception {
+        ObjectNode envelope = objectMapper.createObjectNode();
+        envelope.put("Type", "Notification");
+        envelope.put("MessageId", "5f1e0c4e-23a5-5b0e-9d3a-1c0d7a9e2b11");
+        envelope.put("TopicArn", "arn:aws:sns:us-east-1:123456789012:accord-transaction-received-topic");
+        envelope.put("Message", message);
+        envelope.put("Timestamp", "2024-03-31T23:59:59.000Z");
+        envelope.put("SignatureVersion", "1");
+        envelope.put("Signature", "EXAMPLEpH+DcEwjAPg8O9mY8dReBSwksfg2S7WKQcikcNKWLQjwu6A4VbeS0QHVCkhRS7fUQvi2egU3N858fiTDN6bkkOxYDVrY0Ad8L10Hs3zH81mtnPk5uvvolIC1CXGu43obcgFxeL3khZl8IKvO61GWB6jI9b5+gLPoBc1Q=");
+        envelope.put("SigningCertURL", "https://sns.us-east-1.amazonaws.com/SimpleNotificationService-0000000000000000000000.pem");
+        envelope.put("UnsubscribeURL", "https://sns.us-east-1.amazonaws.com/?Action=Unsubscribe&SubscriptionArn=arn:aws:sns:us-east-1:123456789012:accord");
+        ObjectNode attributes = envelope.putObject("MessageAttributes");
+        if (encoding != null) {
+            attributes.putObject(EventEncoding.ATTRIBUTE_NAME)
+                    .put("Type", "String")
+                    .put("Value", encoding.attributeValue());
+        }
+        return objectMapper.writeValueAsString(envelope);
+    }
+
+    // An s3:ObjectCreated:Put notification as S3 sends it to the intake queue
+    static String s3EventNotification() {
+        return """
+                {"Records":[{"eventVersion":"2.1","eventSource":"aws:s3","awsRegion":"us-east-1",
+                "eventTime":"2024-03-31T23:59:58.123Z","eventName":"ObjectCreated:Put",
+                "userIdentity":{"principalId":"AWS:AIDAJDPLRKLG7UEXAMPLE"},
+                "requestParameters":{"sourceIPAddress":"203.0.113.17"},
+                "responseElements":{"x-amz-request-id":"C3D13FE58DE4C810","x-amz-id-2":"FMyUVURIY8/IgAtTv8xRjskZQpcIZ9KG4V5Wp6S7S/JRWeUWerMUE5JgHvANOjpD"},
+                "s3":{"s3SchemaVersion":"1.0","configurationId":"AccordIntakeNotification",
+                "bucket":{"name":"accord-evidence-bucket","ownerIdentity":{"principalId":"A3NL1KOZZKExample"},"arn":"arn:aws:s3:::accord-evidence-bucket"},
+                "object":{"key":"statements/2024/03/0042-118734+%28March%29.pdf","size":482113,"eTag":"d41d8cd98f00b204e9800998ecf8427e","versionId":"096fKKXTRTtl3on89fVO.nfljtsv6qko","sequencer":"0055AED6DCD90281E5"}}}]}
+                """;
+    }
+
+    // A statement-like PDF with a full page of text on every page
+    static byte[] statementPdf(int pages) throws IOException {
+        Random random = new Random(pages);
+        try (PDDocument document = new PDDocument()) {
+            for (int pageIndex = 0; pageIndex < pages; pageIndex++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.COURIER, 8);
+                    content.setLeading(10);
+                    content.newLineAtOffset(40, 800);
+                    for (int line = 0; line < 70; line++) {
+                        content.showText(String.format(Locale.ROOT, "%02d/03/2024  CARD PAYMENT %08d  %10.2f %12.2f",
+                                1 + random.nextInt(28), random.nextInt(100_000_000),
+                                random.nextInt(40_000) / 100.0, random.nextInt(1_000_000) / 100.0));
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.accord.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Entry point of benchmarks.jar: the usual JMH command line, always with the GC profiler attached,
+// so every result comes with gc.alloc.rate.norm (bytes allocated per operation).
+//   java -jar target/benchmarks.jar                        all benchmarks
+//   java -jar target/benchmarks.jar PdfExtraction -p pages=10
+//   java -jar target/benchmarks.jar DuplicateCheck -t 16
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,98 @@
+package com.accord.benchmarks;
+
+import com.accord.fraud_detection_service.CachingDuplicateStore;
+import com.accord.fraud_detection_service.DuplicateStore;
+import com.accord.fraud_detection_service.InMemoryDuplicateStore;
+import com.accord.fraud_detection_service.PrefilteredDuplicateStore;
+import com.accord.fraud_detection_service.RotatingBloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Contention of the duplicate check under concurrent listener threads. Each op checks one polled
+// batch of 10 keys, as FraudListener does. 'synchronizedSet' is the original processedTransactions
+// set, 'concurrentSet' the lock-free equivalent; the rest are the DuplicateStore implementations
+// that run in-process (Redis is left out, its cost is the network round trip).
+// Thread count defaults to 8; compare contention with -t 1, -t 4, -t 16.
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class DuplicateCheckBenchmark {
+
+    private static final int BATCH_SIZE = 10;
+
+    @State(Scope.Benchmark)
+    public static class Stores {
+
+        @Param({"synchronizedSet", "concurrentSet", "inMemoryStore", "cachingStore", "prefilteredStore"})
+        public String implementation;
+
+        // Keys cycle through this space, so after warmup most checks see an already known key
+        @Param({"262144"})
+        public int keySpace;
+
+        Set<String> set;
+        DuplicateStore store;
+        String[] keys;
+
+        @Setup
+        public void setUp() {
+            keys = new String[keySpace];
+            Arrays.setAll(keys, i -> "sha256:" + Integer.toHexString(i * 0x9E3779B1));
+            switch (implementation) {
+                case "synchronizedSet" -> set = Collections.synchronizedSet(new HashSet<>());
+                case "concurrentSet" -> set = ConcurrentHashMap.newKeySet();
+                case "inMemoryStore" -> store = new InMemoryDuplicateStore(Duration.ofDays(7));
+                case "cachingStore" -> store = new CachingDuplicateStore(new InMemoryDuplicateStore(Duration.ofDays(7)),
+                        10_000, Duration.ofMinutes(10));
+                case "prefilteredStore" -> store = new PrefilteredDuplicateStore(new InMemoryDuplicateStore(Duration.ofDays(7)),
+                        new RotatingBloomFilter(keySpace, 0.01, Duration.ofHours(1), 24, Clock.systemUTC()),
+                        Duration.ZERO, Runnable::run, new SimpleMeterRegistry());
+                default -> throw new IllegalArgumentException(implementation);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = (int) Thread.currentThread().getId() * 7919;
+    }
+
+    @Benchmark
+    public Object markBatchSeen(Stores stores, Cursor cursor) {
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(stores.keys[Math.floorMod(cursor.next++, stores.keySpace)]);
+        }
+        if (stores.set != null) {
+            List<Boolean> isNew = new ArrayList<>(BATCH_SIZE);
+            for (String key : batch) {
+                isNew.add(stores.set.add(key));
+            }
+            return isNew;
+        }
+        return stores.store.markSeen(batch, Collections.nCopies(BATCH_SIZE, Integer.toString(cursor.next)));
+    }
+}
@@ -0,0 +1,74 @@
+package com.accord.benchmarks;
+
+import com.accord.events.EventCodec;
+import com.accord.events.EventEncoding;
+import com.accord.events.SnsEnvelopeDecoder;
+import com.accord.events.TransactionProcessedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Cost per hop of each event encoding, with and without raw message delivery:
+// encoding on the producer, and decoding the SQS body on the consumer.
+// The setup prints the SQS body size for each combination, which is what SNS and SQS bill and move.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventEncodingBenchmark {
+
+    @Param({"JSON", "SMILE"})
+    public EventEncoding encoding;
+
+    @Param({"true", "false"})
+    public boolean rawMessageDelivery;
+
+    private EventCodec codec;
+    private SnsEnvelopeDecoder decoder;
+    private TransactionProcessedEvent event;
+    private String sqsBody;
+    private String encodingAttribute;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        codec = new EventCodec(objectMapper);
+        decoder = new SnsEnvelopeDecoder(objectMapper, codec);
+        event = BenchmarkData.transactionProcessedEvent();
+
+        String message = codec.encode(event, encoding);
+        if (rawMessageDelivery) {
+            sqsBody = message;
+            encodingAttribute = encoding.attributeValue();
+        } else {
+            sqsBody = BenchmarkData.snsEnvelope(objectMapper, message, encoding);
+            encodingAttribute = null;
+        }
+        System.out.printf("%n%s, raw delivery %s: SQS body is %d bytes%n",
+                encoding, rawMessageDelivery, sqsBody.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Benchmark
+    public String encode() throws Exception {
+        return codec.encode(event, encoding);
+    }
+
+    @Benchmark
+    public TransactionProcessedEvent decode() throws Exception {
+        return decoder.decodeTransactionProcessed(sqsBody, encodingAttribute);
+    }
+}
@@ -0,0 +1,78 @@
+package com.accord.benchmarks;
+
+import com.accord.events.TransactionProcessedEvent;
+import com.accord.fraud_detection_service.FraudScorer;
+import com.accord.fraud_detection_service.SlidingWindowCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Windowed fraud scoring of one event, as FraudListener does it for every event of a poll. The target is
+// 20k events/s on one node; ops/s summed over the threads is events/s, and gc.alloc.rate.norm should
+// stay at 0 since scoring only writes into the reused Assessment. Accounts cycle through 'accounts' keys
+// and the clock advances 1 ms per 20 events, so windows fill and roll over during the run.
+// Thread count defaults to 8 listener threads; compare stripe contention with -t 1, -t 16.
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class FraudScoringBenchmark {
+
+    private static final int EVENTS = 4096;
+
+    @State(Scope.Benchmark)
+    public static class Scorer {
+
+        @Param({"20000"})
+        public int accounts;
+
+        @Param({"64"})
+        public int lockStripes;
+
+        FraudScorer scorer;
+        TransactionProcessedEvent[] events;
+
+        @Setup
+        public void setUp() {
+            scorer = new FraudScorer(new FraudScorer.Settings(1, 100, 4, 50, 5, 40, 0.5), new FraudScorer.Tables(
+                    table(65_536, false), table(65_536, false), table(65_536, false), table(1024, true), table(1024, true)));
+            events = new TransactionProcessedEvent[EVENTS];
+            for (int i = 0; i < EVENTS; i++) {
+                TransactionProcessedEvent template = BenchmarkData.transactionProcessedEvent();
+                events[i] = new TransactionProcessedEvent(template.bucketName(),
+                        "customer-" + (i * 7919 % accounts) + "/statement-" + i + ".pdf",
+                        template.fileSize() + i * 97L, template.pageCount() + i % 5,
+                        i % 50 == 0 ? template.textSnippet() : template.textSnippet() + " " + i,
+                        template.textLength(), template.pageCharCounts(), template.contentSha256(), template.minHashSignature(),
+                        template.transactionLines(), false);
+            }
+        }
+
+        private SlidingWindowCounters table(int capacity, boolean withValues) {
+            return new SlidingWindowCounters(capacity, lockStripes, 60, 10_000, withValues);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        final FraudScorer.Assessment assessment = new FraudScorer.Assessment();
+        final long start = System.currentTimeMillis();
+        int next = (int) Thread.currentThread().getId() * 7919;
+    }
+
+    @Benchmark
+    public double scoreEvent(Scorer scorer, Cursor cursor) {
+        int i = cursor.next++;
+        scorer.scorer.score(scorer.events[Math.floorMod(i, EVENTS)], false, false, cursor.start + i / 20, cursor.assessment);
+        return cursor.assessment.score();
+    }
+}
@@ -0,0 +1,109 @@
+package com.accord.benchmarks;
+
+import com.accord.ingestionservice.PageTextConsumer;
+import com.accord.ingestionservice.PdfTextExtractor;
+import com.accord.ingestionservice.SnippetCollector;
+import com.accord.ingestionservice.TextStatsCollector;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// PDF load and text extraction across document sizes.
+// load*: PDDocument.load from an in-memory stream (the original path) against PdfTextExtractor.load
+// from a spooled file with the bounded memory setting.
+// getText*: the original new PDFTextStripper().getText per document, a stripper reused by the thread,
+// and the page-streaming extractor with every page consumed or stopping after the snippet.
+// gc.alloc.rate.norm is the bytes allocated per document.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PdfExtractionBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int pages;
+
+    private byte[] pdfBytes;
+    private Path pdfFile;
+    private PdfTextExtractor pdfTextExtractor;
+    private PDDocument loadedDocument;
+    private PDFTextStripper reusedStripper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pdfBytes = BenchmarkData.statementPdf(pages);
+        pdfFile = Files.createTempFile("benchmark-", ".pdf");
+        Files.write(pdfFile, pdfBytes);
+        pdfTextExtractor = new PdfTextExtractor(16 * 1024 * 1024, -1, "");
+        loadedDocument = PDDocument.load(pdfBytes);
+        reusedStripper = new PDFTextStripper();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        loadedDocument.close();
+        Files.deleteIfExists(pdfFile);
+    }
+
+    @Benchmark
+    public int loadFromStream() throws IOException {
+        try (PDDocument document = PDDocument.load(new ByteArrayInputStream(pdfBytes))) {
+            return document.getNumberOfPages();
+        }
+    }
+
+    @Benchmark
+    public int loadFromSpoolFile() throws IOException {
+        File file = pdfFile.toFile();
+        try (PDDocument document = pdfTextExtractor.load(file)) {
+            return document.getNumberOfPages();
+        }
+    }
+
+    @Benchmark
+    public String getTextNewStripper() throws IOException {
+        return new PDFTextStripper().getText(loadedDocument);
+    }
+
+    @Benchmark
+    public String getTextReusedStripper() throws IOException {
+        return reusedStripper.getText(loadedDocument);
+    }
+
+    @Benchmark
+    public long pageStreamingAllPages() throws IOException {
+        SnippetCollector snippet = new SnippetCollector(500);
+        TextStatsCollector textStats = new TextStatsCollector(pages);
+        pdfTextExtractor.extract(loadedDocument, List.<PageTextConsumer>of(snippet, textStats));
+        return textStats.textLength();
+    }
+
+    @Benchmark
+    public String pageStreamingSnippetOnly() throws IOException {
+        SnippetCollector snippet = new SnippetCollector(500);
+        pdfTextExtractor.extract(loadedDocument, List.<PageTextConsumer>of(snippet));
+        return snippet.snippet();
+    }
+}
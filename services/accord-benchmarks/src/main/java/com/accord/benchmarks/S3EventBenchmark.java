@@ -0,0 +1,63 @@
+package com.accord.benchmarks;
+
+import com.accord.ingestionservice.S3Event;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Per-message cost of reading an S3 notification in MessageListener: the readValue call it makes
+// today, a cached ObjectReader, and a tree walk that only picks out bucket and key.
+// The mapper is configured like Spring Boot's (unknown properties ignored).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class S3EventBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ObjectReader s3EventReader;
+    private String notification;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        s3EventReader = objectMapper.readerFor(S3Event.class);
+        notification = BenchmarkData.s3EventNotification();
+    }
+
+    @Benchmark
+    public S3Event objectMapperReadValue() throws Exception {
+        return objectMapper.readValue(notification, S3Event.class);
+    }
+
+    @Benchmark
+    public S3Event cachedObjectReader() throws Exception {
+        return s3EventReader.readValue(notification);
+    }
+
+    @Benchmark
+    public String treeToObjectKey() throws Exception {
+        JsonNode object = objectMapper.readTree(notification).path("Records").path(0).path("s3").path("object");
+        return URLDecoder.decode(object.path("key").asText(), StandardCharsets.UTF_8);
+    }
+}
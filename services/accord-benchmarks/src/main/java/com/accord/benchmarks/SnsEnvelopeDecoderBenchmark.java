@@ -0,0 +1,63 @@
+package com.accord.benchmarks;
+
+import com.accord.events.SnsEnvelopeDecoder;
+import com.accord.events.TransactionProcessedEvent;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-message cost of getting a TransactionProcessedEvent out of an SNS notification:
+// the readTree + asText + readValue sequence the listeners used before, against the streaming decoder.
+// parserSetup is the part of a decode spent creating and closing the envelope parser.
+// gc.alloc.rate.norm (BenchmarkMain always adds the GC profiler) is the bytes allocated per message.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnsEnvelopeDecoderBenchmark {
+
+    private ObjectMapper objectMapper;
+    private SnsEnvelopeDecoder decoder;
+    private String snsMessageJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        decoder = new SnsEnvelopeDecoder(objectMapper);
+        snsMessageJson = BenchmarkData.snsEnvelope(objectMapper, BenchmarkData.transactionProcessedEvent());
+    }
+
+    @Benchmark
+    public TransactionProcessedEvent treeThenReadValue() throws Exception {
+        JsonNode rootNode = objectMapper.readTree(snsMessageJson);
+        String eventPayload = rootNode.get("Message").asText();
+        return objectMapper.readValue(eventPayload, TransactionProcessedEvent.class);
+    }
+
+    @Benchmark
+    public TransactionProcessedEvent streamingDecoder() throws Exception {
+        return decoder.decodeTransactionProcessed(snsMessageJson);
+    }
+
+    @Benchmark
+    public JsonToken parserSetup() throws Exception {
+        try (JsonParser parser = objectMapper.getFactory().createParser(snsMessageJson)) {
+            return parser.nextToken();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.accord.benchmarks;
+
+import com.accord.events.TransactionLines;
+import com.accord.ingestionservice.TransactionLineExtractor;
+import com.accord.ingestionservice.TransactionRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Transaction line extraction over one MB of statement text (exactly 1,000,000 ASCII characters in
+// ~6 KB pages), so on a single thread ops/s is MB of text per second per core.
+// anchoredRules: the ingestion stage, the Aho-Corasick keyword pass with the regexes only on anchored lines.
+// regexEveryLine: the straightforward alternative, one line regex tried on every line of every page.
+// gc.alloc.rate.norm is the bytes allocated per MB of text.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class TransactionExtractionBenchmark {
+
+    private static final Pattern TRANSACTION_LINE = Pattern.compile(
+            "^\\s*(\\d{1,2}/\\d{1,2}/\\d{2,4}|\\d{4}-\\d{2}-\\d{2}|\\d{1,2} [A-Za-z]{3} \\d{4})\\s+(.+?)\\s+"
+                    + "(-?[\\d,]+\\.\\d{2})(?:\\s+(-?[\\d,]+\\.\\d{2}))?\\s*$",
+            Pattern.MULTILINE);
+
+    private List<String> pages;
+    private TransactionRules rules;
+
+    @Setup
+    public void setUp() {
+        pages = BenchmarkData.statementPages(1_000_000);
+        rules = new TransactionRules(TransactionRules.DateOrder.DMY);
+    }
+
+    @Benchmark
+    public TransactionLines anchoredRules() {
+        TransactionLineExtractor extractor = new TransactionLineExtractor(rules, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        for (int i = 0; i < pages.size(); i++) {
+            extractor.accept(i + 1, pages.get(i));
+        }
+        return extractor.transactionLines();
+    }
+
+    @Benchmark
+    public int regexEveryLine() {
+        int lines = 0;
+        Matcher matcher = TRANSACTION_LINE.matcher("");
+        for (String page : pages) {
+            matcher.reset(page);
+            while (matcher.find()) {
+                lines += matcher.group(2).length() > 0 ? 1 : 0;
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,47 @@
+package com.accord.events;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.io.IOException;
+import java.util.Base64;
+
+// Turns events into SNS message bodies and back, in any EventEncoding. Thread-safe.
+public class EventCodec {
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+
+    public EventCodec(ObjectMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+        this.smileMapper = SmileMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    public String encode(Object event, EventEncoding encoding) throws IOException {
+        return switch (encoding) {
+            case JSON -> jsonMapper.writeValueAsString(event);
+            case SMILE -> Base64.getEncoder().encodeToString(smileMapper.writeValueAsBytes(event));
+        };
+    }
+
+    public <T> T decode(String body, EventEncoding encoding, Class<T> eventType) throws IOException {
+        return decode(body, encoding, readerFor(encoding, eventType));
+    }
+
+    // Readers are immutable and can be cached by callers that decode the same type repeatedly.
+    public ObjectReader readerFor(EventEncoding encoding, Class<?> eventType) {
+        return (encoding == EventEncoding.SMILE ? smileMapper : jsonMapper).readerFor(eventType);
+    }
+
+    <T> T decode(String body, EventEncoding encoding, ObjectReader reader) throws IOException {
+        return switch (encoding) {
+            case JSON -> reader.readValue(body);
+            case SMILE -> reader.readValue(Base64.getDecoder().decode(body));
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.accord.events;
+
+import java.util.Locale;
+
+// Wire encodings for event payloads. The encoding travels in the 'accord-encoding' SNS message
+// attribute, so producers can switch to the compact format while older consumers still read JSON.
+// SNS messages must be text, so binary formats are carried base64-encoded.
+public enum EventEncoding {
+
+    JSON("json"),
+    SMILE("smile");
+
+    public static final String ATTRIBUTE_NAME = "accord-encoding";
+
+    private final String attributeValue;
+
+    EventEncoding(String attributeValue) {
+        this.attributeValue = attributeValue;
+    }
+
+    public String attributeValue() {
+        return attributeValue;
+    }
+
+    // A missing attribute means a producer that predates the attribute, i.e. JSON.
+    public static EventEncoding fromAttribute(String attributeValue) {
+        if (attributeValue == null || attributeValue.isBlank()) {
+            return JSON;
+        }
+        for (EventEncoding encoding : values()) {
+            if (encoding.attributeValue.equals(attributeValue.toLowerCase(Locale.ROOT))) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported event encoding: " + attributeValue);
+    }
+}
@@ -0,0 +1,23 @@
+package com.accord.events;
+
+import java.time.Instant;
+import java.util.List;
+
+// Published by the fraud detection service for every event whose windowed fraud score reached the emit
+// threshold. The account is the bucket plus the leading directories of the key; score is 0..1 and reasons
+// name the features that contributed, e.g. UPLOAD_VELOCITY or FILE_SIZE_ANOMALY.
+public record FraudScoredEvent(
+        String bucketName,
+        String fileKey,
+        String accountKey,
+        double score,
+        List<String> reasons,
+        // The features behind the score: the account's uploads in the window including this one, how far
+        // size and page count are from the bucket's window mean in standard deviations (0 without enough
+        // samples), and the most similar-snippet uploads seen for the account or the snippet in the window
+        long uploadsInWindow,
+        double fileSizeZScore,
+        double pageCountZScore,
+        long similarInWindow,
+        Instant scoredAt
+) {}
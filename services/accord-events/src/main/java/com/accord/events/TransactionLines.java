@@ -0,0 +1,32 @@
+package com.accord.events;
+
+import java.util.List;
+
+// The transaction lines the ingestion service found in one evidence file, column by column: line i
+// is (dates[i], amountsMinor[i], counterparty(i), references[i]) on page pages[i], in document order.
+// A statement with hundreds of lines is a handful of arrays on the event instead of an object per line,
+// and counterparties are stored once in a dictionary since the same payees keep coming back.
+public record TransactionLines(
+        // Booking dates as days since 1970-01-01 (LocalDate.ofEpochDay)
+        int[] dates,
+        // Signed amounts in hundredths of the statement currency; money going out is negative
+        long[] amountsMinor,
+        // Distinct counterparties, and per line an index into them or -1 when the line names none
+        List<String> counterpartyDictionary,
+        int[] counterpartyIndexes,
+        // Per line the payment reference, or null
+        String[] references,
+        int[] pages,
+        // More lines than the ingestion service keeps per file; the first ones are here
+        boolean truncated
+) {
+
+    public int size() {
+        return dates.length;
+    }
+
+    public String counterparty(int line) {
+        int index = counterpartyIndexes[line];
+        return index < 0 ? null : counterpartyDictionary.get(index);
+    }
+}
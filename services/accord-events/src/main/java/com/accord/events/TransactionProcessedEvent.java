@@ -0,0 +1,25 @@
+package com.accord.events;
+
+// Published by the ingestion service for every processed evidence file,
+// consumed by the verification and fraud detection services.
+public record TransactionProcessedEvent(
+        String bucketName,
+        String fileKey,
+        long fileSize,
+        int pageCount,
+        String textSnippet,
+        // Total characters of extracted text and the count for each page (index 0 = page 1);
+        // -1 and null when the ingestion service was configured to skip text stats
+        long textLength,
+        int[] pageCharCounts,
+        // Hex SHA-256 of the object bytes, and a MinHash signature of the normalized text
+        // (null when fingerprinting is disabled or the text is too short)
+        String contentSha256,
+        int[] minHashSignature,
+        // Dated, priced lines of the statement text for reconciliation; null when the ingestion
+        // service was configured to skip transaction extraction
+        TransactionLines transactionLines,
+        // Re-published by a backfill job for a file that was already processed, not a new upload;
+        // consumers must not count it as an upload or report it as a duplicate of its first event
+        boolean replay
+) {}
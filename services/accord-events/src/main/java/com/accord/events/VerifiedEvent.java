@@ -1,10 +1,11 @@
-package com.accord.verificationservice;
+package com.accord.events;
 
 import java.time.Instant;
 
+// Published by the verification service once all verification steps ran; status is VERIFIED or REJECTED.
 public record VerifiedEvent(
         String status,
         String fileKey,
         String verificationId,
         Instant verificationTimestamp
-) {}
\ No newline at end of file
+) {}
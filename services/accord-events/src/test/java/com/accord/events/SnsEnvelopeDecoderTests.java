@@ -0,0 +1,112 @@
+package com.accord.events;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnsEnvelopeDecoderTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+	private final EventCodec codec = new EventCodec(objectMapper);
+	private final SnsEnvelopeDecoder decoder = new SnsEnvelopeDecoder(objectMapper, codec);
+	private final TransactionProcessedEvent event = new TransactionProcessedEvent("evidence", "2024/\"march\".pdf", 1024, 2,
+			"Statement\nline two", 30, new int[]{10, 20}, "ab12", new int[]{1, 2, 3},
+			new TransactionLines(new int[]{19786, 19789}, new long[]{-5420, 120000}, List.of("GROCER & SONS"),
+					new int[]{0, -1}, new String[]{null, "INV-2024-031"}, new int[]{1, 2}, false), true);
+
+	@Test
+	void decodesTheEventInsideTheEnvelope() throws Exception {
+		assertSameEvent(decoder.decodeTransactionProcessed(envelope(objectMapper.writeValueAsString(event), null)));
+	}
+
+	@Test
+	void decodesSmileEventsInsideTheEnvelope() throws Exception {
+		String smile = codec.encode(event, EventEncoding.SMILE);
+
+		assertSameEvent(decoder.decodeTransactionProcessed(envelope(smile, EventEncoding.SMILE)));
+	}
+
+	@Test
+	void decodesRawDeliveryByTheSqsAttribute() throws Exception {
+		assertSameEvent(decoder.decodeTransactionProcessed(codec.encode(event, EventEncoding.SMILE), "smile"));
+		assertSameEvent(decoder.decodeTransactionProcessed(codec.encode(event, EventEncoding.JSON), "json"));
+	}
+
+	@Test
+	void decodesRawJsonWithoutAttribute() throws Exception {
+		assertSameEvent(decoder.decodeTransactionProcessed(objectMapper.writeValueAsString(event)));
+	}
+
+	@Test
+	void decodesVerifiedEvents() throws Exception {
+		VerifiedEvent event = new VerifiedEvent("VERIFIED", "a.pdf", "id-1", Instant.parse("2024-03-01T10:15:30Z"));
+
+		assertEquals(event, decoder.decodeVerified(envelope(objectMapper.writeValueAsString(event), null)));
+	}
+
+	@Test
+	void decodesFraudScoredEvents() throws Exception {
+		FraudScoredEvent event = new FraudScoredEvent("evidence", "a.pdf", "evidence/2024", 0.75,
+				List.of("UPLOAD_VELOCITY"), 12, 0.5, 0.0, 3, Instant.parse("2024-03-01T10:15:30Z"));
+
+		assertEquals(event, decoder.decodeFraudScored(envelope(objectMapper.writeValueAsString(event), null)));
+		assertEquals(event, decoder.decodeFraudScored(codec.encode(event, EventEncoding.SMILE), "smile"));
+	}
+
+	@Test
+	void rejectsEnvelopesWithoutAMessage() {
+		assertThrows(JsonParseException.class, () -> decoder.decodeTransactionProcessed("{\"Type\":\"Notification\"}"));
+	}
+
+	@Test
+	void rejectsBinaryMessagesWithoutEncodingAttribute() throws Exception {
+		String smile = codec.encode(event, EventEncoding.SMILE);
+
+		assertThrows(JsonParseException.class, () -> decoder.decodeTransactionProcessed(envelope(smile, null)));
+	}
+
+	@Test
+	void eventsFromProducersWithoutTheReplayFieldAreLive() throws Exception {
+		String body = objectMapper.writeValueAsString(event).replace(",\"replay\":true", "");
+
+		assertFalse(decoder.decodeTransactionProcessed(body).replay());
+	}
+
+	private void assertSameEvent(TransactionProcessedEvent decoded) {
+		assertEquals(event.fileKey(), decoded.fileKey());
+		assertEquals(event.textSnippet(), decoded.textSnippet());
+		assertArrayEquals(event.pageCharCounts(), decoded.pageCharCounts());
+		assertArrayEquals(event.minHashSignature(), decoded.minHashSignature());
+		TransactionLines lines = decoded.transactionLines();
+		assertArrayEquals(event.transactionLines().dates(), lines.dates());
+		assertArrayEquals(event.transactionLines().amountsMinor(), lines.amountsMinor());
+		assertEquals("GROCER & SONS", lines.counterparty(0));
+		assertNull(lines.counterparty(1));
+		assertArrayEquals(event.transactionLines().references(), lines.references());
+		assertArrayEquals(event.transactionLines().pages(), lines.pages());
+		assertEquals(event.replay(), decoded.replay());
+	}
+
+	private String envelope(String message, EventEncoding encoding) throws Exception {
+		ObjectNode envelope = objectMapper.createObjectNode();
+		envelope.put("Type", "Notification");
+		envelope.put("MessageId", "5f1e0c4e");
+		envelope.put("Message", message);
+		envelope.put("Timestamp", "2024-03-01T10:15:30.000Z");
+		ObjectNode attributes = envelope.putObject("MessageAttributes");
+		if (encoding != null) {
+			attributes.putObject(EventEncoding.ATTRIBUTE_NAME).put("Type", "String").put("Value", encoding.attributeValue());
+		}
+		return objectMapper.writeValueAsString(envelope);
+	}
+}
@@ -0,0 +1,64 @@
+#!/bin/bash
+# Runs inside LocalStack once it is ready and creates what InfrastructureStack creates in AWS,
+# plus three queues the load driver uses to timestamp each stage's output.
+set -euo pipefail
+
+REGION=us-east-1
+RAW_DELIVERY=${RAW_MESSAGE_DELIVERY:-true}
+MAX_RECEIVES=${MAX_RECEIVE_COUNT:-5}
+
+queue_arn() {
+  awslocal sqs get-queue-attributes --queue-url "$1" --attribute-names QueueArn --query Attributes.QueueArn --output text
+}
+
+# Gives a queue a dead-letter queue, like InfrastructureStack: after MAX_RECEIVES failed receives a message moves there
+with_dead_letter_queue() {
+  local dlq attributes
+  dlq=$(awslocal sqs create-queue --queue-name "$2" --attributes MessageRetentionPeriod=1209600 --query QueueUrl --output text)
+  attributes=$(printf '{"RedrivePolicy":"{\\"deadLetterTargetArn\\":\\"%s\\",\\"maxReceiveCount\\":\\"%s\\"}"}' \
+    "$(queue_arn "$dlq")" "$MAX_RECEIVES")
+  awslocal sqs set-queue-attributes --queue-url "$1" --attributes "$attributes"
+}
+
+subscribe() {
+  awslocal sns subscribe --topic-arn "$1" --protocol sqs --notification-endpoint "$(queue_arn "$2")" \
+    --attributes RawMessageDelivery="$RAW_DELIVERY" > /dev/null
+}
+
+awslocal s3 mb s3://accord-evidence-bucket
+INTAKE_QUEUE=$(awslocal sqs create-queue --queue-name accord-intake-queue --attributes VisibilityTimeout=600 --query QueueUrl --output text)
+with_dead_letter_queue "$INTAKE_QUEUE" accord-intake-dlq
+awslocal s3api put-bucket-notification-configuration --bucket accord-evidence-bucket --notification-configuration "{
+  \"QueueConfigurations\": [{
+    \"QueueArn\": \"$(queue_arn "$INTAKE_QUEUE")\",
+    \"Events\": [\"s3:ObjectCreated:*\"],
+    \"Filter\": {\"Key\": {\"FilterRules\": [{\"Name\": \"suffix\", \"Value\": \".pdf\"}]}}
+  }]
+}"
+
+RECEIVED_TOPIC=$(awslocal sns create-topic --name accord-transaction-received-topic --query TopicArn --output text)
+VERIFIED_TOPIC=$(awslocal sns create-topic --name accord-transaction-verified-topic --query TopicArn --output text)
+FRAUD_SCORED_TOPIC=$(awslocal sns create-topic --name accord-fraud-scored-topic --query TopicArn --output text)
+VERIFICATION_QUEUE=$(awslocal sqs create-queue --queue-name verification-queue --attributes VisibilityTimeout=300 --query QueueUrl --output text)
+FRAUD_QUEUE=$(awslocal sqs create-queue --queue-name fraud-detection-queue --attributes VisibilityTimeout=300 --query QueueUrl --output text)
+with_dead_letter_queue "$VERIFICATION_QUEUE" verification-dlq
+with_dead_letter_queue "$FRAUD_QUEUE" fraud-detection-dlq
+subscribe "$RECEIVED_TOPIC" "$VERIFICATION_QUEUE"
+subscribe "$RECEIVED_TOPIC" "$FRAUD_QUEUE"
+
+# Taps for the load driver: the SentTimestamp of each copy marks when a stage emitted its event
+PROCESSED_TAP=$(awslocal sqs create-queue --queue-name loadtest-processed-tap --query QueueUrl --output text)
+VERIFIED_TAP=$(awslocal sqs create-queue --queue-name loadtest-verified-tap --query QueueUrl --output text)
+FRAUD_SCORED_TAP=$(awslocal sqs create-queue --queue-name loadtest-fraud-scored-tap --query QueueUrl --output text)
+subscribe "$RECEIVED_TOPIC" "$PROCESSED_TAP"
+subscribe "$VERIFIED_TOPIC" "$VERIFIED_TAP"
+subscribe "$FRAUD_SCORED_TOPIC" "$FRAUD_SCORED_TAP"
+
+awslocal ssm put-parameter --name /accord/queues/intake-queue-name --type String --value accord-intake-queue > /dev/null
+awslocal ssm put-parameter --name /accord/queues/verification-queue-url --type String --value "$VERIFICATION_QUEUE" > /dev/null
+awslocal ssm put-parameter --name /accord/queues/fraud-detection-queue-url --type String --value "$FRAUD_QUEUE" > /dev/null
+awslocal ssm put-parameter --name /accord/topics/transaction-received-arn --type String --value "$RECEIVED_TOPIC" > /dev/null
+awslocal ssm put-parameter --name /accord/topics/verified-arn --type String --value "$VERIFIED_TOPIC" > /dev/null
+awslocal ssm put-parameter --name /accord/topics/fraud-scored-arn --type String --value "$FRAUD_SCORED_TOPIC" > /dev/null
+
+echo "Accord resources created in $REGION"
@@ -0,0 +1,32 @@
+package com.accord.loadtest;
+
+import java.util.Collection;
+
+// Latency distribution of one stage plus its throughput over the stage's active window.
+record LatencySummary(int count, long p50Millis, long p99Millis, long maxMillis, double filesPerSecond) {
+
+    static LatencySummary of(Collection<Long> latenciesMillis, long windowMillis) {
+        long[] sorted = latenciesMillis.stream().mapToLong(Long::longValue).sorted().toArray();
+        if (sorted.length == 0) {
+            return new LatencySummary(0, 0, 0, 0, 0);
+        }
+        double filesPerSecond = windowMillis > 0 ? sorted.length * 1000.0 / windowMillis : 0;
+        return new LatencySummary(sorted.length, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                sorted[sorted.length - 1], filesPerSecond);
+    }
+
+    // Nearest-rank percentile
+    private static long percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%7d %10.1f %9d %9d %9d", count, filesPerSecond, p50Millis, p99Millis, maxMillis);
+    }
+
+    static String header() {
+        return String.format("%7s %10s %9s %9s %9s", "files", "files/s", "p50 ms", "p99 ms", "max ms");
+    }
+}
@@ -0,0 +1,230 @@
+package com.accord.loadtest;
+
+import com.accord.events.SnsEnvelopeDecoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// End-to-end load test of the pipeline running against LocalStack (see docker-compose.yml).
+// Uploads synthetic PDFs at a fixed rate and times each stage from the SQS SentTimestamp of the
+// events it emits: upload -> TransactionProcessedEvent (ingestion) -> VerifiedEvent (verification)
+// and FraudScoredEvent (fraud detection). The fraud service only emits events at its emit threshold,
+// which docker-compose.yml sets to 0 so that every upload is timed. The per-stage internals are
+// reported from the difference of the services' Prometheus meters before and after the run.
+public final class LoadTest {
+
+    private static final String PROCESSED_TAP_QUEUE = "loadtest-processed-tap";
+    private static final String VERIFIED_TAP_QUEUE = "loadtest-verified-tap";
+    private static final String FRAUD_SCORED_TAP_QUEUE = "loadtest-fraud-scored-tap";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        new LoadTest().run(options);
+    }
+
+    private void run(LoadTestOptions options) throws Exception {
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test"));
+        S3Client s3Client = S3Client.builder()
+                .endpointOverride(options.endpoint())
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .forcePathStyle(true)
+                .build();
+        SqsClient sqsClient = SqsClient.builder()
+                .endpointOverride(options.endpoint())
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .build();
+        SnsEnvelopeDecoder decoder = new SnsEnvelopeDecoder(new ObjectMapper().findAndRegisterModules());
+        SyntheticPdfGenerator generator = new SyntheticPdfGenerator(options.pages(), options.linesPerPage());
+        PrometheusScraper scraper = new PrometheusScraper();
+
+        String runPrefix = "loadtest/" + System.currentTimeMillis() + "/";
+        int totalUploads = options.totalUploads();
+        List<byte[]> corpus = new ArrayList<>(options.corpusSize());
+        for (int i = 0; i < options.corpusSize(); i++) {
+            corpus.add(generator.generate(i));
+        }
+        System.out.printf("Run %s: %d upload(s) at %.1f/s, %d page(s) x %d line(s), ~%d KB per PDF%n",
+                runPrefix, totalUploads, options.rate(), options.pages(), options.linesPerPage(),
+                (corpus.isEmpty() ? generator.generate(0) : corpus.get(0)).length / 1024);
+
+        StageTap processedTap = new StageTap(sqsClient, queueUrl(sqsClient, PROCESSED_TAP_QUEUE), runPrefix,
+                (body, encoding) -> decoder.decodeTransactionProcessed(body, encoding).fileKey());
+        StageTap verifiedTap = new StageTap(sqsClient, queueUrl(sqsClient, VERIFIED_TAP_QUEUE), runPrefix,
+                (body, encoding) -> decoder.decodeVerified(body, encoding).fileKey());
+        StageTap fraudScoredTap = new StageTap(sqsClient, queueUrl(sqsClient, FRAUD_SCORED_TAP_QUEUE), runPrefix,
+                (body, encoding) -> decoder.decodeFraudScored(body, encoding).fileKey());
+        Thread processedThread = new Thread(processedTap, "processed-tap");
+        Thread verifiedThread = new Thread(verifiedTap, "verified-tap");
+        Thread fraudScoredThread = new Thread(fraudScoredTap, "fraud-scored-tap");
+        processedThread.start();
+        verifiedThread.start();
+        fraudScoredThread.start();
+
+        Map<URI, Map<String, Double>> metricsBefore = scrapeAll(scraper, options.metricsEndpoints());
+
+        // Uploads are scheduled at the offered rate independently of how fast earlier ones finish,
+        // so a slow pipeline shows up as latency instead of silently lowering the rate.
+        Map<String, Long> uploadedAtMillis = new ConcurrentHashMap<>();
+        AtomicInteger failedUploads = new AtomicInteger();
+        CountDownLatch uploadsDone = new CountDownLatch(totalUploads);
+        AtomicInteger nextUpload = new AtomicInteger();
+        ExecutorService uploaders = Executors.newFixedThreadPool(options.uploadThreads());
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        long startMillis = System.currentTimeMillis();
+        ticker.scheduleAtFixedRate(() -> {
+            int documentNumber = nextUpload.getAndIncrement();
+            if (documentNumber >= totalUploads) {
+                return;
+            }
+            uploaders.execute(() -> {
+                String key = runPrefix + documentNumber + ".pdf";
+                try {
+                    byte[] pdf = corpus.isEmpty() ? generator.generate(documentNumber) : corpus.get(documentNumber % corpus.size());
+                    s3Client.putObject(request -> request.bucket(options.bucket()).key(key), RequestBody.fromBytes(pdf));
+                    uploadedAtMillis.put(key, System.currentTimeMillis());
+                } catch (IOException | RuntimeException e) {
+                    failedUploads.incrementAndGet();
+                    System.err.printf("Upload of %s failed: %s%n", key, e);
+                } finally {
+                    uploadsDone.countDown();
+                }
+            });
+        }, 0, (long) (1_000_000_000L / options.rate()), TimeUnit.NANOSECONDS);
+
+        uploadsDone.await();
+        ticker.shutdownNow();
+        uploaders.shutdown();
+        long uploadEndMillis = System.currentTimeMillis();
+        System.out.printf("Uploads finished after %.1f s (%d failed), waiting up to %s for the pipeline to drain...%n",
+                (uploadEndMillis - startMillis) / 1000.0, failedUploads.get(), options.drainTimeout());
+
+        long drainDeadline = uploadEndMillis + options.drainTimeout().toMillis();
+        while ((verifiedTap.emittedAtMillis().size() < uploadedAtMillis.size()
+                || fraudScoredTap.emittedAtMillis().size() < uploadedAtMillis.size())
+                && System.currentTimeMillis() < drainDeadline) {
+            Thread.sleep(500);
+        }
+        processedTap.stop();
+        verifiedTap.stop();
+        fraudScoredTap.stop();
+        processedThread.join();
+        verifiedThread.join();
+        fraudScoredThread.join();
+        Map<URI, Map<String, Double>> metricsAfter = scrapeAll(scraper, options.metricsEndpoints());
+
+        report(startMillis, uploadedAtMillis, processedTap, verifiedTap, fraudScoredTap);
+        reportMetrics(metricsBefore, metricsAfter, (System.currentTimeMillis() - startMillis) / 1000.0);
+        s3Client.close();
+        sqsClient.close();
+    }
+
+    private static String queueUrl(SqsClient sqsClient, String queueName) {
+        return sqsClient.getQueueUrl(request -> request.queueName(queueName)).queueUrl();
+    }
+
+    private static Map<URI, Map<String, Double>> scrapeAll(PrometheusScraper scraper, List<URI> endpoints) {
+        Map<URI, Map<String, Double>> scrapes = new ConcurrentHashMap<>();
+        for (URI endpoint : endpoints) {
+            scrapes.put(endpoint, scraper.scrape(endpoint));
+        }
+        return scrapes;
+    }
+
+    private static void report(long startMillis, Map<String, Long> uploadedAtMillis, StageTap processedTap,
+                               StageTap verifiedTap, StageTap fraudScoredTap) {
+        Map<String, Long> processedAt = processedTap.emittedAtMillis();
+        Map<String, Long> verifiedAt = verifiedTap.emittedAtMillis();
+        Map<String, Long> scoredAt = fraudScoredTap.emittedAtMillis();
+        List<Long> ingestion = new ArrayList<>();
+        List<Long> verification = new ArrayList<>();
+        List<Long> fraudDetection = new ArrayList<>();
+        List<Long> endToEnd = new ArrayList<>();
+        long lastProcessed = startMillis;
+        long lastVerified = startMillis;
+        long lastScored = startMillis;
+        for (Map.Entry<String, Long> upload : uploadedAtMillis.entrySet()) {
+            Long processed = processedAt.get(upload.getKey());
+            Long verified = verifiedAt.get(upload.getKey());
+            Long scored = scoredAt.get(upload.getKey());
+            if (processed != null) {
+                ingestion.add(processed - upload.getValue());
+                lastProcessed = Math.max(lastProcessed, processed);
+            }
+            if (processed != null && verified != null) {
+                verification.add(verified - processed);
+            }
+            if (processed != null && scored != null) {
+                fraudDetection.add(scored - processed);
+                lastScored = Math.max(lastScored, scored);
+            }
+            if (verified != null) {
+                endToEnd.add(verified - upload.getValue());
+                lastVerified = Math.max(lastVerified, verified);
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-34s %s%n", "Stage", LatencySummary.header());
+        System.out.printf("%-34s %s%n", "ingestion (upload -> processed)", LatencySummary.of(ingestion, lastProcessed - startMillis));
+        System.out.printf("%-34s %s%n", "verification (processed -> verified)", LatencySummary.of(verification, lastVerified - startMillis));
+        System.out.printf("%-34s %s%n", "fraud (processed -> scored)", LatencySummary.of(fraudDetection, lastScored - startMillis));
+        System.out.printf("%-34s %s%n", "end to end (upload -> verified)", LatencySummary.of(endToEnd, lastVerified - startMillis));
+        int lost = uploadedAtMillis.size() - endToEnd.size();
+        int unscored = uploadedAtMillis.size() - fraudDetection.size();
+        int unreadable = processedTap.unreadable() + verifiedTap.unreadable() + fraudScoredTap.unreadable();
+        if (lost > 0 || unscored > 0 || unreadable > 0) {
+            System.out.printf("%d file(s) not verified and %d not scored before the drain timeout, %d unreadable tap message(s)%n",
+                    lost, unscored, unreadable);
+        }
+    }
+
+    // Timers show up as _count/_sum pairs, counters as _total
+    private static void reportMetrics(Map<URI, Map<String, Double>> before, Map<URI, Map<String, Double>> after, double runSeconds) {
+        for (Map.Entry<URI, Map<String, Double>> service : after.entrySet()) {
+            if (service.getValue().isEmpty()) {
+                System.out.printf("%nNo metrics from %s%n", service.getKey());
+                continue;
+            }
+            System.out.printf("%nMeters of %s during the run:%n", service.getKey());
+            Map<String, Double> previous = before.getOrDefault(service.getKey(), Map.of());
+            for (Map.Entry<String, Double> series : service.getValue().entrySet()) {
+                String name = series.getKey();
+                double delta = series.getValue() - previous.getOrDefault(name, 0.0);
+                if (name.contains("_count")) {
+                    String sumName = name.replace("_count", "_sum");
+                    double sumDelta = service.getValue().getOrDefault(sumName, 0.0) - previous.getOrDefault(sumName, 0.0);
+                    System.out.printf("  %-90s %9.0f  %8.1f/s  mean %8.1f ms%n", name, delta, delta / runSeconds,
+                            delta > 0 ? sumDelta / delta * 1000 : 0);
+                } else if (name.contains("_total")) {
+                    System.out.printf("  %-90s %9.0f  %8.1f/s%n", name, delta, delta / runSeconds);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.accord.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Command line options, all given as --name=value.
+record LoadTestOptions(URI endpoint,
+                       String bucket,
+                       double rate,
+                       Duration duration,
+                       int pages,
+                       int linesPerPage,
+                       int corpusSize,
+                       int uploadThreads,
+                       Duration drainTimeout,
+                       List<URI> metricsEndpoints) {
+
+    static final String USAGE = """
+            Options (--name=value):
+              endpoint         LocalStack endpoint                          [http://localhost:4566]
+              bucket           evidence bucket                              [accord-evidence-bucket]
+              rate             uploads per second                           [10]
+              duration         how long to upload, ISO-8601                 [PT1M]
+              pages            pages per synthetic PDF                      [5]
+              lines-per-page   text lines per page, at most 75              [40]
+              corpus-size      distinct PDFs to cycle through; 0 = every
+                               upload is a new document (no duplicates)     [0]
+              upload-threads   concurrent S3 uploads                        [8]
+              drain-timeout    wait for the last VerifiedEvents, ISO-8601   [PT2M]
+              metrics          comma separated service base URLs scraped
+                               on /actuator/prometheus before and after     [http://localhost:8080,http://localhost:8081,http://localhost:8082]
+            """;
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unexpected argument '" + arg + "'\n" + USAGE);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        LoadTestOptions options = new LoadTestOptions(
+                URI.create(values.getOrDefault("endpoint", "http://localhost:4566")),
+                values.getOrDefault("bucket", "accord-evidence-bucket"),
+                Double.parseDouble(values.getOrDefault("rate", "10")),
+                Duration.parse(values.getOrDefault("duration", "PT1M")),
+                Integer.parseInt(values.getOrDefault("pages", "5")),
+                Integer.parseInt(values.getOrDefault("lines-per-page", "40")),
+                Integer.parseInt(values.getOrDefault("corpus-size", "0")),
+                Integer.parseInt(values.getOrDefault("upload-threads", "8")),
+                Duration.parse(values.getOrDefault("drain-timeout", "PT2M")),
+                Arrays.stream(values.getOrDefault("metrics", "http://localhost:8080,http://localhost:8081,http://localhost:8082").split(","))
+                        .map(String::trim)
+                        .filter(url -> !url.isEmpty())
+                        .map(URI::create)
+                        .toList());
+        values.keySet().removeAll(List.of("endpoint", "bucket", "rate", "duration", "pages", "lines-per-page",
+                "corpus-size", "upload-threads", "drain-timeout", "metrics"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown option(s) " + values.keySet() + "\n" + USAGE);
+        }
+        if (options.rate <= 0 || options.pages <= 0 || options.linesPerPage <= 0 || options.linesPerPage > 75) {
+            throw new IllegalArgumentException("rate and pages must be positive, lines-per-page between 1 and 75\n" + USAGE);
+        }
+        return options;
+    }
+
+    int totalUploads() {
+        return (int) Math.max(1, Math.round(rate * duration.toMillis() / 1000.0));
+    }
+}
@@ -0,0 +1,49 @@
+package com.accord.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Reads the accord_* series of a service's /actuator/prometheus page, so the report can show
+// what each stage did during the run (the difference between a scrape before and one after).
+final class PrometheusScraper {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    // Series name with labels -> value; empty when the service cannot be reached
+    Map<String, Double> scrape(URI serviceBaseUrl) {
+        Map<String, Double> series = new TreeMap<>();
+        HttpRequest request = HttpRequest.newBuilder(serviceBaseUrl.resolve("/actuator/prometheus"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        String body;
+        try {
+            body = httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        } catch (IOException e) {
+            return series;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return series;
+        }
+        for (String line : body.split("\n")) {
+            // Buckets are only needed for server-side percentiles; counts and sums are enough here
+            if (!line.startsWith("accord_") || line.contains("_bucket")) {
+                continue;
+            }
+            int separator = line.lastIndexOf(' ');
+            try {
+                series.put(line.substring(0, separator), Double.parseDouble(line.substring(separator + 1)));
+            } catch (NumberFormatException ignored) {
+                // NaN gauges and the like
+            }
+        }
+        return series;
+    }
+}
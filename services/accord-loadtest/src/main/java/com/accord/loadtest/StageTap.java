@@ -0,0 +1,87 @@
+package com.accord.loadtest;
+
+import com.accord.events.EventEncoding;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Drains a queue subscribed to one of the pipeline's topics and remembers, per file key, when the
+// event reached the queue (the SQS SentTimestamp). Only keys of the current run are kept.
+final class StageTap implements Runnable {
+
+    @FunctionalInterface
+    interface FileKeyReader {
+        String fileKey(String body, String encodingAttribute) throws IOException;
+    }
+
+    private final SqsClient sqsClient;
+    private final String queueUrl;
+    private final String runPrefix;
+    private final FileKeyReader fileKeyReader;
+    private final Map<String, Long> emittedAtMillis = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+    private volatile int unreadable;
+
+    StageTap(SqsClient sqsClient, String queueUrl, String runPrefix, FileKeyReader fileKeyReader) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+        this.runPrefix = runPrefix;
+        this.fileKeyReader = fileKeyReader;
+    }
+
+    Map<String, Long> emittedAtMillis() {
+        return emittedAtMillis;
+    }
+
+    int unreadable() {
+        return unreadable;
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            ReceiveMessageResponse response = sqsClient.receiveMessage(request -> request
+                    .queueUrl(queueUrl)
+                    .maxNumberOfMessages(10)
+                    .waitTimeSeconds(1)
+                    .attributeNamesWithStrings("SentTimestamp")
+                    .messageAttributeNames(EventEncoding.ATTRIBUTE_NAME));
+            if (!response.hasMessages() || response.messages().isEmpty()) {
+                continue;
+            }
+            List<DeleteMessageBatchRequestEntry> deletes = new ArrayList<>(response.messages().size());
+            for (Message message : response.messages()) {
+                record(message);
+                deletes.add(DeleteMessageBatchRequestEntry.builder()
+                        .id(Integer.toString(deletes.size()))
+                        .receiptHandle(message.receiptHandle())
+                        .build());
+            }
+            sqsClient.deleteMessageBatch(request -> request.queueUrl(queueUrl).entries(deletes));
+        }
+    }
+
+    private void record(Message message) {
+        MessageAttributeValue encoding = message.messageAttributes().get(EventEncoding.ATTRIBUTE_NAME);
+        try {
+            String fileKey = fileKeyReader.fileKey(message.body(), encoding != null ? encoding.stringValue() : null);
+            if (fileKey != null && fileKey.startsWith(runPrefix)) {
+                emittedAtMillis.putIfAbsent(fileKey, Long.parseLong(message.attributesAsStrings().get("SentTimestamp")));
+            }
+        } catch (IOException | RuntimeException e) {
+            unreadable++;
+        }
+    }
+}
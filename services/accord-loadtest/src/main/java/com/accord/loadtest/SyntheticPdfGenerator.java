@@ -0,0 +1,60 @@
+package com.accord.loadtest;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+
+// Bank-statement-like PDFs with real text on every page, so extraction does representative work.
+// The content is derived from the document number: the same number always yields the same bytes,
+// different numbers yield different content hashes and fingerprints.
+final class SyntheticPdfGenerator {
+
+    private static final String[] MERCHANTS = {"GROCER & SONS", "CITY TRANSIT", "NORTHWIND TRADERS", "ACME UTILITIES",
+            "CORNER CAFE", "BLUE LINE FUEL", "METRO PHARMACY", "CONTOSO ONLINE", "RIVERSIDE RENT", "PAYROLL ACCORD LTD"};
+
+    private final int pages;
+    private final int linesPerPage;
+
+    SyntheticPdfGenerator(int pages, int linesPerPage) {
+        this.pages = pages;
+        this.linesPerPage = linesPerPage;
+    }
+
+    byte[] generate(long documentNumber) throws IOException {
+        Random random = new Random(documentNumber);
+        long balanceCents = 100_000 + random.nextInt(500_000);
+        try (PDDocument document = new PDDocument()) {
+            for (int pageIndex = 0; pageIndex < pages; pageIndex++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.COURIER, 8);
+                    content.setLeading(10);
+                    content.newLineAtOffset(40, 800);
+                    content.showText(String.format("ACCORD BANK  Statement %d  Page %d of %d", documentNumber, pageIndex + 1, pages));
+                    content.newLine();
+                    for (int line = 0; line < linesPerPage; line++) {
+                        long amountCents = random.nextInt(40_000) - 30_000;
+                        balanceCents += amountCents;
+                        content.showText(String.format(Locale.ROOT, "%02d/%02d/2024  %-24s %10.2f %12.2f",
+                                1 + random.nextInt(28), 1 + random.nextInt(12), MERCHANTS[random.nextInt(MERCHANTS.length)],
+                                amountCents / 100.0, balanceCents / 100.0));
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+#!/bin/bash
+# Time to first message of a freshly started service container, standard image against fast-start image,
+# on the LocalStack and Redis stand-ins of docker-compose.yml. For every run the service is removed, one
+# message is put on its queue, and the clock runs from 'docker compose up' until the service's queue lag
+# timer on /actuator/prometheus has recorded a message. Needs GNU date (Linux) for millisecond timestamps.
+#   ./startup-benchmark.sh [ingestion-service|verification-service|fraud-detection-service] [runs]
+set -euo pipefail
+cd "$(dirname "$0")"
+
+SERVICE=${1:-ingestion-service}
+RUNS=${2:-5}
+RECEIVED_TOPIC=arn:aws:sns:us-east-1:000000000000:accord-transaction-received-topic
+case "$SERVICE" in
+  ingestion-service) PORT=8080; METRIC=accord_ingestion_queue_lag_seconds_count ;;
+  verification-service) PORT=8081; METRIC=accord_verification_queue_lag_seconds_count ;;
+  fraud-detection-service) PORT=8082; METRIC=accord_fraud_queue_lag_seconds_count ;;
+  *) echo "Unknown service $SERVICE" >&2; exit 1 ;;
+esac
+
+# Smallest PDF with one line of text; PDFBox rebuilds the cross-reference table it leaves out
+PDF='%PDF-1.4
+1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj
+2 0 obj << /Type /Pages /Kids [3 0 R] /Count 1 >> endobj
+3 0 obj << /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792] /Contents 4 0 R /Resources << /Font << /F1 5 0 R >> >> >> endobj
+4 0 obj << /Length 60 >> stream
+BT /F1 12 Tf 72 720 Td (Startup benchmark statement) Tj ET
+endstream endobj
+5 0 obj << /Type /Font /Subtype /Type1 /BaseFont /Helvetica >> endobj
+trailer << /Root 1 0 R >>
+%%EOF'
+
+enqueue() {
+  if [ "$SERVICE" = ingestion-service ]; then
+    printf '%s' "$PDF" | docker compose exec -T localstack \
+      awslocal s3 cp - "s3://accord-evidence-bucket/startup-benchmark/$1.pdf" > /dev/null
+  else
+    docker compose exec -T localstack awslocal sns publish --topic-arn "$RECEIVED_TOPIC" --message \
+      "{\"bucketName\":\"accord-evidence-bucket\",\"fileKey\":\"startup-benchmark/$1.pdf\",\"fileSize\":512,\"pageCount\":1,\"textSnippet\":\"Startup benchmark statement\",\"textLength\":27}" \
+      > /dev/null
+  fi
+}
+
+first_message_seen() {
+  curl -sf "localhost:$PORT/actuator/prometheus" 2>/dev/null | grep -Eq "^$METRIC(\{[^}]*\})? [1-9]"
+}
+
+measure() {
+  local target=$1
+  echo "Building $SERVICE ($target image)..."
+  SERVICE_IMAGE_TARGET=$target docker compose build -q "$SERVICE"
+  for run in $(seq "$RUNS"); do
+    docker compose rm -sf "$SERVICE" > /dev/null 2>&1
+    enqueue "$target-$run-$(date +%s)"
+    local start end ready
+    start=$(date +%s%3N)
+    SERVICE_IMAGE_TARGET=$target docker compose up -d --no-deps "$SERVICE" > /dev/null 2>&1
+    until first_message_seen; do
+      sleep 0.05
+    done
+    end=$(date +%s%3N)
+    ready=$(curl -sf "localhost:$PORT/actuator/prometheus" | awk '/^application_ready_time_seconds/ {print $2; exit}')
+    echo "$target run $run: first message after $((end - start)) ms (application ready after ${ready:-?} s)"
+  done
+}
+
+docker compose up -d --wait localstack redis > /dev/null
+measure standard
+measure fast-start
+docker compose rm -sf "$SERVICE" > /dev/null 2>&1
@@ -0,0 +1,74 @@
+package com.accord.messaging;
+
+import java.time.Duration;
+
+// Decides the listener settings for the next interval from what the queue and the process look like now.
+// Concurrency grows by half while there is a backlog and the process has CPU and heap to spare, shrinks by
+// a quarter as soon as either runs hot, and drifts back down by a tenth while the queue is idle. Under a
+// backlog, polls take full batches with a short wait; when idle, small batches with the longest wait, so
+// an idle container makes few empty receives. Pure and deterministic, so it is tested without SQS.
+public class AdaptiveConcurrencyController {
+
+    public record Bounds(int minConcurrency, int maxConcurrency, int minBatchSize, int maxBatchSize,
+                         Duration minPollTimeout, Duration maxPollTimeout, Duration targetLag,
+                         double maxCpuLoad, double maxHeapUsage) {}
+
+    // What the tuner measured; lag is the largest queue lag among the first deliveries received since the
+    // previous decision (0 when none arrived), cpu and heap are 0..1
+    public record Signals(long visibleMessages, long inFlightMessages, Duration lag, double cpuLoad, double heapUsage) {}
+
+    public record Settings(int maxConcurrentMessages, int maxMessagesPerPoll, Duration pollTimeout) {}
+
+    public enum Load { OVERLOADED, BACKLOG, STEADY, IDLE }
+
+    private final Bounds bounds;
+
+    public AdaptiveConcurrencyController(Bounds bounds) {
+        if (bounds.minConcurrency() < 1 || bounds.minConcurrency() > bounds.maxConcurrency()) {
+            throw new IllegalArgumentException("Concurrency bounds must satisfy 1 <= min <= max");
+        }
+        this.bounds = bounds;
+    }
+
+    public Load classify(Signals signals, Settings current) {
+        if (signals.cpuLoad() > bounds.maxCpuLoad() || signals.heapUsage() > bounds.maxHeapUsage()) {
+            return Load.OVERLOADED;
+        }
+        if (signals.visibleMessages() > current.maxConcurrentMessages() || signals.lag().compareTo(bounds.targetLag()) > 0) {
+            return Load.BACKLOG;
+        }
+        if (signals.visibleMessages() == 0 && signals.lag().compareTo(bounds.targetLag().dividedBy(4)) < 0) {
+            return Load.IDLE;
+        }
+        return Load.STEADY;
+    }
+
+    public Settings decide(Signals signals, Settings current) {
+        int concurrency = current.maxConcurrentMessages();
+        int batchSize = current.maxMessagesPerPoll();
+        Duration pollTimeout = current.pollTimeout();
+        switch (classify(signals, current)) {
+            case OVERLOADED -> concurrency = concurrency * 3 / 4;
+            case BACKLOG -> {
+                concurrency = Math.max(concurrency + 1, concurrency * 3 / 2);
+                batchSize = bounds.maxBatchSize();
+                pollTimeout = bounds.minPollTimeout();
+            }
+            case IDLE -> {
+                concurrency = concurrency - Math.max(1, concurrency / 10);
+                batchSize = bounds.minBatchSize();
+                pollTimeout = bounds.maxPollTimeout();
+            }
+            case STEADY -> {
+            }
+        }
+        concurrency = clamp(concurrency, bounds.minConcurrency(), bounds.maxConcurrency());
+        // The container never asks for more messages per poll than it may hold
+        batchSize = clamp(Math.min(batchSize, concurrency), 1, bounds.maxBatchSize());
+        return new Settings(concurrency, batchSize, pollTimeout);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,155 @@
+package com.accord.messaging;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Single-node stand-in for RedisProcessingLedger with the same lease and TTL semantics, for local runs
+// and tests. State is kept in memory and every change is appended to a log file, which is replayed on
+// start, so completed work survives a restart. The log is rewritten once most of its lines are stale.
+public class FileProcessingLedger implements ProcessingLedger {
+
+    private static final int MIN_LINES_BEFORE_COMPACTION = 10_000;
+
+    private record Entry(State state, long expiresAtMillis) {}
+
+    private final Path file;
+    private final long leaseMillis;
+    private final long doneTtlMillis;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private BufferedWriter log;
+    private long logLines;
+
+    public FileProcessingLedger(Path file, Duration lease, Duration doneTtl) throws IOException {
+        this(file, lease, doneTtl, Clock.systemUTC());
+    }
+
+    FileProcessingLedger(Path file, Duration lease, Duration doneTtl, Clock clock) throws IOException {
+        this.file = file;
+        this.leaseMillis = lease.toMillis();
+        this.doneTtlMillis = doneTtl.toMillis();
+        this.clock = clock;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        replay();
+        this.log = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized List<State> claim(List<String> keys) {
+        long now = clock.millis();
+        List<State> states = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAtMillis() > now) {
+                states.add(entry.state() == State.DONE ? State.DONE : State.IN_PROGRESS);
+            } else {
+                write(key, new Entry(State.IN_PROGRESS, now + leaseMillis));
+                states.add(State.CLAIMED);
+            }
+        }
+        flush();
+        return states;
+    }
+
+    @Override
+    public synchronized void complete(List<String> keys) {
+        long expiresAt = clock.millis() + doneTtlMillis;
+        for (String key : keys) {
+            write(key, new Entry(State.DONE, expiresAt));
+        }
+        flush();
+    }
+
+    @Override
+    public synchronized void release(List<String> keys) {
+        for (String key : keys) {
+            write(key, null);
+        }
+        flush();
+    }
+
+    // Log lines: <state or RELEASED> TAB <expiry millis> TAB <key>
+    private void write(String key, Entry entry) {
+        if (entry == null) {
+            entries.remove(key);
+        } else {
+            entries.put(key, entry);
+        }
+        try {
+            log.write(entry == null ? "RELEASED\t0\t" + key : entry.state() + "\t" + entry.expiresAtMillis() + "\t" + key);
+            log.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logLines++;
+    }
+
+    private void flush() {
+        try {
+            log.flush();
+            if (logLines > MIN_LINES_BEFORE_COMPACTION && logLines > 2L * entries.size()) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replay() throws IOException {
+        if (Files.notExists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] fields = line.split("\t", 3);
+                if (fields.length < 3) {
+                    continue; // a line cut short by a crash
+                }
+                logLines++;
+                if ("RELEASED".equals(fields[0])) {
+                    entries.remove(fields[2]);
+                } else {
+                    entries.put(fields[2], new Entry(State.valueOf(fields[0]), Long.parseLong(fields[1])));
+                }
+            }
+        }
+        entries.values().removeIf(entry -> entry.expiresAtMillis() <= clock.millis());
+    }
+
+    // Writes the live entries to a new file and moves it into place
+    private void compact() throws IOException {
+        log.close();
+        long now = clock.millis();
+        entries.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writer.write(entry.getValue().state() + "\t" + entry.getValue().expiresAtMillis() + "\t" + entry.getKey());
+                writer.newLine();
+            }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        logLines = entries.size();
+        log = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,45 @@
+package com.accord.messaging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// The processing ledger and the redelivery backoff of a listener service. Imported by each service,
+// whose application.properties set the key prefix (one per service) and a lease that outlasts its
+// slowest unit of work; done-ttl should outlast the queue's message retention.
+@Configuration
+public class LedgerConfig {
+
+    @Value("${app.ledger.lease:PT5M}")
+    private Duration lease;
+
+    @Value("${app.ledger.done-ttl:P4D}")
+    private Duration doneTtl;
+
+    @Bean
+    @ConditionalOnProperty(name = "app.ledger.store", havingValue = "redis", matchIfMissing = true)
+    public ProcessingLedger redisProcessingLedger(StringRedisTemplate redisTemplate,
+                                                  @Value("${app.ledger.key-prefix}") String keyPrefix) {
+        return new RedisProcessingLedger(redisTemplate, keyPrefix, lease, doneTtl);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.ledger.store", havingValue = "file")
+    public ProcessingLedger fileProcessingLedger(@Value("${app.ledger.file:ledger/processing.log}") String file)
+            throws IOException {
+        return new FileProcessingLedger(Path.of(file), lease, doneTtl);
+    }
+
+    @Bean
+    public VisibilityBackoff visibilityBackoff(@Value("${app.retry.initial-backoff:PT10S}") Duration initialBackoff,
+                                               @Value("${app.retry.max-backoff:PT15M}") Duration maxBackoff,
+                                               @Value("${app.retry.in-progress-delay:PT1M}") Duration inProgressDelay) {
+        return new VisibilityBackoff(initialBackoff, maxBackoff, inProgressDelay);
+    }
+}
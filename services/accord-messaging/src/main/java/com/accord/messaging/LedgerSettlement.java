@@ -0,0 +1,55 @@
+package com.accord.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Collects how the claimed keys of one poll ended, so the ledger is updated with one complete and one
+// release call for the whole poll instead of a round trip per key. Outcomes may be recorded from any thread.
+public class LedgerSettlement {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerSettlement.class);
+
+    private final ProcessingLedger processingLedger;
+    private final Queue<String> completed = new ConcurrentLinkedQueue<>();
+    private final Queue<String> released = new ConcurrentLinkedQueue<>();
+
+    public LedgerSettlement(ProcessingLedger processingLedger) {
+        this.processingLedger = processingLedger;
+    }
+
+    // Done for good
+    public void complete(String key) {
+        completed.add(key);
+    }
+
+    // Failed: the claim is given up so the redelivered message can take it at once
+    public void release(String key) {
+        released.add(key);
+    }
+
+    // Called once every outcome of the poll is in. A ledger failure is only logged: the work is done or
+    // handed back to SQS already, and the leases run out on their own.
+    public void settle() {
+        List<String> completedKeys = new ArrayList<>(completed);
+        List<String> releasedKeys = new ArrayList<>(released);
+        if (!completedKeys.isEmpty()) {
+            try {
+                processingLedger.complete(completedKeys);
+            } catch (RuntimeException e) {
+                logger.warn("Could not mark {} key(s) as done in the processing ledger", completedKeys.size(), e);
+            }
+        }
+        if (!releasedKeys.isEmpty()) {
+            try {
+                processingLedger.release(releasedKeys);
+            } catch (RuntimeException e) {
+                logger.warn("Could not release {} processing ledger claim(s)", releasedKeys.size(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.accord.messaging;
+
+import io.awspring.cloud.sqs.listener.MessageListenerContainer;
+import io.awspring.cloud.sqs.listener.MessageListenerContainerRegistry;
+import io.awspring.cloud.sqs.listener.SqsContainerOptions;
+import io.awspring.cloud.sqs.listener.SqsMessageListenerContainer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Retunes one @SqsListener container at runtime. Every interval it reads the queue depth from SQS, the
+// largest queue lag since the previous interval from the service's QueueLagTracker, and process CPU and
+// heap from the JVM, and asks AdaptiveConcurrencyController for new settings. Container options are
+// fixed while a container runs, so applying them means stopping it (in-flight messages finish first),
+// reconfiguring and starting it again; that only happens when the settings changed and the cooldown
+// since the last change has passed.
+// Decisions are exposed as accord.listener.* meters tagged with the container id.
+public class ListenerAutoTuner implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListenerAutoTuner.class);
+
+    private final MessageListenerContainerRegistry containerRegistry;
+    private final SqsAsyncClient sqsAsyncClient;
+    private final MeterRegistry meterRegistry;
+    private final AdaptiveConcurrencyController controller;
+    private final String containerId;
+    private final String queue;
+    private final LongSupplier queueLagMillis;
+    private final Duration interval;
+    private final Duration cooldown;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong concurrency = new AtomicLong();
+    private final AtomicLong batchSize = new AtomicLong();
+    private final AtomicLong pollTimeoutMillis = new AtomicLong();
+    private final AtomicLong visibleMessages = new AtomicLong();
+    private final com.sun.management.OperatingSystemMXBean operatingSystem =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    private String queueUrl;
+    private Instant lastChange = Instant.MIN;
+
+    public ListenerAutoTuner(MessageListenerContainerRegistry containerRegistry, SqsAsyncClient sqsAsyncClient,
+                             MeterRegistry meterRegistry, AdaptiveConcurrencyController controller, String containerId,
+                             String queue, LongSupplier queueLagMillis, Duration interval, Duration cooldown) {
+        this.containerRegistry = containerRegistry;
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.meterRegistry = meterRegistry;
+        this.controller = controller;
+        this.containerId = containerId;
+        this.queue = queue;
+        this.queueLagMillis = queueLagMillis;
+        this.interval = interval;
+        this.cooldown = cooldown;
+        this.clock = Clock.systemUTC();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "listener-autotuner-" + containerId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        gauge("accord.listener.concurrency", concurrency, "Max concurrent messages the container is set to");
+        gauge("accord.listener.batch_size", batchSize, "Max messages per poll the container is set to");
+        gauge("accord.listener.poll_timeout", pollTimeoutMillis, "Poll timeout the container is set to, in milliseconds");
+        gauge("accord.listener.queue.visible", visibleMessages, "Approximate number of messages waiting in the queue");
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::tune, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void tune() {
+        try {
+            SqsMessageListenerContainer<?> container = container();
+            SqsContainerOptions options = container.getContainerOptions();
+            AdaptiveConcurrencyController.Settings current = new AdaptiveConcurrencyController.Settings(
+                    options.getMaxConcurrentMessages(), options.getMaxMessagesPerPoll(), options.getPollTimeout());
+            record(current);
+
+            AdaptiveConcurrencyController.Signals signals = readSignals();
+            AdaptiveConcurrencyController.Load load = controller.classify(signals, current);
+            AdaptiveConcurrencyController.Settings next = controller.decide(signals, current);
+            if (next.equals(current) || clock.instant().isBefore(lastChange.plus(cooldown))) {
+                return;
+            }
+            logger.info("-----> Retuning listener {} ({}, {} visible, lag {} ms, cpu {}, heap {}): {} -> {}",
+                    containerId, load, signals.visibleMessages(), signals.lag().toMillis(),
+                    String.format("%.2f", signals.cpuLoad()), String.format("%.2f", signals.heapUsage()), current, next);
+            apply(container, next);
+            lastChange = clock.instant();
+            record(next);
+            Counter.builder("accord.listener.adjustments")
+                    .description("Listener container reconfigurations, by the load that caused them")
+                    .tag("container", containerId)
+                    .tag("load", load.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)
+                    .increment();
+        } catch (Exception e) {
+            logger.warn("Could not tune listener {}", containerId, e);
+        }
+    }
+
+    private SqsMessageListenerContainer<?> container() {
+        MessageListenerContainer<?> container = containerRegistry.getContainerById(containerId);
+        if (!(container instanceof SqsMessageListenerContainer<?> sqsContainer)) {
+            throw new IllegalStateException("No SQS listener container with id " + containerId);
+        }
+        return sqsContainer;
+    }
+
+    private AdaptiveConcurrencyController.Signals readSignals() {
+        Map<QueueAttributeName, String> attributes = sqsAsyncClient.getQueueAttributes(GetQueueAttributesRequest.builder()
+                        .queueUrl(queueUrl())
+                        .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                                QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)
+                        .build())
+                .join()
+                .attributes();
+        long visible = Long.parseLong(attributes.getOrDefault(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, "0"));
+        long inFlight = Long.parseLong(attributes.getOrDefault(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE, "0"));
+        visibleMessages.set(visible);
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        double heapUsage = heap.getMax() > 0 ? (double) heap.getUsed() / heap.getMax() : 0;
+        // Negative while the JVM has no reading yet
+        double cpuLoad = Math.max(0, operatingSystem.getProcessCpuLoad());
+        return new AdaptiveConcurrencyController.Signals(visible, inFlight, Duration.ofMillis(queueLagMillis.getAsLong()),
+                cpuLoad, heapUsage);
+    }
+
+    private String queueUrl() {
+        if (queueUrl == null) {
+            queueUrl = queue.startsWith("https://") || queue.startsWith("http://") ? queue
+                    : sqsAsyncClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(queue).build()).join().queueUrl();
+        }
+        return queueUrl;
+    }
+
+    private void apply(SqsMessageListenerContainer<?> container, AdaptiveConcurrencyController.Settings settings) {
+        container.stop();
+        container.configure(options -> options
+                .maxConcurrentMessages(settings.maxConcurrentMessages())
+                .maxMessagesPerPoll(settings.maxMessagesPerPoll())
+                .pollTimeout(settings.pollTimeout()));
+        container.start();
+    }
+
+    private void record(AdaptiveConcurrencyController.Settings settings) {
+        concurrency.set(settings.maxConcurrentMessages());
+        batchSize.set(settings.maxMessagesPerPoll());
+        pollTimeoutMillis.set(settings.pollTimeout().toMillis());
+    }
+
+    private void gauge(String name, AtomicLong value, String description) {
+        Gauge.builder(name, value, AtomicLong::get)
+                .description(description)
+                .tag("container", containerId)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
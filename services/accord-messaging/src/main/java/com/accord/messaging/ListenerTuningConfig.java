@@ -0,0 +1,45 @@
+package com.accord.messaging;
+
+import io.awspring.cloud.sqs.listener.MessageListenerContainerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+import java.time.Duration;
+
+// Retunes the service's listener container (app.listener.autotune.container-id) from queue depth, queue lag,
+// CPU and heap; off unless enabled. Imported by each service, whose application.properties set the bounds.
+@Configuration
+@ConditionalOnProperty(name = "app.listener.autotune.enabled", havingValue = "true")
+public class ListenerTuningConfig {
+
+    @Bean
+    public AdaptiveConcurrencyController adaptiveConcurrencyController(
+            @Value("${app.listener.autotune.min-concurrency:1}") int minConcurrency,
+            @Value("${app.listener.autotune.max-concurrency:40}") int maxConcurrency,
+            @Value("${app.listener.autotune.min-batch-size:1}") int minBatchSize,
+            @Value("${app.listener.autotune.max-batch-size:10}") int maxBatchSize,
+            @Value("${app.listener.autotune.min-poll-timeout:PT1S}") Duration minPollTimeout,
+            @Value("${app.listener.autotune.max-poll-timeout:PT20S}") Duration maxPollTimeout,
+            @Value("${app.listener.autotune.target-lag:PT30S}") Duration targetLag,
+            @Value("${app.listener.autotune.max-cpu-load:0.85}") double maxCpuLoad,
+            @Value("${app.listener.autotune.max-heap-usage:0.8}") double maxHeapUsage) {
+        return new AdaptiveConcurrencyController(new AdaptiveConcurrencyController.Bounds(minConcurrency, maxConcurrency,
+                minBatchSize, maxBatchSize, minPollTimeout, maxPollTimeout, targetLag, maxCpuLoad, maxHeapUsage));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ListenerAutoTuner listenerAutoTuner(MessageListenerContainerRegistry containerRegistry, SqsAsyncClient sqsAsyncClient,
+                                               MeterRegistry meterRegistry, AdaptiveConcurrencyController controller,
+                                               QueueLagSource queueLagSource,
+                                               @Value("${app.listener.autotune.container-id}") String containerId,
+                                               @Value("${spring.cloud.aws.sqs.queue-name}") String queue,
+                                               @Value("${app.listener.autotune.interval:PT15S}") Duration interval,
+                                               @Value("${app.listener.autotune.cooldown:PT1M}") Duration cooldown) {
+        return new ListenerAutoTuner(containerRegistry, sqsAsyncClient, meterRegistry, controller, containerId, queue,
+                queueLagSource::takeQueueLagMillis, interval, cooldown);
+    }
+}
@@ -0,0 +1,28 @@
+package com.accord.messaging;
+
+import java.util.List;
+
+// Records which units of work (an S3 object version, an SQS message) are being or have been processed,
+// so a redelivered message has no second effect. A worker claims its keys before processing; the claim
+// is a lease that expires, so work held by a crashed worker is picked up again. Calls take a whole
+// batch of keys and cost one round trip to the store.
+public interface ProcessingLedger {
+
+    enum State {
+        // The caller now holds the lease and should process
+        CLAIMED,
+        // Another worker holds the lease: leave the message for a later redelivery
+        IN_PROGRESS,
+        // Already processed: acknowledge without processing again
+        DONE
+    }
+
+    // Returns the state of each key at the same index. A key repeated within the call is claimed once.
+    List<State> claim(List<String> keys);
+
+    // Marks claimed keys as processed
+    void complete(List<String> keys);
+
+    // Gives up claims after a failure, so the redelivered message can be claimed at once
+    void release(List<String> keys);
+}
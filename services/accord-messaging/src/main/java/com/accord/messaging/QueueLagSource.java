@@ -0,0 +1,8 @@
+package com.accord.messaging;
+
+// Where the listener auto-tuner reads the queue lag from; implemented by each service's PipelineMetrics
+public interface QueueLagSource {
+
+    // The largest queue lag since the previous call, 0 when nothing arrived (see QueueLagTracker)
+    long takeQueueLagMillis();
+}
@@ -0,0 +1,37 @@
+package com.accord.messaging;
+
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import org.springframework.messaging.MessageHeaders;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// The queue lag signal of the listener auto-tuner: the largest lag among the messages received since the
+// tuner last took it, so it falls to 0 as soon as polls come back empty. Lag is measured from SentTimestamp
+// on first deliveries only; a message back from a visibility backoff keeps its original SentTimestamp and
+// would report its whole retry history as lag. Thread-safe.
+public class QueueLagTracker {
+
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    // The lag of a first delivery, or -1 for a redelivery or a message without SentTimestamp
+    public static long firstDeliveryLagMillis(MessageHeaders headers, long nowMillis) {
+        Object receiveCount = headers.get(SqsHeaders.MessageSystemAttributes.SQS_APPROXIMATE_RECEIVE_COUNT);
+        if (receiveCount != null && Integer.parseInt(receiveCount.toString()) > 1) {
+            return -1;
+        }
+        Object sentTimestamp = headers.get(SqsHeaders.MessageSystemAttributes.SQS_SENT_TIMESTAMP);
+        if (sentTimestamp == null) {
+            return -1;
+        }
+        return Math.max(0, nowMillis - Long.parseLong(sentTimestamp.toString()));
+    }
+
+    public void record(long lagMillis) {
+        maxLagMillis.accumulateAndGet(lagMillis, Math::max);
+    }
+
+    // Returns the largest lag recorded since the previous call, 0 when nothing was received
+    public long takeMaxLagMillis() {
+        return maxLagMillis.getAndSet(0);
+    }
+}
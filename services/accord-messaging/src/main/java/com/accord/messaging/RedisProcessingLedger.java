@@ -0,0 +1,93 @@
+package com.accord.messaging;
+
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Shared ledger in Redis: one key per unit of work holding 'processing' (with the lease as TTL) or
+// 'done' (kept for done-ttl, which should outlive the queue's retention). A batch is claimed by one
+// Lua script, so checking and claiming are atomic and cost one round trip. The script touches keys
+// in several hash slots, so it needs a non-clustered Redis, like the ElastiCache node of the stack.
+public class RedisProcessingLedger implements ProcessingLedger {
+
+    private static final String PROCESSING = "processing";
+    private static final String DONE = "done";
+    private static final byte[] DONE_BYTES = DONE.getBytes(StandardCharsets.UTF_8);
+
+    // Returns, per key, 'claimed' or the value already there
+    private static final RedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            local states = {}
+            for i, key in ipairs(KEYS) do
+                local state = redis.call('GET', key)
+                if state then
+                    states[i] = state
+                else
+                    redis.call('SET', key, ARGV[1], 'PX', ARGV[2])
+                    states[i] = 'claimed'
+                end
+            end
+            return states
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final String leaseMillis;
+    private final Expiration doneTtl;
+
+    public RedisProcessingLedger(StringRedisTemplate redisTemplate, String keyPrefix, Duration lease, Duration doneTtl) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.leaseMillis = Long.toString(lease.toMillis());
+        this.doneTtl = Expiration.from(doneTtl);
+    }
+
+    @Override
+    public List<State> claim(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        List<String> redisKeys = keys.stream().map(key -> keyPrefix + key).toList();
+        List<?> replies = redisTemplate.execute(CLAIM_SCRIPT, redisKeys, PROCESSING, leaseMillis);
+        List<State> states = new ArrayList<>(keys.size());
+        for (Object reply : replies) {
+            String value = String.valueOf(reply);
+            states.add(switch (value) {
+                case "claimed" -> State.CLAIMED;
+                case DONE -> State.DONE;
+                default -> State.IN_PROGRESS;
+            });
+        }
+        return states;
+    }
+
+    @Override
+    public void complete(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            RedisStringCommands commands = connection.stringCommands();
+            for (String key : keys) {
+                commands.set((keyPrefix + key).getBytes(StandardCharsets.UTF_8), DONE_BYTES, doneTtl,
+                        RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void release(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        redisTemplate.delete(keys.stream().map(key -> keyPrefix + key).toList());
+    }
+}
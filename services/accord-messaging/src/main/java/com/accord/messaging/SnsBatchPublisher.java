@@ -0,0 +1,279 @@
+package com.accord.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Collects encoded events for one topic and publishes them with SNS PublishBatch on the async client, so no
+// caller waits on the network. A batch is sent as soon as it holds 10 entries, before it would go over the
+// 256 KiB SNS allows for a whole PublishBatch request, after the linger time once its first entry arrived,
+// or on flush(). An entry over 256 KiB on its own is failed instead of sent. Entries SNS rejects for a
+// reason on its side (throttling, internal errors) are retried in a later batch with exponential backoff.
+// At most max-buffered entries are accepted but not yet published: publish() blocks beyond that. The
+// returned future completes once SNS accepted the entry. close() sends what is buffered and waits for the
+// batches in flight and their retries before stopping the timer; whatever is still pending then fails.
+public class SnsBatchPublisher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnsBatchPublisher.class);
+    public static final int MAX_BATCH_SIZE = 10;
+    // Payloads plus message attributes of all entries of one request
+    public static final int MAX_BATCH_BYTES = 256 * 1024;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+
+    public record Settings(Duration linger, int maxBuffered, int maxAttempts, Duration retryBackoff) {}
+
+    private final SnsAsyncClient snsAsyncClient;
+    private final String topicArn;
+    private final Map<String, MessageAttributeValue> messageAttributes;
+    private final String eventType;
+    private final SnsPublishMetrics metrics;
+    private final Settings settings;
+    private final int attributeBytes;
+    private final Semaphore bufferPermits;
+    private final Set<PendingEntry> unpublished = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService timer;
+    private List<PendingEntry> buffer = new ArrayList<>(MAX_BATCH_SIZE);
+    private int bufferedBytes;
+    private boolean closed;
+
+    private static final class PendingEntry {
+        private final String payload;
+        private final String description;
+        private final int bytes;
+        private final CompletableFuture<Void> published = new CompletableFuture<>();
+        private int attempts;
+
+        private PendingEntry(String payload, String description, int bytes) {
+            this.payload = payload;
+            this.description = description;
+            this.bytes = bytes;
+        }
+    }
+
+    // eventType names the events in logs and thread names, e.g. VerifiedEvent
+    public SnsBatchPublisher(SnsAsyncClient snsAsyncClient, String topicArn,
+                             Map<String, MessageAttributeValue> messageAttributes, String eventType,
+                             SnsPublishMetrics metrics, Settings settings) {
+        this.snsAsyncClient = snsAsyncClient;
+        this.topicArn = topicArn;
+        this.messageAttributes = messageAttributes;
+        this.eventType = eventType;
+        this.metrics = metrics;
+        this.settings = settings;
+        int bytes = 0;
+        for (Map.Entry<String, MessageAttributeValue> attribute : messageAttributes.entrySet()) {
+            MessageAttributeValue value = attribute.getValue();
+            bytes += utf8Length(attribute.getKey()) + utf8Length(value.dataType())
+                    + (value.stringValue() != null ? utf8Length(value.stringValue()) : 0);
+        }
+        this.attributeBytes = bytes;
+        this.bufferPermits = new Semaphore(settings.maxBuffered());
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sns-publisher-" + eventType);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // description names the event in errors, e.g. "VerifiedEvent for a.pdf"
+    public CompletableFuture<Void> publish(String payload, String description) throws InterruptedException {
+        int bytes = utf8Length(payload) + attributeBytes;
+        if (bytes > MAX_BATCH_BYTES) {
+            // SNS would reject the whole request it is in, failing the entries batched with it too
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    description + " is " + bytes + " bytes, over the SNS limit of " + MAX_BATCH_BYTES));
+        }
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException(
+                        "Publisher for " + eventType + " is closed, " + description + " was not sent"));
+            }
+        }
+        bufferPermits.acquire();
+        PendingEntry pending = new PendingEntry(payload, description, bytes);
+        unpublished.add(pending);
+        pending.published.whenComplete((ignored, e) -> {
+            unpublished.remove(pending);
+            bufferPermits.release();
+        });
+        enqueue(pending);
+        return pending.published;
+    }
+
+    // Sends the partial batch now instead of after the linger time
+    public void flush() {
+        List<PendingEntry> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void enqueue(PendingEntry pending) {
+        List<PendingEntry> fullBatch = null;
+        List<PendingEntry> batch = null;
+        List<PendingEntry> rejected = null;
+        synchronized (this) {
+            if (!buffer.isEmpty() && bufferedBytes + pending.bytes > MAX_BATCH_BYTES) {
+                fullBatch = drain();
+            }
+            buffer.add(pending);
+            bufferedBytes += pending.bytes;
+            // While closing, retries go out straight away instead of waiting for the linger
+            if (buffer.size() >= MAX_BATCH_SIZE || closed) {
+                batch = drain();
+            } else if (buffer.size() == 1 && !schedule(this::flush, settings.linger().toMillis())) {
+                rejected = drain();
+            }
+        }
+        if (rejected != null) {
+            fail(rejected, new IllegalStateException("Publisher for " + eventType + " is closed"));
+        }
+        if (fullBatch != null) {
+            send(fullBatch);
+        }
+        if (batch != null) {
+            send(batch);
+        }
+    }
+
+    private List<PendingEntry> drain() {
+        List<PendingEntry> batch = buffer;
+        buffer = new ArrayList<>(MAX_BATCH_SIZE);
+        bufferedBytes = 0;
+        return batch;
+    }
+
+    // The timer only rejects a task once close() stopped it; the caller then fails the entries itself
+    private boolean schedule(Runnable task, long delayMillis) {
+        try {
+            timer.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void send(List<PendingEntry> batch) {
+        List<PublishBatchRequestEntry> entries = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingEntry pending = batch.get(i);
+            pending.attempts++;
+            entries.add(PublishBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .message(pending.payload)
+                    .messageAttributes(messageAttributes)
+                    .build());
+        }
+        long start = System.nanoTime();
+        CompletableFuture<PublishBatchResponse> response;
+        try {
+            response = snsAsyncClient.publishBatch(PublishBatchRequest.builder()
+                    .topicArn(topicArn)
+                    .publishBatchRequestEntries(entries)
+                    .build());
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((result, e) -> {
+            metrics.recordPublishBatch(batch.size(), System.nanoTime() - start);
+            if (e != null) {
+                // The SDK already retried the request itself, so the whole batch has failed
+                logger.error("Failed to publish batch of {} {}(s)", batch.size(), eventType, e);
+                fail(batch, e);
+            } else {
+                handleResponse(batch, result);
+            }
+        });
+    }
+
+    private void handleResponse(List<PendingEntry> batch, PublishBatchResponse response) {
+        for (PublishBatchResultEntry success : response.successful()) {
+            batch.get(Integer.parseInt(success.id())).published.complete(null);
+        }
+        for (BatchResultErrorEntry failure : response.failed()) {
+            PendingEntry pending = batch.get(Integer.parseInt(failure.id()));
+            if (!Boolean.TRUE.equals(failure.senderFault()) && pending.attempts < settings.maxAttempts()) {
+                long backoffMillis = settings.retryBackoff().toMillis() << (pending.attempts - 1);
+                metrics.recordPublishRetry();
+                if (schedule(() -> enqueue(pending), backoffMillis)) {
+                    continue;
+                }
+            }
+            pending.published.completeExceptionally(new IllegalStateException("SNS rejected " + pending.description
+                    + " after " + pending.attempts + " attempt(s): " + failure.code() + " " + failure.message()));
+        }
+        logger.info("-----> Published {} {}(s) to SNS, {} failed.", response.successful().size(), eventType,
+                response.failed().size());
+    }
+
+    private static void fail(List<PendingEntry> batch, Throwable failure) {
+        batch.forEach(pending -> pending.published.completeExceptionally(failure));
+    }
+
+    static int utf8Length(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        // Retries reuse the entry's future, so this also waits for entries SNS rejected and that are sent again
+        CompletableFuture<?>[] inFlight = unpublished.stream()
+                .map(pending -> pending.published.exceptionally(e -> null))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(inFlight).get(DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Whatever is still unpublished fails below
+        }
+        timer.shutdownNow();
+        timer.awaitTermination(5, TimeUnit.SECONDS);
+        if (!unpublished.isEmpty()) {
+            logger.warn("-----> {} {}(s) still unpublished after {}, failing them.", unpublished.size(), eventType,
+                    DRAIN_TIMEOUT);
+            fail(List.copyOf(unpublished), new IllegalStateException(
+                    "Publisher for " + eventType + " closed before SNS accepted the event"));
+        }
+    }
+}
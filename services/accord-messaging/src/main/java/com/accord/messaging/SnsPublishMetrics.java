@@ -0,0 +1,11 @@
+package com.accord.messaging;
+
+// What SnsBatchPublisher reports about its PublishBatch requests; implemented by each service's PipelineMetrics
+public interface SnsPublishMetrics {
+
+    // One PublishBatch request of the given number of entries, from sending it until SNS answered or it failed
+    void recordPublishBatch(int entries, long durationNanos);
+
+    // An entry SNS rejected for a reason on its side that is sent again in a later batch
+    void recordPublishRetry();
+}
@@ -0,0 +1,61 @@
+package com.accord.messaging;
+
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.Visibility;
+import org.springframework.messaging.Message;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+// Hands a failed message back to SQS for a later attempt instead of dropping it: the message is left
+// unacknowledged and its visibility timeout is set to initial * 2^(receives - 1), capped at max, so a
+// failing dependency is retried less and less often. After the queue's maxReceiveCount the redrive
+// policy moves it to the dead-letter queue. A message whose work another consumer holds the lease on is
+// not failing, so retrySoon() brings it back after the same fixed delay every time instead.
+public class VisibilityBackoff {
+
+    // SQS does not accept visibility timeouts above 12 hours
+    private static final long MAX_VISIBILITY_SECONDS = Duration.ofHours(12).toSeconds();
+
+    private final long initialSeconds;
+    private final long maxSeconds;
+    private final long inProgressSeconds;
+
+    public VisibilityBackoff(Duration initial, Duration max) {
+        this(initial, max, initial);
+    }
+
+    public VisibilityBackoff(Duration initial, Duration max, Duration inProgressDelay) {
+        this.initialSeconds = Math.max(1, initial.toSeconds());
+        this.maxSeconds = Math.min(MAX_VISIBILITY_SECONDS, max.toSeconds());
+        this.inProgressSeconds = Math.min(MAX_VISIBILITY_SECONDS, Math.max(1, inProgressDelay.toSeconds()));
+    }
+
+    public Duration delayFor(int receiveCount) {
+        int doublings = Math.min(Math.max(receiveCount, 1) - 1, 30);
+        return Duration.ofSeconds(Math.min(maxSeconds, initialSeconds << doublings));
+    }
+
+    // Completes when SQS applied the new timeout; the message must not be acknowledged
+    public CompletableFuture<Void> retryLater(Message<?> message) {
+        return changeVisibility(message, delayFor(receiveCount(message)).toSeconds());
+    }
+
+    // For a message found IN_PROGRESS elsewhere; as with retryLater, it must not be acknowledged
+    public CompletableFuture<Void> retrySoon(Message<?> message) {
+        return changeVisibility(message, inProgressSeconds);
+    }
+
+    private static CompletableFuture<Void> changeVisibility(Message<?> message, long seconds) {
+        Visibility visibility = message.getHeaders().get(SqsHeaders.SQS_VISIBILITY_TIMEOUT_HEADER, Visibility.class);
+        if (visibility == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return visibility.changeToAsync((int) seconds);
+    }
+
+    private static int receiveCount(Message<?> message) {
+        Object count = message.getHeaders().get(SqsHeaders.MessageSystemAttributes.SQS_APPROXIMATE_RECEIVE_COUNT);
+        return count != null ? Integer.parseInt(count.toString()) : 1;
+    }
+}
@@ -0,0 +1,95 @@
+package com.accord.messaging;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.accord.messaging.AdaptiveConcurrencyController.Load.BACKLOG;
+import static com.accord.messaging.AdaptiveConcurrencyController.Load.IDLE;
+import static com.accord.messaging.AdaptiveConcurrencyController.Load.OVERLOADED;
+import static com.accord.messaging.AdaptiveConcurrencyController.Load.STEADY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveConcurrencyControllerTests {
+
+	private static final Duration MIN_POLL = Duration.ofSeconds(1);
+	private static final Duration MAX_POLL = Duration.ofSeconds(20);
+
+	private final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(
+			new AdaptiveConcurrencyController.Bounds(2, 40, 1, 10, MIN_POLL, MAX_POLL, Duration.ofSeconds(30), 0.85, 0.8));
+
+	private final AdaptiveConcurrencyController.Settings current =
+			new AdaptiveConcurrencyController.Settings(20, 5, Duration.ofSeconds(10));
+
+	@Test
+	void growsUnderABacklog() {
+		AdaptiveConcurrencyController.Signals signals = signals(500, Duration.ofSeconds(5), 0.5, 0.5);
+
+		assertEquals(BACKLOG, controller.classify(signals, current));
+		assertEquals(new AdaptiveConcurrencyController.Settings(30, 10, MIN_POLL), controller.decide(signals, current));
+	}
+
+	@Test
+	void growsWhenMessagesWaitTooLong() {
+		AdaptiveConcurrencyController.Signals signals = signals(5, Duration.ofMinutes(2), 0.5, 0.5);
+
+		assertEquals(BACKLOG, controller.classify(signals, current));
+	}
+
+	@Test
+	void neverGrowsPastTheMaximum() {
+		AdaptiveConcurrencyController.Settings settings = current;
+		for (int i = 0; i < 10; i++) {
+			settings = controller.decide(signals(10_000, Duration.ofMinutes(5), 0.1, 0.1), settings);
+		}
+
+		assertEquals(40, settings.maxConcurrentMessages());
+	}
+
+	@Test
+	void shrinksWhenCpuOrHeapRunHot() {
+		AdaptiveConcurrencyController.Signals cpu = signals(500, Duration.ofMinutes(2), 0.95, 0.5);
+		AdaptiveConcurrencyController.Signals heap = signals(500, Duration.ofMinutes(2), 0.5, 0.9);
+
+		assertEquals(OVERLOADED, controller.classify(cpu, current));
+		assertEquals(OVERLOADED, controller.classify(heap, current));
+		assertEquals(new AdaptiveConcurrencyController.Settings(15, 5, current.pollTimeout()), controller.decide(cpu, current));
+	}
+
+	@Test
+	void driftsDownAndPollsLessWhileIdle() {
+		AdaptiveConcurrencyController.Signals signals = signals(0, Duration.ZERO, 0.1, 0.1);
+
+		assertEquals(IDLE, controller.classify(signals, current));
+		assertEquals(new AdaptiveConcurrencyController.Settings(18, 1, MAX_POLL), controller.decide(signals, current));
+
+		AdaptiveConcurrencyController.Settings settings = current;
+		for (int i = 0; i < 50; i++) {
+			settings = controller.decide(signals, settings);
+		}
+		assertEquals(2, settings.maxConcurrentMessages());
+	}
+
+	@Test
+	void keepsSettingsWhenSteady() {
+		AdaptiveConcurrencyController.Signals signals = signals(10, Duration.ofSeconds(10), 0.5, 0.5);
+
+		assertEquals(STEADY, controller.classify(signals, current));
+		assertEquals(current, controller.decide(signals, current));
+	}
+
+	@Test
+	void neverPollsMoreThanItMayHold() {
+		AdaptiveConcurrencyController small = new AdaptiveConcurrencyController(
+				new AdaptiveConcurrencyController.Bounds(1, 4, 1, 10, MIN_POLL, MAX_POLL, Duration.ofSeconds(30), 0.85, 0.8));
+
+		AdaptiveConcurrencyController.Settings settings = small.decide(signals(500, Duration.ofMinutes(1), 0.1, 0.1),
+				new AdaptiveConcurrencyController.Settings(2, 2, MAX_POLL));
+
+		assertEquals(new AdaptiveConcurrencyController.Settings(3, 3, MIN_POLL), settings);
+	}
+
+	private static AdaptiveConcurrencyController.Signals signals(long visible, Duration lag, double cpu, double heap) {
+		return new AdaptiveConcurrencyController.Signals(visible, 0, lag, cpu, heap);
+	}
+}
@@ -0,0 +1,65 @@
+package com.accord.messaging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static com.accord.messaging.ProcessingLedger.State.CLAIMED;
+import static com.accord.messaging.ProcessingLedger.State.DONE;
+import static com.accord.messaging.ProcessingLedger.State.IN_PROGRESS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileProcessingLedgerTests {
+
+	private static final Duration LEASE = Duration.ofMinutes(5);
+	private static final Duration DONE_TTL = Duration.ofDays(4);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void claimsEachKeyOnce() throws Exception {
+		FileProcessingLedger ledger = new FileProcessingLedger(directory.resolve("ledger.log"), LEASE, DONE_TTL);
+
+		assertEquals(List.of(CLAIMED, CLAIMED, IN_PROGRESS), ledger.claim(List.of("a", "b", "a")));
+		ledger.complete(List.of("a"));
+		ledger.release(List.of("b"));
+
+		assertEquals(List.of(DONE, CLAIMED), ledger.claim(List.of("a", "b")));
+	}
+
+	@Test
+	void keepsCompletedWorkAcrossARestart() throws Exception {
+		Path file = directory.resolve("ledger.log");
+		FileProcessingLedger ledger = new FileProcessingLedger(file, LEASE, DONE_TTL);
+		ledger.claim(List.of("a", "b"));
+		ledger.complete(List.of("a"));
+
+		assertEquals(List.of(DONE, IN_PROGRESS), new FileProcessingLedger(file, LEASE, DONE_TTL).claim(List.of("a", "b")));
+	}
+
+	@Test
+	void reclaimsAnExpiredLease() throws Exception {
+		Path file = directory.resolve("ledger.log");
+		Instant start = Instant.parse("2024-03-01T00:00:00Z");
+		new FileProcessingLedger(file, LEASE, DONE_TTL, Clock.fixed(start, ZoneOffset.UTC)).claim(List.of("a"));
+
+		Clock later = Clock.fixed(start.plus(LEASE).plusSeconds(1), ZoneOffset.UTC);
+		assertEquals(List.of(CLAIMED), new FileProcessingLedger(file, LEASE, DONE_TTL, later).claim(List.of("a")));
+	}
+
+	@Test
+	void backsOffExponentiallyUpToTheCap() {
+		VisibilityBackoff backoff = new VisibilityBackoff(Duration.ofSeconds(10), Duration.ofMinutes(5));
+
+		assertEquals(Duration.ofSeconds(10), backoff.delayFor(1));
+		assertEquals(Duration.ofSeconds(40), backoff.delayFor(3));
+		assertEquals(Duration.ofMinutes(5), backoff.delayFor(20));
+	}
+}
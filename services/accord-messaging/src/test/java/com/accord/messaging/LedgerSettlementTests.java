@@ -0,0 +1,79 @@
+package com.accord.messaging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LedgerSettlementTests {
+
+	// Records every call; fails them all when told to
+	private static class RecordingLedger implements ProcessingLedger {
+
+		private final List<String> calls = new CopyOnWriteArrayList<>();
+		private final boolean failing;
+
+		RecordingLedger(boolean failing) {
+			this.failing = failing;
+		}
+
+		@Override
+		public List<State> claim(List<String> keys) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void complete(List<String> keys) {
+			calls.add("complete " + keys);
+			if (failing) {
+				throw new IllegalStateException("ledger down");
+			}
+		}
+
+		@Override
+		public void release(List<String> keys) {
+			calls.add("release " + keys);
+			if (failing) {
+				throw new IllegalStateException("ledger down");
+			}
+		}
+	}
+
+	@Test
+	void updatesTheLedgerWithOneCallPerOutcome() {
+		RecordingLedger ledger = new RecordingLedger(false);
+		LedgerSettlement settlement = new LedgerSettlement(ledger);
+		settlement.complete("a");
+		settlement.release("b");
+		settlement.complete("c");
+
+		settlement.settle();
+
+		assertEquals(List.of("complete [a, c]", "release [b]"), ledger.calls);
+	}
+
+	@Test
+	void skipsOutcomesWithoutKeys() {
+		RecordingLedger ledger = new RecordingLedger(false);
+		LedgerSettlement settlement = new LedgerSettlement(ledger);
+		settlement.complete("a");
+
+		settlement.settle();
+
+		assertEquals(List.of("complete [a]"), ledger.calls);
+	}
+
+	@Test
+	void ledgerFailuresDoNotFailThePoll() {
+		RecordingLedger ledger = new RecordingLedger(true);
+		LedgerSettlement settlement = new LedgerSettlement(ledger);
+		settlement.complete("a");
+		settlement.release("b");
+
+		settlement.settle();
+
+		assertEquals(List.of("complete [a]", "release [b]"), ledger.calls);
+	}
+}
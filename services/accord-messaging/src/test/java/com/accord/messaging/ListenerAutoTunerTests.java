@@ -0,0 +1,124 @@
+package com.accord.messaging;
+
+import io.awspring.cloud.sqs.listener.DefaultListenerContainerRegistry;
+import io.awspring.cloud.sqs.listener.SqsMessageListenerContainer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesResponse;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ListenerAutoTunerTests {
+
+	private static final String QUEUE_URL = "http://localhost:4566/000000000000/intake";
+
+	// Reports a fixed queue depth
+	private static class FixedDepthSqs implements SqsAsyncClient {
+
+		private volatile long visible;
+
+		@Override
+		public CompletableFuture<GetQueueAttributesResponse> getQueueAttributes(GetQueueAttributesRequest request) {
+			return CompletableFuture.completedFuture(GetQueueAttributesResponse.builder()
+					.attributes(Map.of(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, Long.toString(visible),
+							QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE, "0"))
+					.build());
+		}
+
+		@Override
+		public String serviceName() {
+			return "sqs";
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	// Records the lifecycle calls instead of polling
+	private static class RecordingContainer extends SqsMessageListenerContainer<Object> {
+
+		private final List<String> calls = new CopyOnWriteArrayList<>();
+
+		RecordingContainer(SqsAsyncClient sqsAsyncClient) {
+			super(sqsAsyncClient);
+		}
+
+		@Override
+		public void start() {
+			calls.add("start");
+		}
+
+		@Override
+		public void stop() {
+			calls.add("stop");
+		}
+	}
+
+	private final FixedDepthSqs sqs = new FixedDepthSqs();
+	private final RecordingContainer container = new RecordingContainer(sqs);
+	// CPU and heap limits of 1.0, so the test JVM's own load never counts as overloaded
+	private final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(new AdaptiveConcurrencyController.Bounds(
+			1, 40, 1, 10, Duration.ofSeconds(1), Duration.ofSeconds(20), Duration.ofSeconds(30), 1.0, 1.0));
+
+	ListenerAutoTunerTests() {
+		container.setId("intake");
+		container.configure(options -> options
+				.maxConcurrentMessages(10)
+				.maxMessagesPerPoll(5)
+				.pollTimeout(Duration.ofSeconds(10)));
+	}
+
+	@Test
+	void restartsTheContainerWithTheNewSettings() throws Exception {
+		sqs.visible = 500;
+		try (ListenerAutoTuner tuner = tuner(Duration.ofMinutes(1))) {
+			tuner.tune();
+		}
+
+		assertEquals(List.of("stop", "start"), container.calls);
+		assertEquals(15, container.getContainerOptions().getMaxConcurrentMessages());
+		assertEquals(10, container.getContainerOptions().getMaxMessagesPerPoll());
+		assertEquals(Duration.ofSeconds(1), container.getContainerOptions().getPollTimeout());
+	}
+
+	@Test
+	void leavesTheContainerAloneDuringTheCooldown() throws Exception {
+		sqs.visible = 500;
+		try (ListenerAutoTuner tuner = tuner(Duration.ofMinutes(1))) {
+			tuner.tune();
+			tuner.tune();
+		}
+
+		assertEquals(List.of("stop", "start"), container.calls);
+		assertEquals(15, container.getContainerOptions().getMaxConcurrentMessages());
+	}
+
+	@Test
+	void leavesTheContainerAloneWhenNothingChanges() throws Exception {
+		// Steady: a few messages waiting and a lag under the target
+		sqs.visible = 5;
+		try (ListenerAutoTuner tuner = tuner(Duration.ZERO)) {
+			tuner.tune();
+		}
+
+		assertEquals(List.of(), container.calls);
+		assertEquals(10, container.getContainerOptions().getMaxConcurrentMessages());
+	}
+
+	private ListenerAutoTuner tuner(Duration cooldown) {
+		DefaultListenerContainerRegistry registry = new DefaultListenerContainerRegistry();
+		registry.registerListenerContainer(container);
+		return new ListenerAutoTuner(registry, sqs, new SimpleMeterRegistry(), controller, "intake", QUEUE_URL,
+				() -> Duration.ofSeconds(10).toMillis(), Duration.ofSeconds(15), cooldown);
+	}
+}
@@ -0,0 +1,63 @@
+package com.accord.messaging;
+
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.MessageHeaders;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueueLagTrackerTests {
+
+	private static final long NOW = 1_700_000_000_000L;
+
+	@Test
+	void measuresFirstDeliveriesOnly() {
+		assertEquals(5_000, QueueLagTracker.firstDeliveryLagMillis(headers(NOW - 5_000, "1"), NOW));
+		assertEquals(5_000, QueueLagTracker.firstDeliveryLagMillis(headers(NOW - 5_000, null), NOW));
+		assertEquals(-1, QueueLagTracker.firstDeliveryLagMillis(headers(NOW - 600_000, "3"), NOW));
+		assertEquals(-1, QueueLagTracker.firstDeliveryLagMillis(new MessageHeaders(Map.of()), NOW));
+	}
+
+	@Test
+	void takesTheLargestLagSinceTheLastRead() {
+		QueueLagTracker tracker = new QueueLagTracker();
+		tracker.record(2_000);
+		tracker.record(9_000);
+		tracker.record(4_000);
+
+		assertEquals(9_000, tracker.takeMaxLagMillis());
+		assertEquals(0, tracker.takeMaxLagMillis());
+	}
+
+	@Test
+	void anIdleQueueAfterABacklogIsIdle() {
+		AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(new AdaptiveConcurrencyController.Bounds(
+				1, 40, 1, 10, Duration.ofSeconds(1), Duration.ofSeconds(20), Duration.ofSeconds(30), 0.85, 0.8));
+		AdaptiveConcurrencyController.Settings current = new AdaptiveConcurrencyController.Settings(40, 10, Duration.ofSeconds(1));
+		QueueLagTracker tracker = new QueueLagTracker();
+
+		// The last messages of the backlog waited minutes
+		tracker.record(Duration.ofMinutes(4).toMillis());
+		assertEquals(AdaptiveConcurrencyController.Load.BACKLOG, controller.classify(signals(0, tracker), current));
+
+		// The queue drained and the polls since came back empty
+		assertEquals(AdaptiveConcurrencyController.Load.IDLE, controller.classify(signals(0, tracker), current));
+	}
+
+	private static AdaptiveConcurrencyController.Signals signals(long visible, QueueLagTracker tracker) {
+		return new AdaptiveConcurrencyController.Signals(visible, 0, Duration.ofMillis(tracker.takeMaxLagMillis()), 0.1, 0.1);
+	}
+
+	private static MessageHeaders headers(long sentTimestamp, String receiveCount) {
+		Map<String, Object> headers = new HashMap<>();
+		headers.put(SqsHeaders.MessageSystemAttributes.SQS_SENT_TIMESTAMP, Long.toString(sentTimestamp));
+		if (receiveCount != null) {
+			headers.put(SqsHeaders.MessageSystemAttributes.SQS_APPROXIMATE_RECEIVE_COUNT, receiveCount);
+		}
+		return new MessageHeaders(headers);
+	}
+}
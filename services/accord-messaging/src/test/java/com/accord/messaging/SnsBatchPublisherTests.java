@@ -0,0 +1,257 @@
+package com.accord.messaging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+import software.amazon.awssdk.services.sns.model.SnsException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnsBatchPublisherTests {
+
+	// Rejects every entry with the given code on its first attempt and accepts it after that, fails the whole
+	// call when down, and answers after the given delay
+	private static class FlakySns implements SnsAsyncClient {
+
+		private final String failureCode;
+		private final boolean senderFault;
+		private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+		private final List<Integer> batchBytes = new CopyOnWriteArrayList<>();
+		private final List<String> seen = new CopyOnWriteArrayList<>();
+		private volatile boolean down;
+		private volatile long delayMillis;
+
+		FlakySns(String failureCode, boolean senderFault) {
+			this.failureCode = failureCode;
+			this.senderFault = senderFault;
+		}
+
+		@Override
+		public CompletableFuture<PublishBatchResponse> publishBatch(PublishBatchRequest request) {
+			batchSizes.add(request.publishBatchRequestEntries().size());
+			batchBytes.add(request.publishBatchRequestEntries().stream().mapToInt(entry -> entry.message().length()).sum());
+			if (down) {
+				return CompletableFuture.failedFuture(SnsException.builder().message("SNS unavailable").build());
+			}
+			List<PublishBatchResultEntry> successful = new ArrayList<>();
+			List<BatchResultErrorEntry> failed = new ArrayList<>();
+			for (PublishBatchRequestEntry entry : request.publishBatchRequestEntries()) {
+				if (failureCode == null || seen.contains(entry.message())) {
+					successful.add(PublishBatchResultEntry.builder().id(entry.id()).build());
+				} else {
+					seen.add(entry.message());
+					failed.add(BatchResultErrorEntry.builder().id(entry.id()).code(failureCode).senderFault(senderFault).build());
+				}
+			}
+			PublishBatchResponse response = PublishBatchResponse.builder().successful(successful).failed(failed).build();
+			return CompletableFuture.supplyAsync(() -> response,
+					CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+		}
+
+		@Override
+		public String serviceName() {
+			return "sns";
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	private static class CountingMetrics implements SnsPublishMetrics {
+
+		private final AtomicInteger batches = new AtomicInteger();
+		private final AtomicInteger retries = new AtomicInteger();
+
+		@Override
+		public void recordPublishBatch(int entries, long durationNanos) {
+			batches.incrementAndGet();
+		}
+
+		@Override
+		public void recordPublishRetry() {
+			retries.incrementAndGet();
+		}
+	}
+
+	private final CountingMetrics metrics = new CountingMetrics();
+	private SnsBatchPublisher publisher;
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		if (publisher != null) {
+			publisher.close();
+		}
+	}
+
+	@Test
+	void sendsFullBatchesWithoutWaitingForTheLinger() throws Exception {
+		FlakySns sns = new FlakySns(null, false);
+		publisher = publisher(sns, Duration.ofSeconds(30));
+
+		allOf(publish(20, "a")).get(5, TimeUnit.SECONDS);
+
+		assertEquals(List.of(10, 10), sns.batchSizes);
+		assertEquals(2, metrics.batches.get());
+	}
+
+	@Test
+	void sendsAPartialBatchOnceTheLingerRunsOut() throws Exception {
+		FlakySns sns = new FlakySns(null, false);
+		publisher = publisher(sns, Duration.ofMillis(200));
+
+		allOf(publish(3, "a")).get(5, TimeUnit.SECONDS);
+
+		assertEquals(List.of(3), sns.batchSizes);
+	}
+
+	@Test
+	void flushSendsAPartialBatchRightAway() throws Exception {
+		FlakySns sns = new FlakySns(null, false);
+		publisher = publisher(sns, Duration.ofSeconds(30));
+
+		List<CompletableFuture<Void>> published = publish(3, "a");
+		publisher.flush();
+
+		allOf(published).get(5, TimeUnit.SECONDS);
+		assertEquals(List.of(3), sns.batchSizes);
+	}
+
+	@Test
+	void retriesEntriesSnsRejectedOnItsSide() throws Exception {
+		FlakySns sns = new FlakySns("Throttled", false);
+		publisher = publisher(sns, Duration.ofMillis(200));
+
+		allOf(publish(12, "a")).get(5, TimeUnit.SECONDS);
+
+		assertEquals(SnsBatchPublisher.MAX_BATCH_SIZE, sns.batchSizes.get(0));
+		assertEquals(24, sns.batchSizes.stream().mapToInt(Integer::intValue).sum());
+		assertEquals(12, metrics.retries.get());
+	}
+
+	@Test
+	void failsEntriesSnsRejectedAsInvalid() {
+		FlakySns sns = new FlakySns("InvalidParameter", true);
+		publisher = publisher(sns, Duration.ofMillis(10));
+
+		CompletableFuture<Void> published = publish(1, "bad").get(0);
+
+		ExecutionException failure = assertThrows(ExecutionException.class, () -> published.get(5, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, failure.getCause());
+		assertTrue(failure.getCause().getMessage().contains("bad0.pdf"));
+		assertTrue(failure.getCause().getMessage().contains("InvalidParameter"));
+		assertEquals(List.of(1), sns.batchSizes);
+	}
+
+	@Test
+	void aFailedCallFailsEveryEntryOfTheBatch() {
+		FlakySns sns = new FlakySns(null, false);
+		sns.down = true;
+		publisher = publisher(sns, Duration.ofMillis(10));
+
+		for (CompletableFuture<Void> future : publish(3, "a")) {
+			ExecutionException failure = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+			assertInstanceOf(SnsException.class, failure.getCause());
+		}
+	}
+
+	@Test
+	void cutsBatchesBeforeTheRequestSizeLimit() throws Exception {
+		FlakySns sns = new FlakySns(null, false);
+		publisher = publisher(sns, Duration.ofMillis(10));
+
+		// ~60 KB each, so at most four fit in one request
+		List<CompletableFuture<Void>> published = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			published.add(publisher.publish(i + "x".repeat(60_000), "event " + i));
+		}
+		allOf(published).get(5, TimeUnit.SECONDS);
+
+		assertTrue(sns.batchSizes.stream().allMatch(size -> size <= 4), sns.batchSizes::toString);
+		assertTrue(sns.batchBytes.stream().allMatch(bytes -> bytes <= SnsBatchPublisher.MAX_BATCH_BYTES));
+		assertEquals(10, sns.batchSizes.stream().mapToInt(Integer::intValue).sum());
+	}
+
+	@Test
+	void failsAnEntryTooLargeForSnsWithoutSendingIt() throws Exception {
+		FlakySns sns = new FlakySns(null, false);
+		publisher = publisher(sns, Duration.ofMillis(10));
+
+		CompletableFuture<Void> tooLarge = publisher.publish("x".repeat(SnsBatchPublisher.MAX_BATCH_BYTES), "large");
+		publisher.publish("small", "small").get(5, TimeUnit.SECONDS);
+
+		assertTrue(tooLarge.isCompletedExceptionally());
+		assertEquals(List.of(1), sns.batchSizes);
+	}
+
+	@Test
+	void closeSendsTheBufferAndWaitsForBatchesInFlight() throws Exception {
+		FlakySns sns = new FlakySns("Throttled", false);
+		sns.delayMillis = 100;
+		publisher = publisher(sns, Duration.ofSeconds(30));
+
+		List<CompletableFuture<Void>> published = publish(12, "a");
+		publisher.close();
+
+		// Both batches and their retries went out before close() returned
+		for (CompletableFuture<Void> future : published) {
+			assertTrue(future.isDone());
+			assertFalse(future.isCompletedExceptionally());
+		}
+		assertEquals(24, sns.batchSizes.stream().mapToInt(Integer::intValue).sum());
+	}
+
+	@Test
+	void failsEntriesPublishedAfterClose() throws Exception {
+		FlakySns sns = new FlakySns(null, false);
+		publisher = publisher(sns, Duration.ofMillis(10));
+		publisher.close();
+
+		CompletableFuture<Void> published = publisher.publish("late", "late");
+
+		assertTrue(published.isCompletedExceptionally());
+		assertTrue(sns.batchSizes.isEmpty());
+	}
+
+	private SnsBatchPublisher publisher(SnsAsyncClient sns, Duration linger) {
+		return new SnsBatchPublisher(sns, "arn:aws:sns:us-east-1:000000000000:test",
+				Map.of("encoding", MessageAttributeValue.builder().dataType("String").stringValue("json").build()),
+				"TestEvent", metrics, new SnsBatchPublisher.Settings(linger, 100, 3, Duration.ofMillis(10)));
+	}
+
+	private List<CompletableFuture<Void>> publish(int count, String keyPrefix) {
+		List<CompletableFuture<Void>> published = new ArrayList<>(count);
+		try {
+			for (int i = 0; i < count; i++) {
+				published.add(publisher.publish("{\"fileKey\":\"" + keyPrefix + i + ".pdf\"}", keyPrefix + i + ".pdf"));
+			}
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+		return published;
+	}
+
+	private static CompletableFuture<Void> allOf(List<CompletableFuture<Void>> futures) {
+		return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+	}
+}
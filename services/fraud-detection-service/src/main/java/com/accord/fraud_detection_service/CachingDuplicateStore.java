@@ -0,0 +1,54 @@
+package com.accord.fraud_detection_service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Small local front cache of keys known to be seen and their owners, so repeated (hot) keys are
+// answered without a round trip to the shared store. Only owned keys are cached; a key that is
+// not in the cache always goes to the delegate. Entries expire no later than the delegate's TTL.
+public class CachingDuplicateStore implements DuplicateStore {
+
+    private final DuplicateStore delegate;
+    private final Cache<String, String> ownerByKey;
+
+    public CachingDuplicateStore(DuplicateStore delegate, long maximumSize, Duration expireAfterWrite) {
+        this.delegate = delegate;
+        this.ownerByKey = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    @Override
+    public List<String> claim(List<String> keys, List<String> owners) {
+        List<String> currentOwners = new ArrayList<>(keys.size());
+        List<String> misses = new ArrayList<>();
+        List<String> missOwners = new ArrayList<>();
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String owner = ownerByKey.getIfPresent(keys.get(i));
+            currentOwners.add(owner);
+            if (owner == null) {
+                misses.add(keys.get(i));
+                missOwners.add(owners.get(i));
+                missIndexes.add(i);
+            }
+        }
+        if (misses.isEmpty()) {
+            return currentOwners;
+        }
+
+        List<String> delegateAnswers = delegate.claim(misses, missOwners);
+        for (int i = 0; i < misses.size(); i++) {
+            currentOwners.set(missIndexes.get(i), delegateAnswers.get(i));
+            if (delegateAnswers.get(i) != null) {
+                ownerByKey.put(misses.get(i), delegateAnswers.get(i));
+            }
+        }
+        return currentOwners;
+    }
+}
@@ -0,0 +1,24 @@
+package com.accord.fraud_detection_service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Records transaction keys with the message that saw them first and reports which of them had not been
+// seen before. The owner is the message's processing ledger key, so the marks of a message that failed
+// after marking do not make its redelivery look like a duplicate of itself.
+public interface DuplicateStore {
+
+    // Marks every key as seen by the owner at the same index unless it already has one, in order, and
+    // returns the owner each key has now. A key repeated within the same call keeps its first owner.
+    List<String> claim(List<String> keys, List<String> owners);
+
+    // True at the same index for each key that was new, or that is already owned by the same owner
+    default List<Boolean> markSeen(List<String> keys, List<String> owners) {
+        List<String> currentOwners = claim(keys, owners);
+        List<Boolean> isNew = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            isNew.add(owners.get(i).equals(currentOwners.get(i)));
+        }
+        return isNew;
+    }
+}
@@ -0,0 +1,101 @@
+package com.accord.fraud_detection_service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class DuplicateStoreConfig {
+
+    @Value("${app.fraud.dedupe.ttl:P7D}")
+    private Duration ttl;
+
+    @Value("${app.fraud.dedupe.front-cache.maximum-size:10000}")
+    private long frontCacheMaximumSize;
+
+    @Value("${app.fraud.dedupe.front-cache.expire-after-write:PT10M}")
+    private Duration frontCacheExpireAfterWrite;
+
+    @Value("${app.fraud.prefilter.enabled:false}")
+    private boolean prefilterEnabled;
+
+    @Value("${app.fraud.prefilter.expected-insertions-per-window:5000000}")
+    private long prefilterExpectedInsertionsPerWindow;
+
+    @Value("${app.fraud.prefilter.false-positive-rate:0.01}")
+    private double prefilterFalsePositiveRate;
+
+    @Value("${app.fraud.prefilter.window:PT1H}")
+    private Duration prefilterWindow;
+
+    @Value("${app.fraud.prefilter.retained-windows:24}")
+    private int prefilterRetainedWindows;
+
+    private final MeterRegistry meterRegistry;
+
+    public DuplicateStoreConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.fraud.dedupe.store", havingValue = "redis", matchIfMissing = true)
+    public DuplicateStore redisDuplicateStore(StringRedisTemplate redisTemplate,
+                                              @Value("${app.fraud.dedupe.key-prefix:accord:dedupe:}") String keyPrefix) {
+        return withPrefilter(withFrontCache(new RedisDuplicateStore(redisTemplate, keyPrefix, ttl)));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.fraud.dedupe.store", havingValue = "memory")
+    public DuplicateStore inMemoryDuplicateStore() {
+        return withPrefilter(withFrontCache(new InMemoryDuplicateStore(ttl)));
+    }
+
+    private DuplicateStore withFrontCache(DuplicateStore store) {
+        if (frontCacheMaximumSize <= 0) {
+            return store;
+        }
+        Duration expiry = frontCacheExpireAfterWrite.compareTo(ttl) < 0 ? frontCacheExpireAfterWrite : ttl;
+        return new CachingDuplicateStore(store, frontCacheMaximumSize, expiry);
+    }
+
+    private DuplicateStore withPrefilter(DuplicateStore store) {
+        if (!prefilterEnabled) {
+            return store;
+        }
+        RotatingBloomFilter filter = new RotatingBloomFilter(prefilterExpectedInsertionsPerWindow,
+                prefilterFalsePositiveRate, prefilterWindow, prefilterRetainedWindows, Clock.systemUTC());
+        return new PrefilteredDuplicateStore(store, filter, prefilterWindow.multipliedBy(prefilterRetainedWindows),
+                prefilterWriteThroughExecutor(), meterRegistry);
+    }
+
+    // Only registered with the prefilter, so a service without it starts no write-through thread.
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "app.fraud.prefilter.enabled", havingValue = "true")
+    public ExecutorService prefilterWriteThroughExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000),
+                new CustomizableThreadFactory("prefilter-write-through-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Bands x rows must equal the ingestion service's app.fingerprint.minhash-size.
+    // With 16 bands of 8 rows, documents above ~0.7 similarity almost always share a band.
+    @Bean
+    public LshIndex nearDuplicateIndex(@Value("${app.fraud.near-duplicate.signature-length:128}") int signatureLength,
+                                       @Value("${app.fraud.near-duplicate.bands:16}") int bands,
+                                       @Value("${app.fraud.near-duplicate.similarity-threshold:0.8}") double similarityThreshold,
+                                       @Value("${app.fraud.near-duplicate.capacity:100000}") int capacity) {
+        return new LshIndex(signatureLength, bands, similarityThreshold, capacity);
+    }
+}
@@ -1,9 +1,13 @@
 package com.accord.fraud_detection_service;
 
+import com.accord.messaging.LedgerConfig;
+import com.accord.messaging.ListenerTuningConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
 @SpringBootApplication
+@Import({LedgerConfig.class, ListenerTuningConfig.class})
 public class FraudDetectionServiceApplication {
 
 	public static void main(String[] args) {
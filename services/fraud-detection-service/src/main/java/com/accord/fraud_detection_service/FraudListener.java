@@ -1,49 +1,223 @@
 package com.accord.fraud_detection_service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.accord.events.EventEncoding;
+import com.accord.events.FraudScoredEvent;
+import com.accord.events.SnsEnvelopeDecoder;
+import com.accord.events.TransactionProcessedEvent;
+import com.accord.messaging.ProcessingLedger;
+import com.accord.messaging.VisibilityBackoff;
 import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class FraudListener {
 
     private static final Logger logger = LoggerFactory.getLogger(FraudListener.class);
-    private final ObjectMapper objectMapper;
-    private final Set<String> processedTransactions = Collections.synchronizedSet(new HashSet<>());
+    private final SnsEnvelopeDecoder snsEnvelopeDecoder;
+    private final DuplicateStore duplicateStore;
+    private final LshIndex nearDuplicateIndex;
+    private final FraudScorer fraudScorer;
+    private final FraudScorePublisher fraudScorePublisher;
+    private final PipelineMetrics pipelineMetrics;
+    private final ProcessingLedger processingLedger;
+    private final VisibilityBackoff visibilityBackoff;
 
-    public FraudListener(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public FraudListener(SnsEnvelopeDecoder snsEnvelopeDecoder, DuplicateStore duplicateStore, LshIndex nearDuplicateIndex,
+                         FraudScorer fraudScorer, FraudScorePublisher fraudScorePublisher, PipelineMetrics pipelineMetrics,
+                         ProcessingLedger processingLedger, VisibilityBackoff visibilityBackoff) {
+        this.snsEnvelopeDecoder = snsEnvelopeDecoder;
+        this.duplicateStore = duplicateStore;
+        this.nearDuplicateIndex = nearDuplicateIndex;
+        this.fraudScorer = fraudScorer;
+        this.fraudScorePublisher = fraudScorePublisher;
+        this.pipelineMetrics = pipelineMetrics;
+        this.processingLedger = processingLedger;
+        this.visibilityBackoff = visibilityBackoff;
     }
 
-    @SqsListener("${spring.cloud.aws.sqs.queue-name}")
-    public void receiveMessage(String snsMessageJson) {
+    // Batch mode, so the ledger claim and the duplicate checks for every event in a poll each share one
+    // store round trip. Every checked event is then scored against sliding-window aggregates, and the ones
+    // that reach the emit threshold are published as FraudScoredEvents. A redelivered message that was
+    // already checked is acknowledged without checking again, so it is not reported as a duplicate of
+    // itself. Replayed events from a backfill only have their content hash recorded: they are files already
+    // processed, so they are neither reported as duplicates of their first event, put into the near
+    // duplicate index nor counted as uploads in the windows. Messages that fail are left unacknowledged and
+    // come back after an exponential backoff, ending up in the dead-letter queue if they keep failing.
+    @SqsListener(id = "fraud-detection", value = "${spring.cloud.aws.sqs.queue-name}",
+            maxMessagesPerPoll = "${app.fraud.max-messages-per-poll:10}",
+            acknowledgementMode = "MANUAL")
+    public void receiveMessages(List<Message<String>> messages, BatchAcknowledgement<String> acknowledgement) {
         logger.info("====================================================");
-        logger.info("FRAUD SERVICE: Received new event!");
-        try {
-            JsonNode rootNode = objectMapper.readTree(snsMessageJson);
-            String eventPayload = rootNode.get("Message").asText();
-            TransactionProcessedEvent event = objectMapper.readValue(eventPayload, TransactionProcessedEvent.class);
-
-            logger.info("-----> Event parsed successfully for file: {}", event.fileKey());
+        logger.info("FRAUD SERVICE: Received {} new event(s)!", messages.size());
 
-            String transactionId = event.fileKey();
+        List<String> ledgerKeys = new ArrayList<>(messages.size());
+        for (Message<String> message : messages) {
+            pipelineMetrics.recordQueueLag(message.getHeaders());
+            ledgerKeys.add(String.valueOf(message.getHeaders().getId()));
+        }
+        List<ProcessingLedger.State> states;
+        try {
+            Timer.Sample ledgerClaim = pipelineMetrics.startTimer();
+            states = processingLedger.claim(ledgerKeys);
+            ledgerClaim.stop(pipelineMetrics.ledgerClaim());
+            pipelineMetrics.recordLedgerStates(states);
+        } catch (RuntimeException e) {
+            logger.error("Processing ledger unavailable, leaving {} message(s) for redelivery", messages.size(), e);
+            pipelineMetrics.recordFailure("ledger", e);
+            messages.forEach(this::retryLater);
+            return;
+        }
 
-            if (processedTransactions.add(transactionId)) {
-                logger.info("-----> SUCCESS: New transaction. No fraud detected.");
-            } else {
-                logger.warn("-----> FRAUD WARNING: Duplicate transaction detected for file: {}", transactionId);
+        List<Message<String>> alreadyDone = new ArrayList<>();
+        List<Message<String>> claimed = new ArrayList<>(messages.size());
+        List<String> claimedKeys = new ArrayList<>(messages.size());
+        List<TransactionProcessedEvent> events = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Message<String> message = messages.get(i);
+            switch (states.get(i)) {
+                case DONE -> alreadyDone.add(message);
+                case IN_PROGRESS -> retrySoon(message);
+                case CLAIMED -> {
+                    try {
+                        TransactionProcessedEvent event = snsEnvelopeDecoder.decodeTransactionProcessed(message.getPayload(),
+                                message.getHeaders().get(EventEncoding.ATTRIBUTE_NAME, String.class));
+                        logger.info("-----> Event parsed successfully for file: {}", event.fileKey());
+                        events.add(event);
+                        claimed.add(message);
+                        claimedKeys.add(ledgerKeys.get(i));
+                    } catch (Exception e) {
+                        logger.error("Error processing event in FraudDetectionService", e);
+                        pipelineMetrics.recordFailure("parse", e);
+                        release(List.of(ledgerKeys.get(i)));
+                        retryLater(message);
+                    }
+                }
             }
+        }
+        if (!alreadyDone.isEmpty()) {
+            acknowledgement.acknowledge(alreadyDone);
+        }
 
+        List<FraudScoredEvent> scoredEvents;
+        try {
+            List<String> duplicateKeys = events.stream().map(FraudListener::duplicateKey).toList();
+            // A key is owned by the message it came with, so the redelivery of a message that fails below
+            // is not reported as a duplicate of itself
+            List<Boolean> isNew = pipelineMetrics.dedupeLookup()
+                    .record(() -> duplicateStore.markSeen(duplicateKeys, claimedKeys));
+            pipelineMetrics.recordEvents(events.size());
+            boolean[] nearDuplicates = new boolean[events.size()];
+            for (int i = 0; i < events.size(); i++) {
+                TransactionProcessedEvent event = events.get(i);
+                if (event.replay()) {
+                    pipelineMetrics.recordReplay();
+                    continue;
+                }
+                if (!isNew.get(i)) {
+                    pipelineMetrics.recordExactDuplicate();
+                    logger.warn("-----> FRAUD WARNING: Duplicate transaction detected for file: {}", event.fileKey());
+                    continue;
+                }
+                LshIndex.Match nearDuplicate = event.minHashSignature() != null
+                        ? pipelineMetrics.nearDuplicateLookup()
+                                .record(() -> nearDuplicateIndex.findAndAdd(event.fileKey(), event.minHashSignature()))
+                        : null;
+                if (nearDuplicate != null) {
+                    nearDuplicates[i] = true;
+                    pipelineMetrics.recordNearDuplicate();
+                    logger.warn("-----> FRAUD WARNING: File {} is a near duplicate of {} (similarity {})",
+                            event.fileKey(), nearDuplicate.fileKey(), String.format("%.2f", nearDuplicate.similarity()));
+                } else {
+                    logger.info("-----> SUCCESS: New transaction {}. No fraud detected.", event.fileKey());
+                }
+            }
+            scoredEvents = pipelineMetrics.scoring().record(() -> score(events, isNew, nearDuplicates));
         } catch (Exception e) {
-            logger.error("Error processing event in FraudDetectionService", e);
+            logger.error("Error checking transactions for duplicates in FraudDetectionService", e);
+            pipelineMetrics.recordFailure("dedupe", e);
+            release(claimedKeys);
+            claimed.forEach(this::retryLater);
+            logger.info("====================================================");
+            return;
+        }
+        if (!scoredEvents.isEmpty()) {
+            fraudScorePublisher.publish(scoredEvents);
+        }
+        complete(claimedKeys);
+        if (!claimed.isEmpty()) {
+            acknowledgement.acknowledge(claimed);
         }
         logger.info("====================================================");
     }
-}
\ No newline at end of file
+
+    // Every live event goes into the sliding windows, duplicates included, so velocity counts re-uploads too;
+    // one Assessment is reused for the whole poll and only events at the emit threshold become events.
+    private List<FraudScoredEvent> score(List<TransactionProcessedEvent> events, List<Boolean> isNew, boolean[] nearDuplicates) {
+        FraudScorer.Assessment assessment = new FraudScorer.Assessment();
+        List<FraudScoredEvent> scoredEvents = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < events.size(); i++) {
+            TransactionProcessedEvent event = events.get(i);
+            if (event.replay()) {
+                continue;
+            }
+            fraudScorer.score(event, !isNew.get(i), nearDuplicates[i], now, assessment);
+            pipelineMetrics.recordScore(assessment);
+            if (fraudScorer.shouldEmit(assessment)) {
+                FraudScoredEvent scored = fraudScorer.toEvent(event, assessment, Instant.ofEpochMilli(now));
+                logger.warn("-----> FRAUD WARNING: File {} scored {} ({})", event.fileKey(),
+                        String.format("%.2f", scored.score()), String.join(", ", scored.reasons()));
+                scoredEvents.add(scored);
+            }
+        }
+        pipelineMetrics.recordScoredEvents(scoredEvents.size());
+        return scoredEvents;
+    }
+
+    // A failure here must not fail the messages: the checks are done, and the leases run out on their own
+    private void complete(List<String> ledgerKeys) {
+        try {
+            processingLedger.complete(ledgerKeys);
+        } catch (RuntimeException e) {
+            logger.warn("Could not mark {} message(s) as done in the processing ledger", ledgerKeys.size(), e);
+        }
+    }
+
+    private void release(List<String> ledgerKeys) {
+        try {
+            processingLedger.release(ledgerKeys);
+        } catch (RuntimeException e) {
+            logger.warn("Could not release {} processing ledger claim(s)", ledgerKeys.size(), e);
+        }
+    }
+
+    private void retryLater(Message<String> message) {
+        pipelineMetrics.recordRedelivery();
+        visibilityBackoff.retryLater(message).exceptionally(e -> {
+            logger.warn("Could not change the visibility of message {}", message.getHeaders().getId(), e);
+            return null;
+        });
+    }
+
+    // Not a failure: brought back after the fixed in-progress delay, once its holder has had time to finish
+    private void retrySoon(Message<String> message) {
+        visibilityBackoff.retrySoon(message).exceptionally(e -> {
+            logger.warn("Could not change the visibility of message {}", message.getHeaders().getId(), e);
+            return null;
+        });
+    }
+
+    // Identical content is a duplicate whatever the file is called; events without a hash fall back to the key.
+    private static String duplicateKey(TransactionProcessedEvent event) {
+        return event.contentSha256() != null ? "sha256:" + event.contentSha256() : "file:" + event.fileKey();
+    }
+}
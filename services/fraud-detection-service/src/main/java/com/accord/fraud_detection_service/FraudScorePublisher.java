@@ -0,0 +1,83 @@
+package com.accord.fraud_detection_service;
+
+import com.accord.events.EventCodec;
+import com.accord.events.EventEncoding;
+import com.accord.events.FraudScoredEvent;
+import com.accord.messaging.SnsBatchPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Publishes the FraudScoredEvents of one polled batch through the shared SnsBatchPublisher, flushing
+// the last partial batch right away, and returns once SNS answered for all of them.
+// Alerts are best effort: a failure is logged with the event and counted, but does not fail the
+// messages, since a redelivery would count the same uploads into the windows twice.
+@Component
+public class FraudScorePublisher implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(FraudScorePublisher.class);
+
+    private final EventCodec eventCodec;
+    private final PipelineMetrics pipelineMetrics;
+    private final EventEncoding eventEncoding;
+    private final SnsBatchPublisher batchPublisher;
+
+    public FraudScorePublisher(SnsAsyncClient snsAsyncClient, EventCodec eventCodec, PipelineMetrics pipelineMetrics,
+                               @Value("${app.sns.fraud-scored-topic-arn}") String topicArn,
+                               @Value("${app.events.encoding:json}") String eventEncoding,
+                               @Value("${app.fraud.publisher.linger:PT0.05S}") Duration linger,
+                               @Value("${app.fraud.publisher.max-buffered:1000}") int maxBuffered,
+                               @Value("${app.fraud.publisher.max-attempts:5}") int maxAttempts,
+                               @Value("${app.fraud.publisher.retry-backoff:PT0.1S}") Duration retryBackoff) {
+        this.eventCodec = eventCodec;
+        this.pipelineMetrics = pipelineMetrics;
+        this.eventEncoding = EventEncoding.fromAttribute(eventEncoding);
+        Map<String, MessageAttributeValue> messageAttributes = Map.of(EventEncoding.ATTRIBUTE_NAME,
+                MessageAttributeValue.builder()
+                        .dataType("String")
+                        .stringValue(this.eventEncoding.attributeValue())
+                        .build());
+        this.batchPublisher = new SnsBatchPublisher(snsAsyncClient, topicArn, messageAttributes, "FraudScoredEvent",
+                pipelineMetrics, new SnsBatchPublisher.Settings(linger, maxBuffered, maxAttempts, retryBackoff));
+    }
+
+    public void publish(List<FraudScoredEvent> events) {
+        List<CompletableFuture<Void>> published = new ArrayList<>(events.size());
+        for (FraudScoredEvent event : events) {
+            CompletableFuture<Void> future;
+            try {
+                future = batchPublisher.publish(eventCodec.encode(event, eventEncoding),
+                        "FraudScoredEvent for " + event.fileKey());
+            } catch (IOException e) {
+                future = CompletableFuture.failedFuture(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future = CompletableFuture.failedFuture(e);
+            }
+            published.add(future.whenComplete((ignored, e) -> {
+                if (e != null) {
+                    logger.error("Failed to publish FraudScoredEvent {}", event, e);
+                    pipelineMetrics.recordFailure("score_publish", e);
+                }
+            }).exceptionally(e -> null));
+        }
+        batchPublisher.flush();
+        CompletableFuture.allOf(published.toArray(CompletableFuture[]::new)).join();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        batchPublisher.close();
+    }
+}
@@ -0,0 +1,202 @@
+package com.accord.fraud_detection_service;
+
+import com.accord.events.FraudScoredEvent;
+import com.accord.events.TransactionProcessedEvent;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Scores every TransactionProcessedEvent against sliding-window aggregates:
+//  - upload velocity: uploads by the account (bucket plus leading key directories) in the window
+//  - file size and page count anomalies: z-score against the bucket's window mean, size on a log scale
+//  - snippet bursts: the same normalized text snippet seen repeatedly, or many near-duplicate or
+//    repeated-snippet uploads by one account, in the window
+// plus the exact and near duplicate results of FraudListener. Each feature maps to a partial score in
+// 0..1 and they are combined as 1 - prod(1 - s), so one strong signal is enough and weak ones add up.
+// Scoring writes into a caller-owned Assessment and allocates nothing; only events worth emitting are
+// turned into a FraudScoredEvent. Thread-safe.
+public class FraudScorer {
+
+    public enum Reason { EXACT_DUPLICATE, NEAR_DUPLICATE, UPLOAD_VELOCITY, FILE_SIZE_ANOMALY, PAGE_COUNT_ANOMALY, SNIPPET_BURST }
+
+    private static final Reason[] REASONS = Reason.values();
+    private static final double NEAR_DUPLICATE_SCORE = 0.5;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // velocityLimit and burstThreshold are per window; anomalies need minSamples in the bucket's window first
+    public record Settings(int accountDepth, int velocityLimit, double zScoreThreshold, int minSamples,
+                           int burstThreshold, int minSnippetLength, double emitThreshold) {}
+
+    public record Tables(SlidingWindowCounters accountUploads, SlidingWindowCounters accountSimilar,
+                         SlidingWindowCounters snippets, SlidingWindowCounters bucketSizes,
+                         SlidingWindowCounters bucketPages) {}
+
+    // The outcome of one score call; reuse one per thread
+    public static final class Assessment {
+        private final SlidingWindowCounters.Totals totals = new SlidingWindowCounters.Totals();
+        private double score;
+        private int reasons;
+        private long uploadsInWindow;
+        private double fileSizeZScore;
+        private double pageCountZScore;
+        private long similarInWindow;
+
+        public double score() {
+            return score;
+        }
+
+        public boolean has(Reason reason) {
+            return (reasons & (1 << reason.ordinal())) != 0;
+        }
+
+        public long uploadsInWindow() {
+            return uploadsInWindow;
+        }
+
+        public double fileSizeZScore() {
+            return fileSizeZScore;
+        }
+
+        public double pageCountZScore() {
+            return pageCountZScore;
+        }
+
+        public long similarInWindow() {
+            return similarInWindow;
+        }
+
+        public List<String> reasonNames() {
+            List<String> names = new ArrayList<>(Integer.bitCount(reasons));
+            for (Reason reason : REASONS) {
+                if (has(reason)) {
+                    names.add(reason.name());
+                }
+            }
+            return names;
+        }
+
+        private void add(Reason reason, double partialScore) {
+            if (partialScore > 0) {
+                reasons |= 1 << reason.ordinal();
+                score = 1 - (1 - score) * (1 - partialScore);
+            }
+        }
+    }
+
+    private final Settings settings;
+    private final Tables tables;
+
+    public FraudScorer(Settings settings, Tables tables) {
+        this.settings = settings;
+        this.tables = tables;
+    }
+
+    public boolean shouldEmit(Assessment assessment) {
+        return assessment.score >= settings.emitThreshold();
+    }
+
+    public void score(TransactionProcessedEvent event, boolean exactDuplicate, boolean nearDuplicate, long nowMillis,
+                      Assessment out) {
+        out.score = 0;
+        out.reasons = 0;
+        SlidingWindowCounters.Totals totals = out.totals;
+        long bucketHash = hash(FNV_OFFSET, event.bucketName(), 0, length(event.bucketName()));
+        long accountHash = hash(hash(bucketHash, "/", 0, 1), event.fileKey(), 0, accountPrefixEnd(event.fileKey()));
+
+        out.add(Reason.EXACT_DUPLICATE, exactDuplicate ? 1 : 0);
+        out.add(Reason.NEAR_DUPLICATE, nearDuplicate ? NEAR_DUPLICATE_SCORE : 0);
+
+        tables.accountUploads().add(accountHash, 0, nowMillis, totals);
+        out.uploadsInWindow = totals.count + 1;
+        out.add(Reason.UPLOAD_VELOCITY, excess(out.uploadsInWindow, settings.velocityLimit()));
+
+        tables.bucketSizes().add(bucketHash, Math.log1p(Math.max(0, event.fileSize())), nowMillis, totals);
+        out.fileSizeZScore = zScore(Math.log1p(Math.max(0, event.fileSize())), totals);
+        out.add(Reason.FILE_SIZE_ANOMALY, excess(Math.abs(out.fileSizeZScore), settings.zScoreThreshold()));
+
+        out.pageCountZScore = 0;
+        if (event.pageCount() > 0) {
+            tables.bucketPages().add(bucketHash, event.pageCount(), nowMillis, totals);
+            out.pageCountZScore = zScore(event.pageCount(), totals);
+            out.add(Reason.PAGE_COUNT_ANOMALY, excess(Math.abs(out.pageCountZScore), settings.zScoreThreshold()));
+        }
+
+        long snippetCopies = 0;
+        long snippetHash = snippetHash(event.textSnippet());
+        if (snippetHash != 0) {
+            tables.snippets().add(snippetHash, 0, nowMillis, totals);
+            snippetCopies = totals.count;
+        }
+        if (nearDuplicate || snippetCopies > 0) {
+            tables.accountSimilar().add(accountHash, 0, nowMillis, totals);
+            out.similarInWindow = Math.max(snippetCopies, totals.count + 1);
+        } else {
+            tables.accountSimilar().read(accountHash, nowMillis, totals);
+            out.similarInWindow = totals.count;
+        }
+        out.add(Reason.SNIPPET_BURST, excess(out.similarInWindow, settings.burstThreshold()));
+    }
+
+    public FraudScoredEvent toEvent(TransactionProcessedEvent event, Assessment assessment, Instant scoredAt) {
+        String accountKey = event.bucketName() + "/" + event.fileKey().substring(0, accountPrefixEnd(event.fileKey()));
+        return new FraudScoredEvent(event.bucketName(), event.fileKey(), accountKey, assessment.score(),
+                assessment.reasonNames(), assessment.uploadsInWindow(), assessment.fileSizeZScore(),
+                assessment.pageCountZScore(), assessment.similarInWindow(), scoredAt);
+    }
+
+    // 0 up to the threshold, rising to 1 at twice the threshold
+    private static double excess(double value, double threshold) {
+        return value <= threshold ? 0 : Math.min(1, (value - threshold) / threshold);
+    }
+
+    private double zScore(double value, SlidingWindowCounters.Totals before) {
+        double standardDeviation = before.standardDeviation();
+        if (before.count() < settings.minSamples() || standardDeviation == 0) {
+            return 0;
+        }
+        return (value - before.mean()) / standardDeviation;
+    }
+
+    // End of the account part of the key: the first accountDepth directories, or as many as there are
+    private int accountPrefixEnd(String fileKey) {
+        int end = 0;
+        int directories = 0;
+        for (int i = 0; i < fileKey.length() && directories < settings.accountDepth(); i++) {
+            if (fileKey.charAt(i) == '/') {
+                end = i;
+                directories++;
+            }
+        }
+        return end;
+    }
+
+    // Over letters and digits only, lower-cased, so layout and punctuation differences hash alike; 0 when too short
+    private long snippetHash(String snippet) {
+        if (snippet == null) {
+            return 0;
+        }
+        long hash = FNV_OFFSET;
+        int significant = 0;
+        for (int i = 0; i < snippet.length(); i++) {
+            char c = snippet.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                significant++;
+            }
+        }
+        return significant < settings.minSnippetLength() || hash == 0 ? 0 : hash;
+    }
+
+    private static long hash(long hash, String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,60 @@
+package com.accord.fraud_detection_service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class FraudScoringConfig {
+
+    @Value("${app.fraud.scoring.window:PT10M}")
+    private Duration window;
+
+    @Value("${app.fraud.scoring.window-buckets:60}")
+    private int windowBuckets;
+
+    @Value("${app.fraud.scoring.lock-stripes:64}")
+    private int lockStripes;
+
+    private final MeterRegistry meterRegistry;
+
+    public FraudScoringConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Accounts and snippets get count-only tables; buckets are few but keep value sums for the z-scores
+    @Bean
+    public FraudScorer fraudScorer(@Value("${app.fraud.scoring.account-depth:1}") int accountDepth,
+                                   @Value("${app.fraud.scoring.velocity-limit:100}") int velocityLimit,
+                                   @Value("${app.fraud.scoring.z-score-threshold:4}") double zScoreThreshold,
+                                   @Value("${app.fraud.scoring.min-samples:50}") int minSamples,
+                                   @Value("${app.fraud.scoring.burst-threshold:5}") int burstThreshold,
+                                   @Value("${app.fraud.scoring.min-snippet-length:40}") int minSnippetLength,
+                                   @Value("${app.fraud.scoring.emit-threshold:0.5}") double emitThreshold,
+                                   @Value("${app.fraud.scoring.account-capacity:65536}") int accountCapacity,
+                                   @Value("${app.fraud.scoring.snippet-capacity:65536}") int snippetCapacity,
+                                   @Value("${app.fraud.scoring.bucket-capacity:1024}") int bucketCapacity) {
+        FraudScorer.Tables tables = new FraudScorer.Tables(
+                table("account_uploads", accountCapacity, false),
+                table("account_similar", accountCapacity, false),
+                table("snippets", snippetCapacity, false),
+                table("bucket_sizes", bucketCapacity, true),
+                table("bucket_pages", bucketCapacity, true));
+        return new FraudScorer(new FraudScorer.Settings(accountDepth, velocityLimit, zScoreThreshold, minSamples,
+                burstThreshold, minSnippetLength, emitThreshold), tables);
+    }
+
+    private SlidingWindowCounters table(String name, int capacity, boolean withValues) {
+        SlidingWindowCounters counters = new SlidingWindowCounters(capacity, lockStripes, windowBuckets,
+                window.toMillis() / windowBuckets, withValues);
+        Gauge.builder("accord.fraud.scoring.evictions", counters, SlidingWindowCounters::evictions)
+                .description("Entities that lost their window because the table was full")
+                .tag("table", name)
+                .register(meterRegistry);
+        return counters;
+    }
+}
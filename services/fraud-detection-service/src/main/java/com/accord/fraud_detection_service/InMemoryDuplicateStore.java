@@ -0,0 +1,50 @@
+package com.accord.fraud_detection_service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single-node stand-in for RedisDuplicateStore with the same TTL semantics,
+// for local runs and tests where no Redis is available.
+public class InMemoryDuplicateStore implements DuplicateStore {
+
+    private final ConcurrentHashMap<String, Mark> markByKey = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final Clock clock;
+    private final AtomicLong callsSincePurge = new AtomicLong();
+
+    private record Mark(String owner, long expiry) {}
+
+    public InMemoryDuplicateStore(Duration ttl) {
+        this(ttl, Clock.systemUTC());
+    }
+
+    InMemoryDuplicateStore(Duration ttl, Clock clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public List<String> claim(List<String> keys, List<String> owners) {
+        if (callsSincePurge.incrementAndGet() % 10_000 == 0) {
+            purgeExpired();
+        }
+        List<String> currentOwners = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            long now = clock.millis();
+            String owner = owners.get(i);
+            Mark mark = markByKey.compute(keys.get(i), (k, existing) ->
+                    existing == null || existing.expiry() <= now ? new Mark(owner, now + ttlMillis) : existing);
+            currentOwners.add(mark.owner());
+        }
+        return currentOwners;
+    }
+
+    void purgeExpired() {
+        long now = clock.millis();
+        markByKey.values().removeIf(mark -> mark.expiry() <= now);
+    }
+}
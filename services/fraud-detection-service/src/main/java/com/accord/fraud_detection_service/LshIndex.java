@@ -0,0 +1,109 @@
+package com.accord.fraud_detection_service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Locality-sensitive hashing index over MinHash signatures. The signature is cut into bands;
+// two documents become candidates when any band matches exactly, and a candidate is a near
+// duplicate when the fraction of equal signature positions reaches the similarity threshold.
+// Holds the most recent 'capacity' documents in a ring, so memory is fixed.
+public class LshIndex {
+
+    public record Match(String fileKey, double similarity) {}
+
+    private final int bands;
+    private final int rowsPerBand;
+    private final double similarityThreshold;
+    private final String[] fileKeys;
+    private final int[][] signatures;
+    private final List<Map<Long, List<Integer>>> bandBuckets;
+    private int nextSlot;
+
+    public LshIndex(int signatureLength, int bands, double similarityThreshold, int capacity) {
+        if (signatureLength % bands != 0) {
+            throw new IllegalArgumentException("Signature length " + signatureLength + " is not divisible by " + bands + " bands");
+        }
+        this.bands = bands;
+        this.rowsPerBand = signatureLength / bands;
+        this.similarityThreshold = similarityThreshold;
+        this.fileKeys = new String[capacity];
+        this.signatures = new int[capacity][];
+        this.bandBuckets = new ArrayList<>(bands);
+        for (int i = 0; i < bands; i++) {
+            bandBuckets.add(new HashMap<>());
+        }
+    }
+
+    // Returns the most similar indexed document above the threshold, or null, then indexes this one.
+    public synchronized Match findAndAdd(String fileKey, int[] signature) {
+        if (signature.length != bands * rowsPerBand) {
+            return null;
+        }
+        Match best = null;
+        long[] bandHashes = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            bandHashes[band] = bandHash(signature, band);
+            List<Integer> slots = bandBuckets.get(band).get(bandHashes[band]);
+            if (slots == null) {
+                continue;
+            }
+            for (int slot : slots) {
+                double similarity = similarity(signature, signatures[slot]);
+                if (similarity >= similarityThreshold && (best == null || similarity > best.similarity())) {
+                    best = new Match(fileKeys[slot], similarity);
+                }
+            }
+        }
+        add(fileKey, signature, bandHashes);
+        return best;
+    }
+
+    private void add(String fileKey, int[] signature, long[] bandHashes) {
+        int slot = nextSlot;
+        nextSlot = (nextSlot + 1) % fileKeys.length;
+        if (signatures[slot] != null) {
+            evict(slot);
+        }
+        fileKeys[slot] = fileKey;
+        signatures[slot] = signature;
+        for (int band = 0; band < bands; band++) {
+            bandBuckets.get(band).computeIfAbsent(bandHashes[band], k -> new ArrayList<>(1)).add(slot);
+        }
+    }
+
+    private void evict(int slot) {
+        for (int band = 0; band < bands; band++) {
+            long hash = bandHash(signatures[slot], band);
+            List<Integer> slots = bandBuckets.get(band).get(hash);
+            if (slots != null) {
+                slots.remove(Integer.valueOf(slot));
+                if (slots.isEmpty()) {
+                    bandBuckets.get(band).remove(hash);
+                }
+            }
+        }
+        fileKeys[slot] = null;
+        signatures[slot] = null;
+    }
+
+    private long bandHash(int[] signature, int band) {
+        long hash = band;
+        int start = band * rowsPerBand;
+        for (int i = start; i < start + rowsPerBand; i++) {
+            hash = hash * 0x100000001B3L + signature[i];
+        }
+        return hash;
+    }
+
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+}
@@ -0,0 +1,207 @@
+package com.accord.fraud_detection_service;
+
+import com.accord.messaging.ProcessingLedger;
+import com.accord.messaging.QueueLagSource;
+import com.accord.messaging.QueueLagTracker;
+import com.accord.messaging.SnsPublishMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Micrometer meters for the fraud checks, scraped from /actuator/prometheus.
+// The pre-filter registers its own accord.fraud.prefilter.* meters.
+@Component
+public class PipelineMetrics implements QueueLagSource, SnsPublishMetrics {
+
+    private static final FraudScorer.Reason[] SCORE_REASONS = FraudScorer.Reason.values();
+
+    private final MeterRegistry meterRegistry;
+    private final Timer dedupeLookup;
+    private final Timer nearDuplicateLookup;
+    private final Counter events;
+    private final Counter exactDuplicates;
+    private final Counter nearDuplicates;
+    private final Timer queueLag;
+    private final Timer ledgerClaim;
+    private final Counter redeliveries;
+    private final Timer scoring;
+    private final DistributionSummary scores;
+    private final Counter[] scoreReasons;
+    private final Counter scoredEvents;
+    private final Counter replays;
+    private final Timer snsPublish;
+    private final Counter publishRetries;
+    private final AtomicLong latestQueueLagMillis = new AtomicLong();
+    private final QueueLagTracker queueLagTracker = new QueueLagTracker();
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.dedupeLookup = Timer.builder("accord.fraud.dedupe.lookup")
+                .description("Duplicate store round trip for one polled batch")
+                .register(meterRegistry);
+        this.nearDuplicateLookup = Timer.builder("accord.fraud.near_duplicate.lookup")
+                .description("LSH lookup and insert for one event")
+                .register(meterRegistry);
+        this.events = Counter.builder("accord.fraud.events")
+                .description("Events checked")
+                .register(meterRegistry);
+        this.exactDuplicates = Counter.builder("accord.fraud.duplicates")
+                .description("Duplicates found")
+                .tag("kind", "exact")
+                .register(meterRegistry);
+        this.nearDuplicates = Counter.builder("accord.fraud.duplicates")
+                .description("Duplicates found")
+                .tag("kind", "near")
+                .register(meterRegistry);
+        this.ledgerClaim = Timer.builder("accord.fraud.ledger.claim")
+                .description("Processing ledger lookup for the messages of one poll")
+                .register(meterRegistry);
+        this.redeliveries = Counter.builder("accord.fraud.redeliveries")
+                .description("Failed messages handed back to SQS with a visibility backoff")
+                .register(meterRegistry);
+        this.scoring = Timer.builder("accord.fraud.scoring")
+                .description("Windowed fraud scoring of one polled batch")
+                .register(meterRegistry);
+        this.scores = DistributionSummary.builder("accord.fraud.score")
+                .description("Windowed fraud score of each event, 0..1")
+                .register(meterRegistry);
+        this.scoreReasons = new Counter[SCORE_REASONS.length];
+        for (FraudScorer.Reason reason : SCORE_REASONS) {
+            scoreReasons[reason.ordinal()] = Counter.builder("accord.fraud.score.reasons")
+                    .description("Events a feature contributed to the fraud score of")
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        this.scoredEvents = Counter.builder("accord.fraud.scored_events")
+                .description("FraudScoredEvents emitted")
+                .register(meterRegistry);
+        this.replays = Counter.builder("accord.fraud.replays")
+                .description("Backfill events recorded without duplicate checks or scoring")
+                .register(meterRegistry);
+        this.snsPublish = Timer.builder("accord.fraud.sns.publish")
+                .description("PublishBatch call for up to 10 FraudScoredEvents")
+                .register(meterRegistry);
+        this.publishRetries = Counter.builder("accord.fraud.publish.retries")
+                .description("Batch entries SNS rejected and that were sent again")
+                .register(meterRegistry);
+        this.queueLag = Timer.builder("accord.fraud.queue.lag")
+                .description("Time between SQS receiving a message and this service first picking it up")
+                .register(meterRegistry);
+        Gauge.builder("accord.fraud.queue.lag.latest", latestQueueLagMillis, lag -> lag.get() / 1000.0)
+                .description("Queue lag of the most recently received first delivery")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(meterRegistry);
+    }
+
+    @Override
+    public void recordPublishBatch(int entries, long durationNanos) {
+        snsPublish.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordPublishRetry() {
+        publishRetries.increment();
+    }
+
+    public Timer dedupeLookup() {
+        return dedupeLookup;
+    }
+
+    public Timer nearDuplicateLookup() {
+        return nearDuplicateLookup;
+    }
+
+    public void recordEvents(int count) {
+        events.increment(count);
+    }
+
+    public void recordExactDuplicate() {
+        exactDuplicates.increment();
+    }
+
+    public void recordNearDuplicate() {
+        nearDuplicates.increment();
+    }
+
+    public Timer scoring() {
+        return scoring;
+    }
+
+    // Counters are registered up front, so recording a score allocates nothing
+    public void recordScore(FraudScorer.Assessment assessment) {
+        scores.record(assessment.score());
+        for (FraudScorer.Reason reason : SCORE_REASONS) {
+            if (assessment.has(reason)) {
+                scoreReasons[reason.ordinal()].increment();
+            }
+        }
+    }
+
+    public void recordScoredEvents(int count) {
+        scoredEvents.increment(count);
+    }
+
+    public void recordReplay() {
+        replays.increment();
+    }
+
+    public Timer ledgerClaim() {
+        return ledgerClaim;
+    }
+
+    public void recordLedgerStates(List<ProcessingLedger.State> states) {
+        for (ProcessingLedger.State state : states) {
+            Counter.builder("accord.fraud.ledger")
+                    .description("Processing ledger claims by the state found")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    public void recordRedelivery() {
+        redeliveries.increment();
+    }
+
+    // stage is where it failed, the type is the exception's class name (unwrapped from CompletionException)
+    public void recordFailure(String stage, Throwable failure) {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        Counter.builder("accord.fraud.failures")
+                .tag("stage", stage)
+                .tag("type", failure.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public long takeQueueLagMillis() {
+        return queueLagTracker.takeMaxLagMillis();
+    }
+
+    // Redeliveries are skipped: they keep the SentTimestamp of their first delivery
+    public void recordQueueLag(MessageHeaders headers) {
+        long lagMillis = QueueLagTracker.firstDeliveryLagMillis(headers, System.currentTimeMillis());
+        if (lagMillis < 0) {
+            return;
+        }
+        queueLag.record(lagMillis, TimeUnit.MILLISECONDS);
+        latestQueueLagMillis.set(lagMillis);
+        queueLagTracker.record(lagMillis);
+    }
+}
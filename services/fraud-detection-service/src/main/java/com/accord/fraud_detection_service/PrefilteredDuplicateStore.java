@@ -0,0 +1,181 @@
+package com.accord.fraud_detection_service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+// Puts a rotating Bloom filter in front of the exact store. Keys the filter has never seen are
+// answered "new" straight away and written through to the exact store asynchronously; only the
+// (rare) keys the filter might contain wait for the exact store's answer.
+// A filter that has not yet run for warmUp (its whole retention) has not seen the keys from before
+// this node started, so until then every key is answered by the exact store and only fills the filter.
+// The filter is local to this node, so a key first seen by another replica can still look new here.
+// The asynchronous write-through catches that case and reports the duplicate late. A write-through
+// that fails is kept and sent again with the next one, so the exact store does not miss its keys.
+public class PrefilteredDuplicateStore implements DuplicateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefilteredDuplicateStore.class);
+
+    // Keys kept for a later write-through while the exact store is failing; beyond this they are dropped
+    static final int MAX_PENDING_WRITE_THROUGH = 100_000;
+
+    private final DuplicateStore delegate;
+    private final RotatingBloomFilter filter;
+    private final Executor writeThroughExecutor;
+    private final long warmAtNanos;
+    private volatile boolean warm;
+    // Owner by key, in the order the keys were first answered "new"; guarded by itself
+    private final Map<String, String> pendingWriteThrough = new LinkedHashMap<>();
+    private final Counter definitelyNew;
+    private final Counter maybeSeen;
+    private final Counter warmingUp;
+    private final Counter lateDuplicates;
+    private final Counter writeThroughRetries;
+    private final Counter writeThroughDropped;
+
+    public PrefilteredDuplicateStore(DuplicateStore delegate, RotatingBloomFilter filter, Duration warmUp,
+                                     Executor writeThroughExecutor, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.filter = filter;
+        this.writeThroughExecutor = writeThroughExecutor;
+        this.warmAtNanos = System.nanoTime() + warmUp.toNanos();
+        this.warm = warmUp.isZero() || warmUp.isNegative();
+        this.definitelyNew = Counter.builder("accord.fraud.prefilter.lookups")
+                .description("Pre-filter answers; the definitely_new share is the hit rate")
+                .tag("result", "definitely_new")
+                .register(meterRegistry);
+        this.maybeSeen = Counter.builder("accord.fraud.prefilter.lookups")
+                .description("Pre-filter answers; the definitely_new share is the hit rate")
+                .tag("result", "maybe_seen")
+                .register(meterRegistry);
+        this.warmingUp = Counter.builder("accord.fraud.prefilter.lookups")
+                .description("Pre-filter answers; the definitely_new share is the hit rate")
+                .tag("result", "warming_up")
+                .register(meterRegistry);
+        this.lateDuplicates = Counter.builder("accord.fraud.prefilter.late.duplicates")
+                .description("Keys the local filter reported new but the exact store had already seen")
+                .register(meterRegistry);
+        this.writeThroughRetries = Counter.builder("accord.fraud.prefilter.write.through.retries")
+                .description("Keys whose write-through to the exact store failed and is sent again")
+                .register(meterRegistry);
+        this.writeThroughDropped = Counter.builder("accord.fraud.prefilter.write.through.dropped")
+                .description("Keys left out of the exact store because too many write-throughs were pending")
+                .register(meterRegistry);
+        Gauge.builder("accord.fraud.prefilter.memory", filter, RotatingBloomFilter::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<String> claim(List<String> keys, List<String> owners) {
+        List<String> currentOwners = new ArrayList<>(keys.size());
+        List<String> newKeys = new ArrayList<>();
+        List<String> newOwners = new ArrayList<>();
+        Map<String, String> newInThisBatch = new HashMap<>();
+        List<String> maybeKeys = new ArrayList<>();
+        List<String> maybeOwners = new ArrayList<>();
+        List<Integer> maybeIndexes = new ArrayList<>();
+        boolean trusted = isWarm();
+
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            String owner = owners.get(i);
+            if (newInThisBatch.containsKey(key)) {
+                currentOwners.add(newInThisBatch.get(key));
+            } else if (trusted && !filter.mightContain(key)) {
+                definitelyNew.increment();
+                filter.put(key);
+                newInThisBatch.put(key, owner);
+                newKeys.add(key);
+                newOwners.add(owner);
+                currentOwners.add(owner);
+            } else {
+                if (trusted) {
+                    maybeSeen.increment();
+                } else {
+                    warmingUp.increment();
+                    filter.put(key);
+                }
+                maybeKeys.add(key);
+                maybeOwners.add(owner);
+                maybeIndexes.add(i);
+                currentOwners.add(null);
+            }
+        }
+
+        if (!maybeKeys.isEmpty()) {
+            List<String> exactAnswers = delegate.claim(maybeKeys, maybeOwners);
+            for (int i = 0; i < maybeKeys.size(); i++) {
+                currentOwners.set(maybeIndexes.get(i), exactAnswers.get(i));
+            }
+        }
+        if (!newKeys.isEmpty()) {
+            writeThroughExecutor.execute(() -> writeThrough(newKeys, newOwners));
+        }
+        return currentOwners;
+    }
+
+    private boolean isWarm() {
+        if (!warm && System.nanoTime() - warmAtNanos >= 0) {
+            warm = true;
+        }
+        return warm;
+    }
+
+    private void writeThrough(List<String> newKeys, List<String> newOwners) {
+        List<String> keys = new ArrayList<>(newKeys);
+        List<String> owners = new ArrayList<>(newOwners);
+        synchronized (pendingWriteThrough) {
+            pendingWriteThrough.forEach((key, owner) -> {
+                keys.add(key);
+                owners.add(owner);
+            });
+            pendingWriteThrough.clear();
+        }
+        List<String> exactAnswers;
+        try {
+            exactAnswers = delegate.claim(keys, owners);
+        } catch (Exception e) {
+            logger.error("Could not write {} new key(s) through to the exact store, retrying with the next batch",
+                    keys.size(), e);
+            retryLater(keys, owners);
+            return;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (!owners.get(i).equals(exactAnswers.get(i))) {
+                lateDuplicates.increment();
+                logger.warn("-----> FRAUD WARNING: Duplicate transaction detected for key: {} (confirmed by exact store)",
+                        keys.get(i));
+            }
+        }
+    }
+
+    private void retryLater(List<String> keys, List<String> owners) {
+        int dropped = 0;
+        synchronized (pendingWriteThrough) {
+            for (int i = 0; i < keys.size(); i++) {
+                if (pendingWriteThrough.size() < MAX_PENDING_WRITE_THROUGH) {
+                    pendingWriteThrough.putIfAbsent(keys.get(i), owners.get(i));
+                } else {
+                    dropped++;
+                }
+            }
+        }
+        writeThroughRetries.increment(keys.size() - dropped);
+        if (dropped > 0) {
+            writeThroughDropped.increment(dropped);
+            logger.error("Dropped {} key(s) that could not be written through to the exact duplicate store",
+                    dropped);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.accord.fraud_detection_service;
+
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Shared, restart-safe duplicate detection: one SET NX of the owner with a TTL and one GET per key,
+// with all keys of a batch sent in a single pipelined round trip.
+public class RedisDuplicateStore implements DuplicateStore {
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final Expiration ttl;
+
+    public RedisDuplicateStore(StringRedisTemplate redisTemplate, String keyPrefix, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.ttl = Expiration.from(ttl);
+    }
+
+    @Override
+    public List<String> claim(List<String> keys, List<String> owners) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            RedisStringCommands commands = connection.stringCommands();
+            for (int i = 0; i < keys.size(); i++) {
+                byte[] redisKey = (keyPrefix + keys.get(i)).getBytes(StandardCharsets.UTF_8);
+                commands.set(redisKey, owners.get(i).getBytes(StandardCharsets.UTF_8), ttl,
+                        RedisStringCommands.SetOption.ifAbsent());
+                commands.get(redisKey);
+            }
+            return null;
+        });
+
+        // Every other reply is a GET; keys marked before owners were stored hold "1" and so stay duplicates
+        List<String> currentOwners = new ArrayList<>(keys.size());
+        for (int i = 1; i < replies.size(); i += 2) {
+            currentOwners.add((String) replies.get(i));
+        }
+        return currentOwners;
+    }
+}
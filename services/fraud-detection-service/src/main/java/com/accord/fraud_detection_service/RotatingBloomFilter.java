@@ -0,0 +1,77 @@
+package com.accord.fraud_detection_service;
+
+import java.time.Clock;
+import java.time.Duration;
+
+// A ring of Bloom filters, one per time window. Keys are added to the current window and looked up
+// in all retained windows, so a key is forgotten retainedWindows * window after it was last added
+// and memory stays fixed no matter how long the service runs.
+// The configured false-positive rate is split across the windows because a lookup checks all of them.
+public class RotatingBloomFilter {
+
+    private final BloomFilter[] windows;
+    private final long windowMillis;
+    private final Clock clock;
+    private volatile int current;
+    private volatile long currentWindowStart;
+
+    public RotatingBloomFilter(long expectedInsertionsPerWindow, double falsePositiveRate,
+                               Duration window, int retainedWindows, Clock clock) {
+        this.windows = new BloomFilter[retainedWindows];
+        double perWindowRate = falsePositiveRate / retainedWindows;
+        for (int i = 0; i < retainedWindows; i++) {
+            windows[i] = new BloomFilter(expectedInsertionsPerWindow, perWindowRate);
+        }
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+        this.currentWindowStart = clock.millis();
+    }
+
+    public boolean mightContain(String key) {
+        rotateIfDue();
+        for (BloomFilter filter : windows) {
+            if (filter.mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(String key) {
+        rotateIfDue();
+        windows[current].put(key);
+    }
+
+    public long memoryBytes() {
+        long total = 0;
+        for (BloomFilter filter : windows) {
+            total += filter.memoryBytes();
+        }
+        return total;
+    }
+
+    private void rotateIfDue() {
+        if (clock.millis() - currentWindowStart < windowMillis) {
+            return;
+        }
+        synchronized (this) {
+            long now = clock.millis();
+            long elapsedWindows = (now - currentWindowStart) / windowMillis;
+            if (elapsedWindows >= windows.length) {
+                // Idle for longer than the whole ring: everything has expired
+                for (BloomFilter filter : windows) {
+                    filter.clear();
+                }
+                currentWindowStart += elapsedWindows * windowMillis;
+                return;
+            }
+            while (now - currentWindowStart >= windowMillis) {
+                // Reuse the oldest window's bits instead of allocating a new filter
+                int next = (current + 1) % windows.length;
+                windows[next].clear();
+                current = next;
+                currentWindowStart += windowMillis;
+            }
+        }
+    }
+}
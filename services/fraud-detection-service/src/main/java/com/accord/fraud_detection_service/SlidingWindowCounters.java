@@ -0,0 +1,210 @@
+package com.accord.fraud_detection_service;
+
+// Sliding-window aggregates per entity (an account, a bucket, a snippet), kept in time-bucketed ring buffers.
+// An entity is identified by a 64-bit hash and owns one slot of a fixed table; a slot holds one ring cell
+// per time bucket with the count, and optionally the sum and sum of squares of a value, of what was added in
+// that bucket. A cell is reset lazily when its bucket comes round again, so memory is capacity * buckets *
+// 8 bytes (24 with values) however long the stream runs.
+//
+// The table is split into lock stripes by hash. Inside a stripe slots are open-addressed over a short probe
+// run: a slot whose entity has been silent for a whole window is reused, and when the run is full of live
+// entities the least recently updated one is evicted. Adding and reading allocate nothing.
+public class SlidingWindowCounters {
+
+    private static final int MAX_PROBES = 8;
+
+    // Window totals of one entity, filled in by the caller's instance
+    public static final class Totals {
+        long count;
+        double sum;
+        double sumOfSquares;
+
+        public long count() {
+            return count;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        public double standardDeviation() {
+            if (count < 2) {
+                return 0;
+            }
+            double mean = sum / count;
+            return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+        }
+    }
+
+    private static final class Stripe {
+        final long[] keys;
+        // Time bucket of the latest add to each slot, and of the data in each cell
+        final int[] lastBuckets;
+        final int[] cellBuckets;
+        final int[] counts;
+        final double[] sums;
+        final double[] sumsOfSquares;
+        long evictions;
+
+        Stripe(int slots, int buckets, boolean withValues) {
+            keys = new long[slots];
+            lastBuckets = new int[slots];
+            cellBuckets = new int[slots * buckets];
+            counts = new int[slots * buckets];
+            sums = withValues ? new double[slots * buckets] : null;
+            sumsOfSquares = withValues ? new double[slots * buckets] : null;
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int slotMask;
+    private final int buckets;
+    private final long bucketMillis;
+
+    public SlidingWindowCounters(int capacity, int stripeCount, int buckets, long bucketMillis, boolean withValues) {
+        if (buckets < 1 || bucketMillis < 1000) {
+            throw new IllegalArgumentException("Need at least one bucket of at least a second");
+        }
+        int stripesRounded = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        int slotsPerStripe = Math.max(MAX_PROBES, Integer.highestOneBit(Math.max(1, capacity / stripesRounded - 1) << 1));
+        this.stripes = new Stripe[stripesRounded];
+        for (int i = 0; i < stripesRounded; i++) {
+            stripes[i] = new Stripe(slotsPerStripe, buckets, withValues);
+        }
+        this.stripeMask = stripesRounded - 1;
+        this.slotMask = slotsPerStripe - 1;
+        this.buckets = buckets;
+        this.bucketMillis = bucketMillis;
+    }
+
+    // Writes the entity's window totals before this value into 'before', then adds the value
+    public void add(long hash, double value, long nowMillis, Totals before) {
+        long key = mix(hash);
+        Stripe stripe = stripes[(int) key & stripeMask];
+        int bucket = (int) (nowMillis / bucketMillis);
+        synchronized (stripe) {
+            int slot = findOrClaim(stripe, key, bucket);
+            sum(stripe, slot, bucket, before);
+            int cell = slot * buckets + Math.floorMod(bucket, buckets);
+            if (stripe.cellBuckets[cell] != bucket) {
+                stripe.cellBuckets[cell] = bucket;
+                stripe.counts[cell] = 0;
+                if (stripe.sums != null) {
+                    stripe.sums[cell] = 0;
+                    stripe.sumsOfSquares[cell] = 0;
+                }
+            }
+            stripe.counts[cell]++;
+            if (stripe.sums != null) {
+                stripe.sums[cell] += value;
+                stripe.sumsOfSquares[cell] += value * value;
+            }
+            stripe.lastBuckets[slot] = bucket;
+        }
+    }
+
+    // Writes the entity's window totals into 'totals' without adding anything
+    public void read(long hash, long nowMillis, Totals totals) {
+        long key = mix(hash);
+        Stripe stripe = stripes[(int) key & stripeMask];
+        int bucket = (int) (nowMillis / bucketMillis);
+        synchronized (stripe) {
+            int slot = find(stripe, key);
+            if (slot < 0) {
+                totals.count = 0;
+                totals.sum = 0;
+                totals.sumOfSquares = 0;
+            } else {
+                sum(stripe, slot, bucket, totals);
+            }
+        }
+    }
+
+    // Entities that lost their history because the table was full; a steady rise means capacity is too small
+    public long evictions() {
+        long evictions = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                evictions += stripe.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    private void sum(Stripe stripe, int slot, int bucket, Totals totals) {
+        long count = 0;
+        double sum = 0;
+        double sumOfSquares = 0;
+        int base = slot * buckets;
+        for (int i = 0; i < buckets; i++) {
+            // Only cells of the last 'buckets' buckets are in the window; older ones are waiting to be reset
+            if (bucket - stripe.cellBuckets[base + i] < buckets && stripe.counts[base + i] > 0) {
+                count += stripe.counts[base + i];
+                if (stripe.sums != null) {
+                    sum += stripe.sums[base + i];
+                    sumOfSquares += stripe.sumsOfSquares[base + i];
+                }
+            }
+        }
+        totals.count = count;
+        totals.sum = sum;
+        totals.sumOfSquares = sumOfSquares;
+    }
+
+    private int find(Stripe stripe, long key) {
+        int start = (int) (key >>> 32) & slotMask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (start + probe) & slotMask;
+            if (stripe.keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int findOrClaim(Stripe stripe, long key, int bucket) {
+        int start = (int) (key >>> 32) & slotMask;
+        int free = -1;
+        int oldest = start;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (start + probe) & slotMask;
+            if (stripe.keys[slot] == key) {
+                return slot;
+            }
+            boolean unused = stripe.keys[slot] == 0 || bucket - stripe.lastBuckets[slot] >= buckets;
+            if (unused && free < 0) {
+                free = slot;
+            }
+            if (stripe.lastBuckets[slot] < stripe.lastBuckets[oldest]) {
+                oldest = slot;
+            }
+        }
+        int slot = free;
+        if (slot < 0) {
+            slot = oldest;
+            stripe.evictions++;
+        }
+        stripe.keys[slot] = key;
+        // A new entity starts with an empty window
+        int base = slot * buckets;
+        for (int i = 0; i < buckets; i++) {
+            stripe.counts[base + i] = 0;
+            if (stripe.sums != null) {
+                stripe.sums[base + i] = 0;
+                stripe.sumsOfSquares[base + i] = 0;
+            }
+        }
+        return slot;
+    }
+
+    // Spreads the bits so stripe and slot come from independent parts of the hash; 0 marks an empty slot
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93e1fa7f4e9L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+}
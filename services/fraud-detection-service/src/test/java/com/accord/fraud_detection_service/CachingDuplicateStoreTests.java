@@ -0,0 +1,43 @@
+package com.accord.fraud_detection_service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingDuplicateStoreTests {
+
+	private final List<List<String>> delegateCalls = new ArrayList<>();
+	private final InMemoryDuplicateStore backingStore = new InMemoryDuplicateStore(Duration.ofHours(1));
+	private final DuplicateStore store = new CachingDuplicateStore((keys, owners) -> {
+		delegateCalls.add(keys);
+		return backingStore.claim(keys, owners);
+	}, 100, Duration.ofMinutes(10));
+
+	@Test
+	void reportsNewKeysAndDuplicatesWithinOneBatch() {
+		assertThat(store.markSeen(List.of("a.pdf", "b.pdf", "a.pdf"), List.of("m1", "m2", "m3")))
+				.containsExactly(true, true, false);
+	}
+
+	@Test
+	void answersKnownKeysFromTheFrontCache() {
+		store.markSeen(List.of("a.pdf"), List.of("m1"));
+
+		assertThat(store.markSeen(List.of("a.pdf", "c.pdf"), List.of("m2", "m3"))).containsExactly(false, true);
+		assertThat(delegateCalls).containsExactly(List.of("a.pdf"), List.of("c.pdf"));
+	}
+
+	@Test
+	void keysStayNewForTheMessageThatOwnsThem() {
+		store.markSeen(List.of("a.pdf"), List.of("m1"));
+
+		// A redelivery of m1, e.g. after the ledger update or the acknowledgement failed
+		assertThat(store.markSeen(List.of("a.pdf"), List.of("m1"))).containsExactly(true);
+		assertThat(backingStore.markSeen(List.of("a.pdf"), List.of("m1"))).containsExactly(true);
+		assertThat(backingStore.markSeen(List.of("a.pdf"), List.of("m2"))).containsExactly(false);
+	}
+}
@@ -0,0 +1,91 @@
+package com.accord.fraud_detection_service;
+
+import com.accord.events.FraudScoredEvent;
+import com.accord.events.TransactionProcessedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FraudScorerTests {
+
+	private static final long START = 1_700_000_000_000L;
+	private static final String SNIPPET = "Statement of account for March, opening balance 1,204.17, closing balance 980.55";
+
+	private final FraudScorer scorer = new FraudScorer(new FraudScorer.Settings(1, 10, 4, 20, 3, 20, 0.5),
+			new FraudScorer.Tables(table(false), table(false), table(false), table(true), table(true)));
+	private final FraudScorer.Assessment assessment = new FraudScorer.Assessment();
+
+	@Test
+	void leavesOrdinaryUploadsUnflagged() {
+		for (int i = 0; i < 30; i++) {
+			scorer.score(event("customer-" + i + "/statement.pdf", 400_000 + i * 1000, 3 + i % 3, "Invoice " + i),
+					false, false, START + i * 1000, assessment);
+
+			assertThat(assessment.score()).isZero();
+			assertThat(scorer.shouldEmit(assessment)).isFalse();
+		}
+	}
+
+	@Test
+	void flagsUploadVelocityPerAccount() {
+		for (int i = 0; i < 15; i++) {
+			scorer.score(event("customer-1/statement-" + i + ".pdf", 400_000, 3, null), false, false, START + i, assessment);
+		}
+
+		assertThat(assessment.uploadsInWindow()).isEqualTo(15);
+		assertThat(assessment.has(FraudScorer.Reason.UPLOAD_VELOCITY)).isTrue();
+		assertThat(assessment.score()).isEqualTo(0.5);
+
+		scorer.score(event("customer-2/statement.pdf", 400_000, 3, null), false, false, START + 20, assessment);
+		assertThat(assessment.uploadsInWindow()).isEqualTo(1);
+	}
+
+	@Test
+	void flagsFileSizeAndPageCountOutliersAgainstTheBucket() {
+		for (int i = 0; i < 40; i++) {
+			scorer.score(event("customer-" + i + "/statement.pdf", 400_000 + (i % 5) * 20_000, 3 + i % 2, null),
+					false, false, START + i, assessment);
+		}
+
+		scorer.score(event("customer-x/statement.pdf", 90_000_000, 400, null), false, false, START + 100, assessment);
+
+		assertThat(assessment.has(FraudScorer.Reason.FILE_SIZE_ANOMALY)).isTrue();
+		assertThat(assessment.has(FraudScorer.Reason.PAGE_COUNT_ANOMALY)).isTrue();
+		assertThat(assessment.fileSizeZScore()).isGreaterThan(4);
+		assertThat(scorer.shouldEmit(assessment)).isTrue();
+	}
+
+	@Test
+	void flagsBurstsOfTheSameSnippet() {
+		for (int i = 0; i < 6; i++) {
+			// Whitespace and case differences do not hide a copied snippet
+			String snippet = i % 2 == 0 ? SNIPPET : SNIPPET.toUpperCase().replace(" ", "  ");
+			scorer.score(event("customer-" + i + "/statement.pdf", 400_000, 3, snippet), false, false, START + i, assessment);
+		}
+
+		assertThat(assessment.similarInWindow()).isEqualTo(5);
+		assertThat(assessment.has(FraudScorer.Reason.SNIPPET_BURST)).isTrue();
+	}
+
+	@Test
+	void turnsTheAssessmentIntoAnEvent() {
+		TransactionProcessedEvent event = event("customer-1/2024/statement.pdf", 400_000, 3, null);
+		scorer.score(event, true, false, START, assessment);
+
+		FraudScoredEvent scored = scorer.toEvent(event, assessment, Instant.ofEpochMilli(START));
+
+		assertThat(scored.accountKey()).isEqualTo("accord-evidence-bucket/customer-1");
+		assertThat(scored.score()).isEqualTo(1);
+		assertThat(scored.reasons()).containsExactly("EXACT_DUPLICATE");
+	}
+
+	private static SlidingWindowCounters table(boolean withValues) {
+		return new SlidingWindowCounters(4096, 8, 60, 10_000, withValues);
+	}
+
+	private static TransactionProcessedEvent event(String fileKey, long fileSize, int pageCount, String snippet) {
+		return new TransactionProcessedEvent("accord-evidence-bucket", fileKey, fileSize, pageCount, snippet, -1, null, null, null, null, false);
+	}
+}
@@ -0,0 +1,56 @@
+package com.accord.fraud_detection_service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LshIndexTests {
+
+	private final Random random = new Random(42);
+
+	@Test
+	void findsSignaturesAboveTheSimilarityThreshold() {
+		LshIndex index = new LshIndex(128, 16, 0.8, 100);
+		int[] original = randomSignature();
+		int[] edited = original.clone();
+		for (int i = 0; i < 10; i++) {
+			edited[i * 12] = random.nextInt();
+		}
+
+		assertThat(index.findAndAdd("statement.pdf", original)).isNull();
+		LshIndex.Match match = index.findAndAdd("statement-renamed.pdf", edited);
+
+		assertThat(match).isNotNull();
+		assertThat(match.fileKey()).isEqualTo("statement.pdf");
+		assertThat(match.similarity()).isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	void ignoresUnrelatedSignatures() {
+		LshIndex index = new LshIndex(128, 16, 0.8, 100);
+		index.findAndAdd("a.pdf", randomSignature());
+
+		assertThat(index.findAndAdd("b.pdf", randomSignature())).isNull();
+	}
+
+	@Test
+	void forgetsTheOldestSignatureWhenFull() {
+		LshIndex index = new LshIndex(128, 16, 0.8, 2);
+		int[] first = randomSignature();
+		index.findAndAdd("a.pdf", first);
+		index.findAndAdd("b.pdf", randomSignature());
+		index.findAndAdd("c.pdf", randomSignature());
+
+		assertThat(index.findAndAdd("a-again.pdf", first)).isNull();
+	}
+
+	private int[] randomSignature() {
+		int[] signature = new int[128];
+		for (int i = 0; i < signature.length; i++) {
+			signature[i] = random.nextInt();
+		}
+		return signature;
+	}
+}
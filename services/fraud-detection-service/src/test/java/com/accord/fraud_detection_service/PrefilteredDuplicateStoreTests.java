@@ -0,0 +1,76 @@
+package com.accord.fraud_detection_service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Write-throughs run on the calling thread, so each claim() has finished them when it returns
+class PrefilteredDuplicateStoreTests {
+
+	private final List<List<String>> delegateCalls = new ArrayList<>();
+	private final InMemoryDuplicateStore backingStore = new InMemoryDuplicateStore(Duration.ofHours(1));
+	private boolean failing;
+	private final DuplicateStore exactStore = (keys, owners) -> {
+		delegateCalls.add(keys);
+		if (failing) {
+			throw new IllegalStateException("exact store unavailable");
+		}
+		return backingStore.claim(keys, owners);
+	};
+
+	@Test
+	void asksTheExactStoreUntilTheFilterHasSeenAWholeRetentionPeriod() {
+		// Seen before this node started, so the empty filter cannot know it
+		backingStore.markSeen(List.of("a.pdf"), List.of("m1"));
+		DuplicateStore store = store(Duration.ofDays(1));
+
+		assertThat(store.markSeen(List.of("a.pdf", "b.pdf"), List.of("m2", "m3"))).containsExactly(false, true);
+		assertThat(delegateCalls).containsExactly(List.of("a.pdf", "b.pdf"));
+	}
+
+	@Test
+	void answersKeysTheFilterHasNeverSeenAsNewOnceWarm() {
+		DuplicateStore store = store(Duration.ZERO);
+
+		assertThat(store.markSeen(List.of("a.pdf", "b.pdf", "a.pdf"), List.of("m1", "m2", "m3")))
+				.containsExactly(true, true, false);
+		// Only the write-through of the two new keys reached the exact store
+		assertThat(delegateCalls).containsExactly(List.of("a.pdf", "b.pdf"));
+		assertThat(store.markSeen(List.of("a.pdf"), List.of("m4"))).containsExactly(false);
+	}
+
+	@Test
+	void sendsAFailedWriteThroughAgainWithTheNextOne() {
+		DuplicateStore store = store(Duration.ZERO);
+
+		failing = true;
+		assertThat(store.markSeen(List.of("a.pdf"), List.of("m1"))).containsExactly(true);
+		failing = false;
+		assertThat(store.markSeen(List.of("b.pdf"), List.of("m2"))).containsExactly(true);
+
+		assertThat(delegateCalls).containsExactly(List.of("a.pdf"), List.of("b.pdf", "a.pdf"));
+		assertThat(backingStore.markSeen(List.of("a.pdf", "b.pdf"), List.of("m3", "m3"))).containsExactly(false, false);
+	}
+
+	@Test
+	void failsTheCallWhenTheExactStoreCannotAnswer() {
+		DuplicateStore store = store(Duration.ofDays(1));
+
+		failing = true;
+		assertThatThrownBy(() -> store.markSeen(List.of("a.pdf"), List.of("m1")))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private DuplicateStore store(Duration warmUp) {
+		return new PrefilteredDuplicateStore(exactStore,
+				new RotatingBloomFilter(1_000, 0.01, Duration.ofHours(1), 24, Clock.systemUTC()), warmUp,
+				Runnable::run, new SimpleMeterRegistry());
+	}
+}
@@ -0,0 +1,69 @@
+package com.accord.fraud_detection_service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RotatingBloomFilterTests {
+
+	private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+	private final Clock clock = new Clock() {
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(java.time.ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	};
+
+	@Test
+	void neverReportsAnAddedKeyAsNew() {
+		RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, Duration.ofHours(1), 4, clock);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("statement-" + i + ".pdf");
+		}
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(filter.mightContain("statement-" + i + ".pdf")).isTrue();
+		}
+	}
+
+	@Test
+	void keepsFalsePositivesNearTheConfiguredRate() {
+		RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, Duration.ofHours(1), 4, clock);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("statement-" + i + ".pdf");
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("other-" + i + ".pdf")) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives).isLessThan(2_000);
+	}
+
+	@Test
+	void forgetsKeysOnceTheirWindowRotatesOut() {
+		RotatingBloomFilter filter = new RotatingBloomFilter(1_000, 0.01, Duration.ofHours(1), 2, clock);
+		filter.put("a.pdf");
+
+		now = now.plus(Duration.ofHours(1));
+		assertThat(filter.mightContain("a.pdf")).isTrue();
+
+		now = now.plus(Duration.ofHours(1));
+		assertThat(filter.mightContain("a.pdf")).isFalse();
+	}
+}
@@ -0,0 +1,90 @@
+package com.accord.fraud_detection_service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SlidingWindowCountersTests {
+
+	private static final long BUCKET_MILLIS = 10_000;
+	private static final long START = 1_700_000_000_000L;
+
+	@Test
+	void countsWhatWasAddedWithinTheWindow() {
+		SlidingWindowCounters counters = new SlidingWindowCounters(1024, 4, 6, BUCKET_MILLIS, false);
+		SlidingWindowCounters.Totals totals = new SlidingWindowCounters.Totals();
+
+		for (int i = 0; i < 5; i++) {
+			counters.add(42, 0, START + i * BUCKET_MILLIS, totals);
+		}
+		assertThat(totals.count()).isEqualTo(4);
+
+		counters.read(42, START + 5 * BUCKET_MILLIS, totals);
+		assertThat(totals.count()).isEqualTo(5);
+		// After six buckets the first add has left the window, after ten all of them have
+		counters.read(42, START + 6 * BUCKET_MILLIS, totals);
+		assertThat(totals.count()).isEqualTo(4);
+		counters.read(42, START + 10 * BUCKET_MILLIS, totals);
+		assertThat(totals.count()).isZero();
+	}
+
+	@Test
+	void reusesACellWhenItsBucketComesRoundAgain() {
+		SlidingWindowCounters counters = new SlidingWindowCounters(1024, 4, 6, BUCKET_MILLIS, true);
+		SlidingWindowCounters.Totals totals = new SlidingWindowCounters.Totals();
+
+		counters.add(7, 100, START, totals);
+		counters.add(7, 100, START, totals);
+		counters.add(7, 10, START + 6 * BUCKET_MILLIS, totals);
+		counters.read(7, START + 6 * BUCKET_MILLIS, totals);
+
+		assertThat(totals.count()).isEqualTo(1);
+		assertThat(totals.mean()).isEqualTo(10);
+	}
+
+	@Test
+	void keepsMeanAndStandardDeviation() {
+		SlidingWindowCounters counters = new SlidingWindowCounters(1024, 4, 6, BUCKET_MILLIS, true);
+		SlidingWindowCounters.Totals totals = new SlidingWindowCounters.Totals();
+
+		for (double value : new double[] {2, 4, 4, 4, 5, 5, 7, 9}) {
+			counters.add(1, value, START, totals);
+		}
+		counters.read(1, START, totals);
+
+		assertThat(totals.mean()).isEqualTo(5);
+		assertThat(totals.standardDeviation()).isCloseTo(2, within(1e-9));
+	}
+
+	@Test
+	void keepsEntitiesApart() {
+		SlidingWindowCounters counters = new SlidingWindowCounters(1024, 4, 6, BUCKET_MILLIS, false);
+		SlidingWindowCounters.Totals totals = new SlidingWindowCounters.Totals();
+
+		for (long entity = 1; entity <= 500; entity++) {
+			for (int i = 0; i < entity % 7; i++) {
+				counters.add(entity, 0, START, totals);
+			}
+		}
+		for (long entity = 1; entity <= 500; entity++) {
+			counters.read(entity, START, totals);
+			assertThat(totals.count()).isEqualTo(entity % 7);
+		}
+		assertThat(counters.evictions()).isZero();
+	}
+
+	@Test
+	void boundsMemoryByEvictingTheLeastRecentlyUpdated() {
+		SlidingWindowCounters counters = new SlidingWindowCounters(64, 1, 6, BUCKET_MILLIS, false);
+		SlidingWindowCounters.Totals totals = new SlidingWindowCounters.Totals();
+
+		for (long entity = 1; entity <= 1000; entity++) {
+			counters.add(entity, 0, START + entity, totals);
+		}
+		counters.read(1000, START + 1000, totals);
+
+		assertThat(totals.count()).isEqualTo(1);
+		assertThat(counters.evictions()).isPositive();
+	}
+}
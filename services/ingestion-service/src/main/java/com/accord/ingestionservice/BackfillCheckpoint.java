@@ -0,0 +1,149 @@
+package com.accord.ingestionservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Progress of a backfill job in a local JSON file, so a crashed job resumes where it stopped.
+// Items of a partition complete out of order; what is saved is the last item before the first one
+// still in flight, so a resume may redo a few files (cheap with the extraction cache, and backfill
+// events are replays the fraud service does not score) but never skips one. Failed items are appended to <file>.failed.
+class BackfillCheckpoint {
+
+    // lastKey and position describe the last item done in listing order; position is the next one to read
+    record PartitionState(boolean complete, String lastKey, long position) {}
+
+    record Snapshot(String source, Map<String, PartitionState> partitions, long processed, long failed) {}
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private final Path failedFile;
+    private final String source;
+    private final Map<String, PartitionState> saved;
+    private final Map<String, PartitionProgress> active = new ConcurrentHashMap<>();
+    private final AtomicLong processed;
+    private final AtomicLong failed;
+
+    private BackfillCheckpoint(ObjectMapper objectMapper, Path file, String source, Snapshot snapshot) {
+        this.objectMapper = objectMapper;
+        this.file = file;
+        this.failedFile = file.resolveSibling(file.getFileName() + ".failed");
+        this.source = source;
+        this.saved = new ConcurrentHashMap<>(snapshot != null ? snapshot.partitions() : Map.of());
+        this.processed = new AtomicLong(snapshot != null ? snapshot.processed() : 0);
+        this.failed = new AtomicLong(snapshot != null ? snapshot.failed() : 0);
+    }
+
+    static BackfillCheckpoint load(ObjectMapper objectMapper, Path file, String source) throws IOException {
+        if (Files.notExists(file)) {
+            return new BackfillCheckpoint(objectMapper, file, source, null);
+        }
+        Snapshot snapshot = objectMapper.readValue(file.toFile(), Snapshot.class);
+        if (!source.equals(snapshot.source())) {
+            throw new IllegalStateException("Checkpoint " + file + " belongs to " + snapshot.source()
+                    + ", not " + source + "; remove it or point app.backfill.checkpoint-file elsewhere");
+        }
+        return new BackfillCheckpoint(objectMapper, file, source, snapshot);
+    }
+
+    // Null when the partition was never started
+    PartitionState state(String partition) {
+        return saved.get(partition);
+    }
+
+    PartitionProgress start(String partition) {
+        PartitionProgress progress = new PartitionProgress(saved.get(partition));
+        active.put(partition, progress);
+        return progress;
+    }
+
+    long processed() {
+        return processed.get();
+    }
+
+    long failed() {
+        return failed.get();
+    }
+
+    void recordProcessed() {
+        processed.incrementAndGet();
+    }
+
+    synchronized void recordFailure(BackfillItem item, Throwable cause) throws IOException {
+        failed.incrementAndGet();
+        String line = "s3://" + item.bucketName() + "/" + item.objectKey() + "\t" + cause + System.lineSeparator();
+        Files.writeString(failedFile, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    synchronized void save() throws IOException {
+        active.forEach((partition, progress) -> saved.put(partition, progress.state()));
+        Snapshot snapshot = new Snapshot(source, new TreeMap<>(saved), processed.get(), failed.get());
+        // Write to a temporary file and move it into place, so a crash never leaves half a checkpoint
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(snapshot));
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Tracks the items of one partition between listing and completion, in listing order
+    static class PartitionProgress {
+
+        static final class Entry {
+            private final BackfillItem item;
+            private boolean done;
+
+            private Entry(BackfillItem item) {
+                this.item = item;
+            }
+        }
+
+        private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+        private String lastKey;
+        private long position;
+        private boolean listingDone;
+
+        private PartitionProgress(PartitionState resumeFrom) {
+            if (resumeFrom != null) {
+                this.lastKey = resumeFrom.lastKey();
+                this.position = resumeFrom.position();
+            }
+        }
+
+        synchronized Entry listed(BackfillItem item) {
+            Entry entry = new Entry(item);
+            pending.addLast(entry);
+            return entry;
+        }
+
+        synchronized void completed(Entry entry) {
+            entry.done = true;
+            while (!pending.isEmpty() && pending.peekFirst().done) {
+                BackfillItem item = pending.removeFirst().item;
+                lastKey = item.objectKey();
+                position = item.position() + 1;
+            }
+        }
+
+        synchronized void listingDone() {
+            listingDone = true;
+        }
+
+        synchronized PartitionState state() {
+            return new PartitionState(listingDone && pending.isEmpty(), lastKey, position);
+        }
+    }
+}
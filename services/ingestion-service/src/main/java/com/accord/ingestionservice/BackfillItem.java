@@ -0,0 +1,5 @@
+package com.accord.ingestionservice;
+
+// One object to reprocess. position is its index in the partition's listing order (line number
+// for inventory files), which is what the checkpoint resumes from where keys are not enough.
+record BackfillItem(String bucketName, String objectKey, String versionId, long position) {}
@@ -0,0 +1,227 @@
+package com.accord.ingestionservice;
+
+import com.accord.messaging.SnsBatchPublisher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Bulk mode: reprocesses objects that are already in S3 instead of waiting for notifications.
+// Started with the 'backfill' profile, which also turns off the SQS listener and the web server, so
+// the job runs as its own process next to the live service. Objects come from a bucket prefix or an
+// S3 Inventory manifest, are listed in parallel partitions, go through the same extraction as live
+// intake and are published in batches by the same publisher, flagged as replays so the fraud service
+// neither reports them as duplicates nor counts them as uploads. max-files-per-second keeps the job from
+// flooding the topic the live events share. Exits with status 1 if any file failed (see the .failed file).
+@Component
+@ConditionalOnProperty(name = "app.backfill.enabled", havingValue = "true")
+public class BackfillJob implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackfillJob.class);
+
+    private final S3Client s3Client;
+    private final ObjectMapper objectMapper;
+    private final EvidenceProcessor evidenceProcessor;
+    private final TransactionEventPublisher eventPublisher;
+    private final ConfigurableApplicationContext applicationContext;
+    private final String bucketName;
+    private final String prefix;
+    private final String inventoryManifest;
+    private final String suffix;
+    private final int splitDepth;
+    private final int parallelism;
+    private final int listingThreads;
+    private final long pacingNanos;
+    private final Path checkpointFile;
+    private final Duration checkpointInterval;
+    private long nextStartNanos;
+
+    public BackfillJob(S3Client s3Client, ObjectMapper objectMapper, EvidenceProcessor evidenceProcessor,
+                       TransactionEventPublisher eventPublisher, ConfigurableApplicationContext applicationContext,
+                       @Value("${app.backfill.bucket:}") String bucketName,
+                       @Value("${app.backfill.prefix:}") String prefix,
+                       @Value("${app.backfill.inventory-manifest:}") String inventoryManifest,
+                       @Value("${app.backfill.suffix:.pdf}") String suffix,
+                       @Value("${app.backfill.split-depth:2}") int splitDepth,
+                       @Value("${app.backfill.parallelism:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int parallelism,
+                       @Value("${app.backfill.listing-threads:4}") int listingThreads,
+                       @Value("${app.backfill.max-files-per-second:0}") double maxFilesPerSecond,
+                       @Value("${app.backfill.checkpoint-file:backfill-checkpoint.json}") String checkpointFile,
+                       @Value("${app.backfill.checkpoint-interval:PT10S}") Duration checkpointInterval) {
+        this.s3Client = s3Client;
+        this.objectMapper = objectMapper;
+        this.evidenceProcessor = evidenceProcessor;
+        this.eventPublisher = eventPublisher;
+        this.applicationContext = applicationContext;
+        this.bucketName = bucketName;
+        this.prefix = prefix;
+        this.inventoryManifest = inventoryManifest;
+        this.suffix = suffix;
+        this.splitDepth = splitDepth;
+        this.parallelism = parallelism;
+        this.listingThreads = listingThreads;
+        this.pacingNanos = maxFilesPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / maxFilesPerSecond) : 0;
+        this.checkpointFile = Path.of(checkpointFile);
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        boolean succeeded = runBackfill();
+        System.exit(SpringApplication.exit(applicationContext, () -> succeeded ? 0 : 1));
+    }
+
+    private boolean runBackfill() throws IOException, InterruptedException {
+        BackfillSource source = inventoryManifest.isBlank()
+                ? new S3PrefixSource(s3Client, requireBucket(), prefix, suffix, splitDepth)
+                : new InventoryManifestSource(s3Client, objectMapper, inventoryManifest, suffix);
+        BackfillCheckpoint checkpoint = BackfillCheckpoint.load(objectMapper, checkpointFile, source.description());
+        List<String> partitions = source.partitions();
+        logger.info("-----> BACKFILL: {} in {} partition(s), {} already processed, parallelism {}.",
+                source.description(), partitions.size(), checkpoint.processed(), parallelism);
+
+        // Items between listing and publication stay under this limit, so listing never runs far ahead
+        int inFlightLimit = Math.max(parallelism * 4, SnsBatchPublisher.MAX_BATCH_SIZE);
+        Semaphore inFlight = new Semaphore(inFlightLimit);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("backfill-worker-"));
+        ExecutorService listers = Executors.newFixedThreadPool(listingThreads, new CustomizableThreadFactory("backfill-lister-"));
+        ScheduledExecutorService checkpointTimer =
+                Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("backfill-checkpoint-"));
+        long startNanos = System.nanoTime();
+        long processedAtStart = checkpoint.processed();
+        checkpointTimer.scheduleWithFixedDelay(() -> saveCheckpoint(checkpoint, startNanos, processedAtStart),
+                checkpointInterval.toMillis(), checkpointInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        boolean listingFailed = false;
+        try {
+            List<Future<?>> listings = new ArrayList<>();
+            for (String partition : partitions) {
+                BackfillCheckpoint.PartitionState state = checkpoint.state(partition);
+                if (state != null && state.complete()) {
+                    continue;
+                }
+                listings.add(listers.submit(() -> {
+                    BackfillCheckpoint.PartitionProgress progress = checkpoint.start(partition);
+                    source.list(partition, state, item -> {
+                        pace();
+                        inFlight.acquire();
+                        BackfillCheckpoint.PartitionProgress.Entry entry = progress.listed(item);
+                        workers.execute(() -> process(item, checkpoint, progress, entry, inFlight));
+                    });
+                    progress.listingDone();
+                    return null;
+                }));
+            }
+            for (Future<?> listing : listings) {
+                try {
+                    listing.get();
+                } catch (ExecutionException e) {
+                    // The partition stays incomplete in the checkpoint and is listed again on the next run
+                    logger.error("Backfill listing failed", e.getCause());
+                    listingFailed = true;
+                }
+            }
+        } finally {
+            listers.shutdownNow();
+            listers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            inFlight.acquire(inFlightLimit);
+            checkpointTimer.shutdownNow();
+            saveCheckpoint(checkpoint, startNanos, processedAtStart);
+        }
+        logger.info("-----> BACKFILL FINISHED: {} file(s) processed, {} failed.", checkpoint.processed(), checkpoint.failed());
+        return !listingFailed && checkpoint.failed() == 0;
+    }
+
+    private void process(BackfillItem item, BackfillCheckpoint checkpoint, BackfillCheckpoint.PartitionProgress progress,
+                         BackfillCheckpoint.PartitionProgress.Entry entry, Semaphore inFlight) {
+        try {
+            ExtractionResult result = evidenceProcessor.extract(item.bucketName(), item.objectKey(), item.versionId());
+            eventPublisher.publish(result.toEvent(item.bucketName(), item.objectKey(), true))
+                    .whenComplete((ignored, e) -> {
+                        if (e != null) {
+                            fail(item, e, checkpoint, progress, entry, inFlight);
+                        } else {
+                            checkpoint.recordProcessed();
+                            done(progress, entry, inFlight);
+                        }
+                    });
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            fail(item, e, checkpoint, progress, entry, inFlight);
+        }
+    }
+
+    private void fail(BackfillItem item, Throwable cause, BackfillCheckpoint checkpoint,
+                      BackfillCheckpoint.PartitionProgress progress, BackfillCheckpoint.PartitionProgress.Entry entry,
+                      Semaphore inFlight) {
+        logger.error("Backfill failed for s3://{}/{}", item.bucketName(), item.objectKey(), cause);
+        try {
+            checkpoint.recordFailure(item, cause);
+        } catch (IOException e) {
+            logger.error("Could not record backfill failure for {}", item.objectKey(), e);
+        }
+        done(progress, entry, inFlight);
+    }
+
+    private static void done(BackfillCheckpoint.PartitionProgress progress, BackfillCheckpoint.PartitionProgress.Entry entry,
+                             Semaphore inFlight) {
+        progress.completed(entry);
+        inFlight.release();
+    }
+
+    // Spaces out file starts to honour max-files-per-second
+    private synchronized void pace() throws InterruptedException {
+        if (pacingNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (nextStartNanos > now) {
+            TimeUnit.NANOSECONDS.sleep(nextStartNanos - now);
+        }
+        nextStartNanos = Math.max(now, nextStartNanos) + pacingNanos;
+    }
+
+    private void saveCheckpoint(BackfillCheckpoint checkpoint, long startNanos, long processedAtStart) {
+        try {
+            checkpoint.save();
+        } catch (IOException e) {
+            logger.error("Could not save backfill checkpoint {}", checkpointFile, e);
+            return;
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        logger.info("-----> BACKFILL: {} processed, {} failed, {} files/s.", checkpoint.processed(), checkpoint.failed(),
+                String.format("%.1f", (checkpoint.processed() - processedAtStart) / seconds));
+    }
+
+    private String requireBucket() {
+        if (bucketName.isBlank()) {
+            throw new IllegalArgumentException("Set app.backfill.bucket (and app.backfill.prefix) or app.backfill.inventory-manifest");
+        }
+        return bucketName;
+    }
+}
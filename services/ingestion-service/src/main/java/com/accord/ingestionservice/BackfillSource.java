@@ -0,0 +1,24 @@
+package com.accord.ingestionservice;
+
+import java.io.IOException;
+import java.util.List;
+
+// Where a backfill job's objects come from. The work is cut into partitions that are listed
+// independently, in parallel, and list their items in a stable order, so progress inside a
+// partition can be checkpointed as a position and resumed from there.
+interface BackfillSource {
+
+    // Identifies the job; a checkpoint is only resumed by the same source
+    String description();
+
+    List<String> partitions() throws IOException;
+
+    // Lists the partition's items in order, starting after resumeFrom (null for a fresh partition)
+    void list(String partition, BackfillCheckpoint.PartitionState resumeFrom, ItemSink sink)
+            throws IOException, InterruptedException;
+
+    @FunctionalInterface
+    interface ItemSink {
+        void accept(BackfillItem item) throws InterruptedException;
+    }
+}
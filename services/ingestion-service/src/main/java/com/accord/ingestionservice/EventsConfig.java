@@ -0,0 +1,24 @@
+package com.accord.ingestionservice;
+
+import com.accord.events.EventCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awspring.cloud.autoconfigure.core.AwsClientBuilderConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+
+@Configuration
+public class EventsConfig {
+
+    @Bean
+    public EventCodec eventCodec(ObjectMapper objectMapper) {
+        return new EventCodec(objectMapper);
+    }
+
+    // Only the blocking SnsClient is auto-configured; the configurer gives the async one the same
+    // region, credentials and endpoint settings.
+    @Bean(destroyMethod = "close")
+    public SnsAsyncClient snsAsyncClient(AwsClientBuilderConfigurer awsClientBuilderConfigurer) {
+        return awsClientBuilderConfigurer.configure(SnsAsyncClient.builder()).build();
+    }
+}
@@ -0,0 +1,245 @@
+package com.accord.ingestionservice;
+
+import io.micrometer.core.instrument.Timer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+// Downloads one evidence PDF, extracts its text and hands the resulting event to the publisher.
+// Called from the pdf worker pool, so everything in here must be thread-safe.
+@Component
+public class EvidenceProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(EvidenceProcessor.class);
+
+    private final S3Client s3Client;
+    private final TransactionEventPublisher eventPublisher;
+    private final PdfTextExtractor pdfTextExtractor;
+    private final ParallelPdfTextExtractor parallelPdfTextExtractor;
+    private final RangedSpoolFetcher rangedSpoolFetcher;
+    private final PipelineMetrics pipelineMetrics;
+    private final ExtractionCache extractionCache;
+    private final int snippetLength;
+    private final boolean collectTextStats;
+    private final boolean fingerprintEnabled;
+    private final int minHashSize;
+    private final int shingleSize;
+    private final TransactionRules transactionRules;
+    private final boolean extractTransactions;
+    private final int maxTransactionLines;
+    private final int maxTransactionBytes;
+    // PDF parsing is CPU and memory heavy, so it is limited separately from the worker pool size.
+    private final Semaphore parsePermits;
+    // Part of every cache key: results extracted with other settings are not reused
+    private final String extractionSettings;
+
+    public EvidenceProcessor(S3Client s3Client, TransactionEventPublisher eventPublisher,
+                             PdfTextExtractor pdfTextExtractor,
+                             ParallelPdfTextExtractor parallelPdfTextExtractor,
+                             RangedSpoolFetcher rangedSpoolFetcher,
+                             PipelineMetrics pipelineMetrics,
+                             ExtractionCache extractionCache,
+                             TransactionRules transactionRules,
+                             @Value("${app.pdf.snippet-length:500}") int snippetLength,
+                             @Value("${app.pdf.text-stats.enabled:false}") boolean collectTextStats,
+                             @Value("${app.fingerprint.enabled:true}") boolean fingerprintEnabled,
+                             @Value("${app.fingerprint.minhash-size:128}") int minHashSize,
+                             @Value("${app.fingerprint.shingle-size:3}") int shingleSize,
+                             @Value("${app.pdf.transactions.enabled:true}") boolean extractTransactions,
+                             @Value("${app.pdf.transactions.max-lines:1000}") int maxTransactionLines,
+                             @Value("${app.pdf.transactions.max-bytes:16384}") int maxTransactionBytes,
+                             @Value("${app.ingestion.max-concurrent-parses:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int maxConcurrentParses) {
+        this.s3Client = s3Client;
+        this.eventPublisher = eventPublisher;
+        this.pdfTextExtractor = pdfTextExtractor;
+        this.parallelPdfTextExtractor = parallelPdfTextExtractor;
+        this.rangedSpoolFetcher = rangedSpoolFetcher;
+        this.pipelineMetrics = pipelineMetrics;
+        this.extractionCache = extractionCache;
+        this.snippetLength = snippetLength;
+        this.collectTextStats = collectTextStats;
+        this.fingerprintEnabled = fingerprintEnabled;
+        this.minHashSize = minHashSize;
+        this.shingleSize = shingleSize;
+        this.transactionRules = transactionRules;
+        this.extractTransactions = extractTransactions;
+        this.maxTransactionLines = maxTransactionLines;
+        this.maxTransactionBytes = maxTransactionBytes;
+        this.parsePermits = new Semaphore(maxConcurrentParses);
+        this.extractionSettings = "snippet=" + snippetLength + ",stats=" + collectTextStats
+                + ",minhash=" + (fingerprintEnabled ? minHashSize + "x" + shingleSize : "off")
+                + ",transactions=" + (extractTransactions
+                        ? maxTransactionLines + "/" + maxTransactionBytes + "/" + transactionRules.dateOrder : "off");
+    }
+
+    // Returns once the event is buffered for publishing, with the PDF already closed and its spool file
+    // deleted (and unmapped); the future completes when SNS accepted the event. eTag and size are the ones the
+    // S3 notification announced (null and -1 when it had none) and save a HeadObject per object.
+    public CompletableFuture<Void> processPdfAndPublishEvent(String bucketName, String objectKey, String versionId,
+                                                             String eTag, long size)
+            throws IOException, InterruptedException {
+        logger.info("-----> Attempting to stream, parse, and publish event for s3://{}/{}", bucketName, objectKey);
+        ExtractionResult result = extract(bucketName, objectKey, versionId, eTag, size);
+        return eventPublisher.publish(result.toEvent(bucketName, objectKey, false));
+    }
+
+    // Extraction without publishing, shared with the backfill job. versionId may be null.
+    public ExtractionResult extract(String bucketName, String objectKey, String versionId)
+            throws IOException, InterruptedException {
+        return extract(bucketName, objectKey, versionId, null, -1);
+    }
+
+    private ExtractionResult extract(String bucketName, String objectKey, String versionId, String eTag, long size)
+            throws IOException, InterruptedException {
+        GetObjectRequest.Builder getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .versionId(versionId);
+        if (!extractionCache.isEnabled() && !rangedSpoolFetcher.isEnabled()) {
+            return downloadAndExtract(objectKey, getObjectRequest.build(), -1);
+        }
+
+        // The version and its size tell whether a cached result saves the download and the parse, and whether
+        // the ranged fetch stage takes the object. Without them from the notification, HeadObject looks them up.
+        if (eTag == null) {
+            Timer.Sample s3Head = pipelineMetrics.startTimer();
+            HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .versionId(versionId)
+                    .build());
+            s3Head.stop(pipelineMetrics.s3Head());
+            versionId = head.versionId();
+            eTag = head.eTag();
+            size = head.contentLength();
+        } else if (!eTag.startsWith("\"")) {
+            // Notifications carry the ETag without the quotes HeadObject returns it with
+            eTag = "\"" + eTag + "\"";
+        }
+        // ifMatch makes sure the bytes we parse are the version the result is cached under,
+        // and that all ranges of a ranged fetch come from that same version.
+        GetObjectRequest versionedRequest = getObjectRequest.ifMatch(eTag).build();
+        if (!extractionCache.isEnabled()) {
+            return downloadAndExtract(objectKey, versionedRequest, size);
+        }
+        ExtractionKey cacheKey = ExtractionKey.of(bucketName, objectKey, versionId, eTag, extractionSettings);
+        ExtractionResult result = extractionCache.get(cacheKey);
+        if (result != null) {
+            logger.info("-----> Extraction of {} ({}) found in cache, skipping download.", objectKey, cacheKey.version());
+            return result;
+        }
+        result = downloadAndExtract(objectKey, versionedRequest, size);
+        extractionCache.put(cacheKey, result);
+        return result;
+    }
+
+    // objectSize is -1 when it is not known
+    private ExtractionResult downloadAndExtract(String objectKey, GetObjectRequest getObjectRequest, long objectSize)
+            throws IOException, InterruptedException {
+        if (rangedSpoolFetcher.shouldHandle(objectSize)) {
+            // Large objects: parallel ranged GetObjects into a mapped spool file, read by PDFBox through the mapping
+            Timer.Sample s3Fetch = pipelineMetrics.startTimer();
+            try (MappedSpoolFile spoolFile = rangedSpoolFetcher.fetch(getObjectRequest, objectSize)) {
+                s3Fetch.stop(pipelineMetrics.s3Fetch());
+                return parse(objectKey, spoolFile.length(), spoolFile.sha256(),
+                        () -> pdfTextExtractor.load(spoolFile.newReader()));
+            }
+        }
+
+        // The object is spooled to a local file first: PDFBox can then read it lazily instead of buffering
+        // the stream, and the parallel engine can open several views of the same document.
+        Path spoolFile = pdfTextExtractor.createSpoolFile();
+        try {
+            // The content hash is computed on the bytes as they are spooled, so the object is read only once.
+            long fileSize;
+            MessageDigest sha256 = newSha256();
+            Timer.Sample s3Fetch = pipelineMetrics.startTimer();
+            try (ResponseInputStream<GetObjectResponse> s3Stream = s3Client.getObject(getObjectRequest);
+                 DigestInputStream digestStream = new DigestInputStream(s3Stream, sha256)) {
+                fileSize = Files.copy(digestStream, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            s3Fetch.stop(pipelineMetrics.s3Fetch());
+            String contentSha256 = HexFormat.of().formatHex(sha256.digest());
+            return parse(objectKey, fileSize, contentSha256, () -> pdfTextExtractor.load(spoolFile.toFile()));
+        } finally {
+            Files.deleteIfExists(spoolFile);
+        }
+    }
+
+    private ExtractionResult parse(String objectKey, long fileSize, String contentSha256, PdfSource pdfSource)
+            throws IOException, InterruptedException {
+        parsePermits.acquire();
+        Timer.Sample pdfLoad = pipelineMetrics.startTimer();
+        try (PDDocument pdfDocument = pdfSource.open()) {
+            pdfLoad.stop(pipelineMetrics.pdfLoad());
+            int pageCount = pdfDocument.getNumberOfPages();
+            SnippetCollector snippetCollector = new SnippetCollector(snippetLength);
+            // Text stats, the fingerprint and the transaction lines need every page, so leaving them
+            // off lets the sequential engine stop after the snippet.
+            TextStatsCollector textStats = collectTextStats ? new TextStatsCollector(pageCount) : null;
+            MinHashFingerprinter fingerprinter = fingerprintEnabled ? new MinHashFingerprinter(minHashSize, shingleSize) : null;
+            TransactionLineExtractor transactionLines = extractTransactions
+                    ? new TransactionLineExtractor(transactionRules, maxTransactionLines, maxTransactionBytes) : null;
+            List<PageTextConsumer> consumers = new ArrayList<>(4);
+            consumers.add(snippetCollector);
+            if (textStats != null) {
+                consumers.add(textStats);
+            }
+            if (fingerprinter != null) {
+                consumers.add(fingerprinter);
+            }
+            if (transactionLines != null) {
+                consumers.add(transactionLines);
+            }
+
+            int pagesStripped;
+            Timer.Sample textExtraction = pipelineMetrics.startTimer();
+            if (parallelPdfTextExtractor.shouldHandle(pageCount)) {
+                pagesStripped = parallelPdfTextExtractor.extract(pdfSource, pageCount, consumers);
+            } else {
+                pagesStripped = pdfTextExtractor.extract(pdfDocument, consumers);
+            }
+            textExtraction.stop(pipelineMetrics.textExtraction());
+            pipelineMetrics.recordDocument(fileSize, pagesStripped);
+            long textLength = textStats != null ? textStats.textLength() : -1;
+            logger.info("-----> PDF {} processed. Stripped {} of {} page(s), {} characters.",
+                    objectKey, pagesStripped, pageCount, textLength);
+
+            return new ExtractionResult(fileSize, pageCount, snippetCollector.snippet(), textLength,
+                    textStats != null ? textStats.pageCharCounts() : null,
+                    contentSha256, fingerprinter != null ? fingerprinter.signature() : null,
+                    transactionLines != null ? transactionLines.transactionLines() : null);
+        } finally {
+            parsePermits.release();
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available in this JVM", e);
+        }
+    }
+}
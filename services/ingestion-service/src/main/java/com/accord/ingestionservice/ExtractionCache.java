@@ -0,0 +1,173 @@
+package com.accord.ingestionservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Extraction results by object version, so a redelivered, retried or replayed object costs a
+// HeadObject instead of a download and a parse.
+// The memory tier is a Caffeine cache (W-TinyLFU admission) bounded by the approximate size of its
+// entries. The optional disk tier keeps results across restarts as small JSON files, which is what
+// replay and backfill runs need; it is pruned to max-entries, oldest files first.
+@Component
+public class ExtractionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionCache.class);
+    private static final int PRUNE_EVERY_WRITES = 1_000;
+
+    private final ObjectMapper objectMapper;
+    private final PipelineMetrics pipelineMetrics;
+    private final boolean enabled;
+    private final Cache<ExtractionKey, ExtractionResult> memory;
+    private final Path diskDirectory;
+    private final int diskMaxEntries;
+    private final AtomicInteger diskWritesSincePrune = new AtomicInteger();
+
+    public ExtractionCache(ObjectMapper objectMapper, PipelineMetrics pipelineMetrics,
+                           @Value("${app.extraction-cache.enabled:true}") boolean enabled,
+                           @Value("${app.extraction-cache.maximum-weight-bytes:67108864}") long maximumWeightBytes,
+                           @Value("${app.extraction-cache.disk.directory:}") String diskDirectory,
+                           @Value("${app.extraction-cache.disk.max-entries:100000}") int diskMaxEntries) throws IOException {
+        this.objectMapper = objectMapper;
+        this.pipelineMetrics = pipelineMetrics;
+        this.enabled = enabled;
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(maximumWeightBytes)
+                .weigher((ExtractionKey key, ExtractionResult result) -> result.approximateBytes())
+                .build();
+        this.diskDirectory = enabled && !diskDirectory.isBlank() ? Files.createDirectories(Path.of(diskDirectory)) : null;
+        this.diskMaxEntries = diskMaxEntries;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Returns null on a miss in both tiers
+    public ExtractionResult get(ExtractionKey key) {
+        ExtractionResult result = memory.getIfPresent(key);
+        if (result != null) {
+            pipelineMetrics.recordExtractionCache("memory_hit");
+            return result;
+        }
+        if (diskDirectory != null) {
+            result = readFromDisk(key);
+            if (result != null) {
+                memory.put(key, result);
+                pipelineMetrics.recordExtractionCache("disk_hit");
+                return result;
+            }
+        }
+        pipelineMetrics.recordExtractionCache("miss");
+        return null;
+    }
+
+    public void put(ExtractionKey key, ExtractionResult result) {
+        memory.put(key, result);
+        if (diskDirectory != null) {
+            writeToDisk(key, result);
+        }
+    }
+
+    private ExtractionResult readFromDisk(ExtractionKey key) {
+        Path file = diskPath(key);
+        if (Files.notExists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), ExtractionResult.class);
+        } catch (IOException e) {
+            // A truncated or outdated file is just a miss; drop it so it gets rewritten
+            logger.warn("Discarding unreadable extraction cache file {}", file, e);
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    private void writeToDisk(ExtractionKey key, ExtractionResult result) {
+        Path file = diskPath(key);
+        try {
+            // Write to a temporary file and move it into place, so readers never see half a file
+            Path temporary = Files.createTempFile(diskDirectory, "extraction-", ".tmp");
+            Files.write(temporary, objectMapper.writeValueAsBytes(result));
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write extraction cache file {}", file, e);
+            return;
+        }
+        if (diskWritesSincePrune.incrementAndGet() >= PRUNE_EVERY_WRITES) {
+            diskWritesSincePrune.set(0);
+            pruneDisk();
+        }
+    }
+
+    private void pruneDisk() {
+        try (Stream<Path> files = Files.list(diskDirectory)) {
+            List<Path> entries = files.filter(file -> file.getFileName().toString().endsWith(".json")).toList();
+            int excess = entries.size() - diskMaxEntries;
+            if (excess <= 0) {
+                return;
+            }
+            entries.stream()
+                    .sorted(Comparator.comparing(ExtractionCache::lastModified))
+                    .limit(excess)
+                    .forEach(ExtractionCache::deleteQuietly);
+            logger.info("-----> Pruned {} extraction cache file(s) from {}", excess, diskDirectory);
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Could not prune extraction cache directory {}", diskDirectory, e);
+        }
+    }
+
+    private Path diskPath(ExtractionKey key) {
+        String identity = String.join("\n", key.bucketName(), key.objectKey(), key.version(), key.settings());
+        return diskDirectory.resolve(HexFormat.of().formatHex(sha256(identity)) + ".json");
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available in this JVM", e);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete extraction cache file {}", file, e);
+        }
+    }
+}
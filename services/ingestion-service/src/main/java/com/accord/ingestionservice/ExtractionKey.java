@@ -0,0 +1,14 @@
+package com.accord.ingestionservice;
+
+// Identifies one version of an S3 object and the extraction settings its result was produced with,
+// so a changed snippet length or fingerprint size never serves results computed the old way.
+// version is the S3 versionId when the bucket is versioned, otherwise the ETag.
+public record ExtractionKey(String bucketName, String objectKey, String version, String settings) {
+
+    static ExtractionKey of(String bucketName, String objectKey, String versionId, String eTag, String settings) {
+        String version = versionId != null && !versionId.isEmpty() && !"null".equals(versionId)
+                ? "version:" + versionId
+                : "etag:" + eTag;
+        return new ExtractionKey(bucketName, objectKey, version, settings);
+    }
+}
@@ -0,0 +1,44 @@
+package com.accord.ingestionservice;
+
+import com.accord.events.TransactionLines;
+import com.accord.events.TransactionProcessedEvent;
+
+// What extraction produced for one version of an S3 object; everything on the event except where it came from.
+public record ExtractionResult(
+        long fileSize,
+        int pageCount,
+        String textSnippet,
+        long textLength,
+        int[] pageCharCounts,
+        String contentSha256,
+        int[] minHashSignature,
+        TransactionLines transactionLines
+) {
+
+    public TransactionProcessedEvent toEvent(String bucketName, String objectKey, boolean replay) {
+        return new TransactionProcessedEvent(bucketName, objectKey, fileSize, pageCount, textSnippet, textLength,
+                pageCharCounts, contentSha256, minHashSignature, transactionLines, replay);
+    }
+
+    // Rough heap footprint, used to bound the in-memory cache by size rather than entry count
+    int approximateBytes() {
+        return 128
+                + (textSnippet != null ? textSnippet.length() * 2 : 0)
+                + (pageCharCounts != null ? pageCharCounts.length * 4 : 0)
+                + (contentSha256 != null ? contentSha256.length() * 2 : 0)
+                + (minHashSignature != null ? minHashSignature.length * 4 : 0)
+                + (transactionLines != null ? approximateBytes(transactionLines) : 0);
+    }
+
+    // The columns plus the strings they point to
+    private static int approximateBytes(TransactionLines lines) {
+        int bytes = 64 + lines.size() * (4 + 8 + 4 + 8 + 4);
+        for (String counterparty : lines.counterpartyDictionary()) {
+            bytes += 48 + counterparty.length() * 2;
+        }
+        for (String reference : lines.references()) {
+            bytes += reference != null ? 48 + reference.length() * 2 : 0;
+        }
+        return bytes;
+    }
+}
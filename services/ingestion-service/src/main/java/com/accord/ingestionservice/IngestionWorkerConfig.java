@@ -0,0 +1,48 @@
+package com.accord.ingestionservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class IngestionWorkerConfig {
+
+    // Bounded pool shared by every S3 record in a received batch.
+    // When the queue is full the submitting listener thread runs the task itself,
+    // which stops it from asking the SQS poller for more work (backpressure).
+    @Bean
+    public ExecutorService pdfWorkerExecutor(
+            @Value("${app.ingestion.worker-threads:#{2 * T(java.lang.Runtime).getRuntime().availableProcessors()}}") int workerThreads,
+            @Value("${app.ingestion.worker-queue-capacity:100}") int queueCapacity) {
+        return new ThreadPoolExecutor(
+                workerThreads,
+                workerThreads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("pdf-worker-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Connections for the ranged fetch stage, shared by all documents; every range also holds a connection
+    // of the S3 client's pool while it downloads.
+    @Bean
+    public ExecutorService rangedFetchExecutor(@Value("${app.pdf.ranged-fetch.threads:8}") int threads) {
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("s3-range-"));
+    }
+
+    // Workers for the parallel page-range engine; kept apart from the pdf worker pool so that
+    // long documents can use idle cores without starving the per-file workers.
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool pageExtractionPool(
+            @Value("${app.pdf.parallel.workers:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int workers) {
+        return new ForkJoinPool(workers);
+    }
+}
@@ -0,0 +1,131 @@
+package com.accord.ingestionservice;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+// Reads the objects to process from an S3 Inventory report instead of listing the bucket, which is
+// much cheaper for millions of keys. The manifest (s3://bucket/.../manifest.json) names the gzipped
+// CSV data files; each data file is a partition, resumed by line number. Only the CSV format is supported.
+class InventoryManifestSource implements BackfillSource {
+
+    private static final String S3_SCHEME = "s3://";
+    private static final String BUCKET_ARN_PREFIX = "arn:aws:s3:::";
+
+    private final S3Client s3Client;
+    private final ObjectMapper objectMapper;
+    private final String manifestUri;
+    private final String suffix;
+    private String sourceBucket;
+    private String destinationBucket;
+    private List<String> fileSchema;
+
+    InventoryManifestSource(S3Client s3Client, ObjectMapper objectMapper, String manifestUri, String suffix) {
+        this.s3Client = s3Client;
+        this.objectMapper = objectMapper;
+        this.manifestUri = manifestUri;
+        this.suffix = suffix;
+    }
+
+    @Override
+    public String description() {
+        return manifestUri;
+    }
+
+    @Override
+    public List<String> partitions() throws IOException {
+        if (!manifestUri.startsWith(S3_SCHEME)) {
+            throw new IllegalArgumentException("Inventory manifest must be an s3:// URI: " + manifestUri);
+        }
+        String location = manifestUri.substring(S3_SCHEME.length());
+        int slash = location.indexOf('/');
+        JsonNode manifest;
+        try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(GetObjectRequest.builder()
+                .bucket(location.substring(0, slash))
+                .key(location.substring(slash + 1))
+                .build())) {
+            manifest = objectMapper.readTree(in);
+        }
+        if (!"CSV".equalsIgnoreCase(manifest.path("fileFormat").asText())) {
+            throw new IllegalArgumentException("Unsupported inventory format " + manifest.path("fileFormat").asText()
+                    + ", only CSV is supported");
+        }
+        sourceBucket = manifest.path("sourceBucket").asText();
+        destinationBucket = manifest.path("destinationBucket").asText().replace(BUCKET_ARN_PREFIX, "");
+        fileSchema = Arrays.stream(manifest.path("fileSchema").asText().split(",")).map(String::trim).toList();
+
+        List<String> partitions = new ArrayList<>();
+        manifest.path("files").forEach(file -> partitions.add(file.path("key").asText()));
+        return partitions;
+    }
+
+    @Override
+    public void list(String partition, BackfillCheckpoint.PartitionState resumeFrom, ItemSink sink)
+            throws IOException, InterruptedException {
+        int bucketColumn = fileSchema.indexOf("Bucket");
+        int keyColumn = fileSchema.indexOf("Key");
+        int versionColumn = fileSchema.indexOf("VersionId");
+        int latestColumn = fileSchema.indexOf("IsLatest");
+        int deleteMarkerColumn = fileSchema.indexOf("IsDeleteMarker");
+        long skip = resumeFrom != null ? resumeFrom.position() : 0;
+
+        try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(GetObjectRequest.builder()
+                .bucket(destinationBucket)
+                .key(partition)
+                .build());
+             BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(in), StandardCharsets.UTF_8))) {
+            long position = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine(), position++) {
+                if (position < skip) {
+                    continue;
+                }
+                String[] columns = parseCsvLine(line);
+                // Reports with versions list every version; only the current one is reprocessed
+                if (latestColumn >= 0 && !"true".equals(columns[latestColumn])
+                        || deleteMarkerColumn >= 0 && "true".equals(columns[deleteMarkerColumn])) {
+                    continue;
+                }
+                String key = URLDecoder.decode(columns[keyColumn], StandardCharsets.UTF_8);
+                if (!key.endsWith(suffix)) {
+                    continue;
+                }
+                String bucket = bucketColumn >= 0 ? columns[bucketColumn] : sourceBucket;
+                String versionId = versionColumn >= 0 && !columns[versionColumn].isEmpty() ? columns[versionColumn] : null;
+                sink.accept(new BackfillItem(bucket, key, versionId, position));
+            }
+        }
+    }
+
+    // Inventory CSV quotes every field; keys are URL-encoded, so they contain no quotes or commas
+    static String[] parseCsvLine(String line) {
+        String[] columns = line.split("\",\"", -1);
+        if (columns.length > 0) {
+            columns[0] = stripQuote(columns[0], true);
+            columns[columns.length - 1] = stripQuote(columns[columns.length - 1], false);
+        }
+        return columns;
+    }
+
+    private static String stripQuote(String column, boolean leading) {
+        if (leading && column.startsWith("\"")) {
+            return column.substring(1);
+        }
+        if (!leading && column.endsWith("\"")) {
+            return column.substring(0, column.length() - 1);
+        }
+        return column;
+    }
+}
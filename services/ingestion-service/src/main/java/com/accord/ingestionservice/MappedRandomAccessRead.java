@@ -0,0 +1,147 @@
+package com.accord.ingestionservice;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// PDFBox's random-access view of a MappedSpoolFile. Reads are absolute gets on the shared mapped
+// chunks, so any number of readers can work on the same mapping at once; only the position is
+// per reader. Not thread-safe itself, like every RandomAccessRead.
+class MappedRandomAccessRead implements RandomAccessRead {
+
+    private final ByteBuffer[] chunks;
+    private final int chunkShift;
+    private final long chunkMask;
+    private final long length;
+    private final Runnable onClose;
+    private long position;
+    private boolean closed;
+
+    MappedRandomAccessRead(ByteBuffer[] chunks, int chunkShift, long length, Runnable onClose) {
+        this.chunks = chunks;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.length = length;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        if (position >= length) {
+            return -1;
+        }
+        byte value = chunks[(int) (position >>> chunkShift)].get((int) (position & chunkMask));
+        position++;
+        return value & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException {
+        checkClosed();
+        if (length == 0) {
+            return 0;
+        }
+        if (position >= this.length) {
+            return -1;
+        }
+        int total = 0;
+        while (total < length && position < this.length) {
+            ByteBuffer chunk = chunks[(int) (position >>> chunkShift)];
+            int index = (int) (position & chunkMask);
+            int count = Math.min(length - total, chunk.limit() - index);
+            chunk.get(index, b, offset + total, count);
+            total += count;
+            position += count;
+        }
+        return total;
+    }
+
+    @Override
+    public long getPosition() throws IOException {
+        checkClosed();
+        return position;
+    }
+
+    // Like PDFBox's own readers, seeking past the end is allowed and reads then return -1
+    @Override
+    public void seek(long position) throws IOException {
+        checkClosed();
+        if (position < 0) {
+            throw new IOException("Invalid position " + position);
+        }
+        this.position = position;
+    }
+
+    @Override
+    public long length() throws IOException {
+        checkClosed();
+        return length;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public int peek() throws IOException {
+        int value = read();
+        if (value != -1) {
+            position--;
+        }
+        return value;
+    }
+
+    @Override
+    public void rewind(int bytes) throws IOException {
+        seek(position - bytes);
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int total = 0;
+        while (total < length) {
+            int count = read(bytes, total, length - total);
+            if (count == -1) {
+                throw new EOFException("Premature end of spool file after " + total + " of " + length + " bytes");
+            }
+            total += count;
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException {
+        checkClosed();
+        return position >= length;
+    }
+
+    @Override
+    public int available() throws IOException {
+        checkClosed();
+        return (int) Math.min(Math.max(0, length - position), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            onClose.run();
+        }
+    }
+
+    private void checkClosed() throws IOException {
+        if (closed) {
+            throw new IOException("Mapped spool file reader is already closed");
+        }
+    }
+}
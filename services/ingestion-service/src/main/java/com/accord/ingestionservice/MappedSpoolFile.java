@@ -0,0 +1,154 @@
+package com.accord.ingestionservice;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// A completely fetched spool file, mapped read-only in chunks of up to 1 GiB (a MappedByteBuffer is
+// int-indexed). Readers are independent RandomAccessRead views on the same mapping, so PDFBox and
+// every task of the parallel engine read the document straight from the page cache.
+// close() unmaps the file, deletes it and runs onClose (the quota release) right away, so cleanup does
+// not wait for the GC; only if a reader is still open the unmapping is left to the GC, since touching
+// an unmapped buffer would crash the JVM.
+class MappedSpoolFile implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedSpoolFile.class);
+    private static final int DEFAULT_CHUNK_SHIFT = 30;
+    private static final MethodHandle INVOKE_CLEANER = lookupCleaner();
+
+    private final Path path;
+    private final long length;
+    private final int chunkShift;
+    private final ByteBuffer[] chunks;
+    private final Runnable onClose;
+    private int openReaders;
+    private boolean closed;
+
+    private MappedSpoolFile(Path path, long length, int chunkShift, ByteBuffer[] chunks, Runnable onClose) {
+        this.path = path;
+        this.length = length;
+        this.chunkShift = chunkShift;
+        this.chunks = chunks;
+        this.onClose = onClose;
+    }
+
+    static MappedSpoolFile map(Path path, Runnable onClose) throws IOException {
+        return map(path, DEFAULT_CHUNK_SHIFT, onClose);
+    }
+
+    // chunkShift only differs from the default in tests, to cross chunk boundaries with small files
+    static MappedSpoolFile map(Path path, int chunkShift, Runnable onClose) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long chunkSize = 1L << chunkShift;
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((length + chunkSize - 1) >>> chunkShift)];
+            for (int i = 0; i < chunks.length; i++) {
+                long offset = (long) i << chunkShift;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(chunkSize, length - offset));
+            }
+            // The mapping stays valid after the channel is closed
+            return new MappedSpoolFile(path, length, chunkShift, chunks, onClose);
+        }
+    }
+
+    long length() {
+        return length;
+    }
+
+    synchronized RandomAccessRead newReader() {
+        if (closed) {
+            throw new IllegalStateException("Spool file " + path + " is already closed");
+        }
+        openReaders++;
+        return new MappedRandomAccessRead(chunks, chunkShift, length, this::readerClosed);
+    }
+
+    // One sequential pass over the mapping; the ranges were written in parallel, out of order
+    synchronized String sha256() {
+        if (closed) {
+            throw new IllegalStateException("Spool file " + path + " is already closed");
+        }
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available in this JVM", e);
+        }
+        for (ByteBuffer chunk : chunks) {
+            sha256.update(chunk.duplicate());
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    private synchronized void readerClosed() {
+        openReaders--;
+    }
+
+    @Override
+    public void close() throws IOException {
+        int readers;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            readers = openReaders;
+        }
+        try {
+            if (readers == 0) {
+                unmap();
+            } else {
+                logger.warn("Spool file {} closed with {} reader(s) still open, leaving the unmapping to the GC", path, readers);
+            }
+            Files.deleteIfExists(path);
+        } finally {
+            onClose.run();
+        }
+    }
+
+    private void unmap() {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            try {
+                INVOKE_CLEANER.invokeExact(chunks[i]);
+            } catch (Throwable e) {
+                logger.warn("Could not unmap spool file {}", path, e);
+                return;
+            } finally {
+                chunks[i] = null;
+            }
+        }
+    }
+
+    // sun.misc.Unsafe.invokeCleaner is the only way to release a mapping before the buffer is collected
+    private static MethodHandle lookupCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.info("Mapped spool files will be unmapped by the GC: {}", e.toString());
+            return null;
+        }
+    }
+}
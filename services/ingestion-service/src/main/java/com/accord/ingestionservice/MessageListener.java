@@ -1,24 +1,28 @@
 package com.accord.ingestionservice;
 
+import com.accord.messaging.LedgerSettlement;
+import com.accord.messaging.ProcessingLedger;
+import com.accord.messaging.VisibilityBackoff;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.awspring.cloud.sns.core.SnsTemplate;
 import io.awspring.cloud.sqs.annotation.SqsListener;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.messaging.Message;
-import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
-import software.amazon.awssdk.core.ResponseInputStream;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 @Component
 public class MessageListener {
@@ -26,63 +30,191 @@ public class MessageListener {
     private static final Logger logger = LoggerFactory.getLogger(MessageListener.class);
 
     private final ObjectMapper objectMapper;
-    private final S3Client s3Client;
-    private final SnsTemplate snsTemplate;
-    private final String topicArn;
+    private final EvidenceProcessor evidenceProcessor;
+    private final ExecutorService pdfWorkerExecutor;
+    private final PipelineMetrics pipelineMetrics;
+    private final ProcessingLedger processingLedger;
+    private final VisibilityBackoff visibilityBackoff;
 
-    public MessageListener(ObjectMapper objectMapper, S3Client s3Client, SnsTemplate snsTemplate,
-                           @Value("${app.sns.topic-arn}") String topicArn) {
+    // One S3 record of a notification; ledgerKey identifies the object version it announced
+    // eTag and size come from the notification and may be null
+    private record ObjectRecord(String bucketName, String objectKey, String versionId, String eTag, Long size,
+                                String ledgerKey) {}
+
+    public MessageListener(ObjectMapper objectMapper, EvidenceProcessor evidenceProcessor,
+                           @Qualifier("pdfWorkerExecutor") ExecutorService pdfWorkerExecutor,
+                           PipelineMetrics pipelineMetrics, ProcessingLedger processingLedger,
+                           VisibilityBackoff visibilityBackoff) {
         this.objectMapper = objectMapper;
-        this.s3Client = s3Client;
-        this.snsTemplate = snsTemplate;
-        this.topicArn = topicArn;
+        this.evidenceProcessor = evidenceProcessor;
+        this.pdfWorkerExecutor = pdfWorkerExecutor;
+        this.pipelineMetrics = pipelineMetrics;
+        this.processingLedger = processingLedger;
+        this.visibilityBackoff = visibilityBackoff;
     }
 
-    @SqsListener("${spring.cloud.aws.sqs.queue-name}")
-    public void receiveMessage(Message<String> message) {
+    // Batch mode: up to 10 messages per poll, every S3 record in them is fanned out to the pdf worker pool.
+    // The listener thread waits for its batch, so maxConcurrentMessages bounds how much the poller fetches.
+    // The records of the whole batch are claimed in the ledger with one call, so an object version that was
+    // already published is skipped, and their outcomes are recorded with one more once the batch is done.
+    // A message is acknowledged as soon as SNS accepted the events of all its records; a failed message is
+    // left unacknowledged and comes back after an exponential backoff, ending up in the dead-letter queue
+    // if it keeps failing.
+    @SqsListener(id = "ingestion-intake", value = "${spring.cloud.aws.sqs.queue-name}",
+            maxMessagesPerPoll = "${app.ingestion.max-messages-per-poll:10}",
+            maxConcurrentMessages = "${app.ingestion.max-concurrent-messages:20}",
+            acknowledgementMode = "MANUAL")
+    public void receiveMessages(List<Message<String>> messages, BatchAcknowledgement<String> acknowledgement) {
         logger.info("====================================================");
-        logger.info("Received S3 event notification via SQS!");
-        try {
-            S3Event s3Event = objectMapper.readValue(message.getPayload(), S3Event.class);
-            S3EventRecord record = s3Event.records().get(0);
-            String bucketName = record.s3().bucket().name();
-            String objectKey = URLDecoder.decode(record.s3().object().key(), StandardCharsets.UTF_8);
+        logger.info("Received batch of {} S3 event notification(s) via SQS!", messages.size());
 
-            logger.info("-----> Processing file: s3://{}/{}", bucketName, objectKey);
-            processPdfAndPublishEvent(bucketName, objectKey);
+        List<List<ObjectRecord>> recordsByMessage = new ArrayList<>(messages.size());
+        List<String> ledgerKeys = new ArrayList<>();
+        for (Message<String> message : messages) {
+            pipelineMetrics.recordQueueLag(message.getHeaders());
+            List<ObjectRecord> records = parseRecords(message);
+            recordsByMessage.add(records);
+            if (records != null) {
+                records.forEach(record -> ledgerKeys.add(record.ledgerKey()));
+            }
+        }
+        List<ProcessingLedger.State> states;
+        try {
+            Timer.Sample ledgerClaim = pipelineMetrics.startTimer();
+            states = processingLedger.claim(ledgerKeys);
+            ledgerClaim.stop(pipelineMetrics.ledgerClaim());
+            pipelineMetrics.recordLedgerStates(states);
+        } catch (RuntimeException e) {
+            logger.error("Processing ledger unavailable, leaving {} message(s) for redelivery", messages.size(), e);
+            pipelineMetrics.recordFailure("ledger", e);
+            messages.forEach(this::retryLater);
+            return;
+        }
 
-        } catch (Exception e) {
-            logger.error("Failed to process message", e);
+        LedgerSettlement settlement = new LedgerSettlement(processingLedger);
+        List<CompletableFuture<Void>> pending = new ArrayList<>(messages.size());
+        int stateIndex = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            Message<String> message = messages.get(i);
+            List<ObjectRecord> records = recordsByMessage.get(i);
+            if (records == null) {
+                retryLater(message);
+                continue;
+            }
+            List<ProcessingLedger.State> recordStates = states.subList(stateIndex, stateIndex + records.size());
+            stateIndex += records.size();
+            boolean heldElsewhere = recordStates.contains(ProcessingLedger.State.IN_PROGRESS);
+            pending.add(processMessage(records, recordStates, settlement)
+                    .thenCompose(ignored -> {
+                        if (heldElsewhere) {
+                            // The claimed records are done; the message comes back for those held elsewhere
+                            retrySoon(message);
+                            return CompletableFuture.<Void>completedFuture(null);
+                        }
+                        return acknowledgement.acknowledgeAsync(List.of(message));
+                    })
+                    .exceptionally(e -> {
+                        logger.error("Failed to process message {}, leaving it for redelivery",
+                                message.getHeaders().getId(), e);
+                        retryLater(message);
+                        return null;
+                    }));
         }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        settlement.settle();
         logger.info("====================================================");
     }
 
-    private void processPdfAndPublishEvent(String bucketName, String objectKey) {
-        logger.info("-----> Attempting to stream, parse, and publish event...");
-        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                .bucket(bucketName)
-                .key(objectKey)
-                .build();
-        try (ResponseInputStream<GetObjectResponse> s3Stream = s3Client.getObject(getObjectRequest);
-             PDDocument pdfDocument = PDDocument.load(s3Stream)) {
-
-            long fileSize = s3Stream.response().contentLength();
-            int pageCount = pdfDocument.getNumberOfPages();
-            PDFTextStripper textStripper = new PDFTextStripper();
-            String extractedText = textStripper.getText(pdfDocument);
-            String textSnippet = extractedText.substring(0, Math.min(extractedText.length(), 500));
-            logger.info("-----> PDF processed. Extracted {} characters.", extractedText.length());
+    // Returns null for a notification that cannot be read; it goes to the dead-letter queue after its retries
+    private List<ObjectRecord> parseRecords(Message<String> message) {
+        S3Event s3Event;
+        try {
+            s3Event = objectMapper.readValue(message.getPayload(), S3Event.class);
+        } catch (JsonProcessingException e) {
+            logger.error("Unreadable S3 event notification {}", message.getHeaders().getId(), e);
+            pipelineMetrics.recordFailure("parse", e);
+            return null;
+        }
+        if (s3Event.records() == null || s3Event.records().isEmpty()) {
+            // e.g. the s3:TestEvent sent when the bucket notification is first configured
+            return List.of();
+        }
+        List<ObjectRecord> records = new ArrayList<>(s3Event.records().size());
+        for (S3EventRecord record : s3Event.records()) {
+            String bucketName = record.s3().bucket().name();
+            String objectKey = URLDecoder.decode(record.s3().object().key(), StandardCharsets.UTF_8);
+            S3Object object = record.s3().object();
+            String versionId = object.versionId();
+            String version = versionId != null ? versionId
+                    : object.sequencer() != null ? object.sequencer()
+                    : String.valueOf(message.getHeaders().getId());
+            records.add(new ObjectRecord(bucketName, objectKey, versionId, object.eTag(), object.size(),
+                    bucketName + "/" + objectKey + "@" + version));
+        }
+        return records;
+    }
 
-            var eventToPublish = new TransactionProcessedEvent(bucketName, objectKey, fileSize, pageCount, textSnippet);
+    private CompletableFuture<Void> processMessage(List<ObjectRecord> records, List<ProcessingLedger.State> states,
+                                                   LedgerSettlement settlement) {
+        List<CompletableFuture<Void>> recordFutures = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ObjectRecord record = records.get(i);
+            switch (states.get(i)) {
+                case DONE -> logger.info("-----> Skipping s3://{}/{}, already processed.", record.bucketName(), record.objectKey());
+                case IN_PROGRESS -> logger.info("-----> s3://{}/{} is being processed elsewhere, retrying soon.",
+                        record.bucketName(), record.objectKey());
+                case CLAIMED -> {
+                    logger.info("-----> Queueing file: s3://{}/{}", record.bucketName(), record.objectKey());
+                    recordFutures.add(CompletableFuture.supplyAsync(() -> processRecord(record), pdfWorkerExecutor)
+                            .thenCompose(published -> published.whenComplete((ignored, e) -> {
+                                if (e != null) {
+                                    pipelineMetrics.recordFailure("publish", e);
+                                }
+                            }))
+                            // Published: done for good. Failed: the claim is given up for the redelivery.
+                            .whenComplete((ignored, e) -> {
+                                if (e == null) {
+                                    settlement.complete(record.ledgerKey());
+                                } else {
+                                    settlement.release(record.ledgerKey());
+                                }
+                            }));
+                }
+            }
+        }
+        return CompletableFuture.allOf(recordFutures.toArray(CompletableFuture[]::new));
+    }
 
-            String jsonPayload = objectMapper.writeValueAsString(eventToPublish);
-            Message<String> snsMessage = MessageBuilder.withPayload(jsonPayload).build();
-            snsTemplate.send(topicArn, snsMessage);
+    private CompletableFuture<Void> processRecord(ObjectRecord record) {
+        try {
+            return evidenceProcessor.processPdfAndPublishEvent(record.bucketName(), record.objectKey(), record.versionId(),
+                    record.eTag(), record.size() != null ? record.size() : -1);
+        } catch (IOException e) {
+            logger.error("Failed to read or parse PDF for key: {}", record.objectKey(), e);
+            pipelineMetrics.recordFailure("process", e);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            pipelineMetrics.recordFailure("process", e);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
 
-            logger.info("-----> SUCCESS: Published TransactionProcessedEvent to SNS topic!");
+    private void retryLater(Message<String> message) {
+        pipelineMetrics.recordRedelivery();
+        visibilityBackoff.retryLater(message).exceptionally(e -> {
+            logger.warn("Could not change the visibility of message {}", message.getHeaders().getId(), e);
+            return null;
+        });
+    }
 
-        } catch (Exception e) {
-            logger.error("Failed to read, parse PDF, or publish to SNS for key: {}", objectKey, e);
-        }
+    // Not a failure: brought back after the fixed in-progress delay, once its holder has had time to finish
+    private void retrySoon(Message<String> message) {
+        visibilityBackoff.retrySoon(message).exceptionally(e -> {
+            logger.warn("Could not change the visibility of message {}", message.getHeaders().getId(), e);
+            return null;
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package com.accord.ingestionservice;
+
+// Builds a MinHash signature over word shingles of the normalized document text
+// (lower-cased letters and digits, everything else collapsed to one separator).
+// Two documents' signatures agree at a position with probability equal to the Jaccard
+// similarity of their shingle sets, which is what the fraud service's LSH index relies on.
+// Shingles run across page boundaries, so pages must be fed in order.
+public class MinHashFingerprinter implements PageTextConsumer {
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final long[] seeds;
+    private final int[] signature;
+    private final long[] window;
+    private int wordsInWindow;
+    private long currentWord = FNV_OFFSET;
+    private boolean inWord;
+    private boolean anyShingle;
+
+    public MinHashFingerprinter(int numHashes, int shingleSize) {
+        this.seeds = new long[numHashes];
+        this.signature = new int[numHashes];
+        this.window = new long[shingleSize];
+        // Fixed seeds: every ingestion instance must produce comparable signatures
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < numHashes; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            seeds[i] = seed;
+            signature[i] = Integer.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public void accept(int pageNumber, String pageText) {
+        for (int i = 0; i < pageText.length(); i++) {
+            char c = pageText.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                currentWord = (currentWord ^ Character.toLowerCase(c)) * FNV_PRIME;
+                inWord = true;
+            } else if (inWord) {
+                endWord();
+            }
+        }
+        // A page break also ends a word
+        if (inWord) {
+            endWord();
+        }
+    }
+
+    // null when the text was too short to form a single shingle
+    public int[] signature() {
+        if (inWord) {
+            endWord();
+        }
+        return anyShingle ? signature.clone() : null;
+    }
+
+    private void endWord() {
+        window[wordsInWindow % window.length] = currentWord;
+        wordsInWindow++;
+        currentWord = FNV_OFFSET;
+        inWord = false;
+        if (wordsInWindow >= window.length) {
+            addShingle();
+        }
+    }
+
+    private void addShingle() {
+        long shingle = 0;
+        int oldest = wordsInWindow - window.length;
+        for (int i = 0; i < window.length; i++) {
+            shingle = shingle * 31 + window[(oldest + i) % window.length];
+        }
+        for (int i = 0; i < seeds.length; i++) {
+            int value = (int) mix(shingle ^ seeds[i]);
+            if (value < signature[i]) {
+                signature[i] = value;
+            }
+        }
+        anyShingle = true;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
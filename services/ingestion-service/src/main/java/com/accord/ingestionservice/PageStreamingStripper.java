@@ -0,0 +1,56 @@
+package com.accord.ingestionservice;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+// A PDFTextStripper that hands out the text of each page as soon as the page is finished
+// instead of accumulating the whole document. Not thread-safe; use one instance per extraction.
+class PageStreamingStripper extends PDFTextStripper {
+
+    private final StringWriter pageBuffer = new StringWriter();
+    private final List<PageTextConsumer> consumers;
+    private int pagesStripped;
+
+    PageStreamingStripper(List<PageTextConsumer> consumers) throws IOException {
+        this.consumers = consumers;
+    }
+
+    StringWriter pageBuffer() {
+        return pageBuffer;
+    }
+
+    int pagesStripped() {
+        return pagesStripped;
+    }
+
+    @Override
+    public void processPage(PDPage page) throws IOException {
+        if (!allSatisfied()) {
+            super.processPage(page);
+        }
+    }
+
+    @Override
+    protected void endPage(PDPage page) throws IOException {
+        super.endPage(page);
+        String pageText = pageBuffer.toString();
+        pageBuffer.getBuffer().setLength(0);
+        pagesStripped++;
+        for (PageTextConsumer consumer : consumers) {
+            consumer.accept(getCurrentPageNo(), pageText);
+        }
+    }
+
+    private boolean allSatisfied() {
+        for (PageTextConsumer consumer : consumers) {
+            if (!consumer.isSatisfied()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
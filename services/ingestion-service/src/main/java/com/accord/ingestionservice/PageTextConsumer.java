@@ -0,0 +1,12 @@
+package com.accord.ingestionservice;
+
+// Receives the text of a PDF one page at a time, in page order.
+// Extraction stops early once every consumer reports that it has what it needs.
+public interface PageTextConsumer {
+
+    void accept(int pageNumber, String pageText);
+
+    default boolean isSatisfied() {
+        return false;
+    }
+}
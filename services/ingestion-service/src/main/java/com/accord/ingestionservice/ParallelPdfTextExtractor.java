@@ -0,0 +1,114 @@
+package com.accord.ingestionservice;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Second extraction engine for long documents: the page range is split into chunks that are
+// stripped in parallel on a ForkJoinPool and handed to the consumers in page order as each chunk
+// completes. At most one chunk per worker is in flight, so only those chunks' text is held, and
+// once every consumer is satisfied the remaining chunks are cancelled.
+// A PDDocument is not thread-safe, so every chunk opens its own view of the spooled document
+// and uses its own PDFTextStripper.
+@Component
+public class ParallelPdfTextExtractor {
+
+    private final PdfTextExtractor pdfTextExtractor;
+    private final ForkJoinPool pageExtractionPool;
+    private final int pageThreshold;
+    private final int minPagesPerTask;
+
+    public ParallelPdfTextExtractor(PdfTextExtractor pdfTextExtractor,
+                                    @Qualifier("pageExtractionPool") ForkJoinPool pageExtractionPool,
+                                    @Value("${app.pdf.parallel.page-threshold:50}") int pageThreshold,
+                                    @Value("${app.pdf.parallel.min-pages-per-task:10}") int minPagesPerTask) {
+        this.pdfTextExtractor = pdfTextExtractor;
+        this.pageExtractionPool = pageExtractionPool;
+        this.pageThreshold = pageThreshold;
+        this.minPagesPerTask = minPagesPerTask;
+    }
+
+    public boolean shouldHandle(int pageCount) {
+        return pageThreshold > 0 && pageCount >= pageThreshold && pageExtractionPool.getParallelism() > 1;
+    }
+
+    // Returns the number of pages handed to the consumers. Chunks already in flight when the
+    // consumers are satisfied still finish, but their text is dropped.
+    public int extract(PdfSource pdfSource, int pageCount, List<PageTextConsumer> consumers) throws IOException {
+        int workers = pageExtractionPool.getParallelism();
+        int chunkSize = Math.max(1, minPagesPerTask);
+        Deque<PageRangeTask> inFlight = new ArrayDeque<>(workers);
+        int nextPage = 1;
+        int pagesHandled = 0;
+        try {
+            while (!allSatisfied(consumers) && (nextPage <= pageCount || !inFlight.isEmpty())) {
+                while (nextPage <= pageCount && inFlight.size() < workers) {
+                    int endPage = Math.min(pageCount, nextPage + chunkSize - 1);
+                    PageRangeTask task = new PageRangeTask(pdfSource, nextPage, endPage);
+                    pageExtractionPool.execute(task);
+                    inFlight.addLast(task);
+                    nextPage = endPage + 1;
+                }
+                PageRangeTask chunk = inFlight.removeFirst();
+                String[] pageTexts = chunk.join();
+                for (int i = 0; i < pageTexts.length; i++) {
+                    String pageText = pageTexts[i] == null ? "" : pageTexts[i];
+                    for (PageTextConsumer consumer : consumers) {
+                        consumer.accept(chunk.startPage + i, pageText);
+                    }
+                    pagesHandled++;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (PageRangeTask task : inFlight) {
+                task.cancel(false);
+            }
+        }
+        return pagesHandled;
+    }
+
+    private static boolean allSatisfied(List<PageTextConsumer> consumers) {
+        for (PageTextConsumer consumer : consumers) {
+            if (!consumer.isSatisfied()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private class PageRangeTask extends RecursiveTask<String[]> {
+
+        private final PdfSource pdfSource;
+        private final int startPage;
+        private final int endPage;
+
+        PageRangeTask(PdfSource pdfSource, int startPage, int endPage) {
+            this.pdfSource = pdfSource;
+            this.startPage = startPage;
+            this.endPage = endPage;
+        }
+
+        @Override
+        protected String[] compute() {
+            String[] pageTexts = new String[endPage - startPage + 1];
+            try (PDDocument document = pdfSource.open()) {
+                pdfTextExtractor.extract(document, startPage, endPage,
+                        List.of((pageNumber, pageText) -> pageTexts[pageNumber - startPage] = pageText));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return pageTexts;
+        }
+    }
+}
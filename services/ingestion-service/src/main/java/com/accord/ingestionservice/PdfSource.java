@@ -0,0 +1,13 @@
+package com.accord.ingestionservice;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+
+// A spooled document that can be opened more than once. Every call returns a new, independent
+// PDDocument, which is what the parallel engine needs since a PDDocument is not thread-safe.
+@FunctionalInterface
+public interface PdfSource {
+
+    PDDocument open() throws IOException;
+}
@@ -0,0 +1,87 @@
+package com.accord.ingestionservice;
+
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Loads PDFs with a bounded in-memory buffer (the rest goes to PDFBox's scratch file) and strips them page by page,
+// so neither the raw document nor its full text has to sit on the heap.
+@Component
+public class PdfTextExtractor {
+
+    private final long maxMainMemoryBytes;
+    private final long maxStorageBytes;
+    private final String tempDir;
+
+    public PdfTextExtractor(@Value("${app.pdf.max-main-memory-bytes:16777216}") long maxMainMemoryBytes,
+                            @Value("${app.pdf.max-storage-bytes:-1}") long maxStorageBytes,
+                            @Value("${app.pdf.temp-dir:}") String tempDir) {
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.maxStorageBytes = maxStorageBytes;
+        this.tempDir = tempDir;
+    }
+
+    public PDDocument load(InputStream pdfStream) throws IOException {
+        return PDDocument.load(pdfStream, memoryUsageSetting());
+    }
+
+    // Loading from a local file lets PDFBox read the document lazily, and lets several
+    // threads open their own view of the same document.
+    public PDDocument load(File pdfFile) throws IOException {
+        return PDDocument.load(pdfFile, memoryUsageSetting());
+    }
+
+    // For a mapped spool file. The document owns the source and closes it together with its scratch file.
+    public PDDocument load(RandomAccessRead source) throws IOException {
+        ScratchFile scratchFile = new ScratchFile(memoryUsageSetting());
+        try {
+            PDFParser parser = new PDFParser(source, "", null, null, scratchFile);
+            parser.parse();
+            return parser.getPDDocument();
+        } catch (IOException | RuntimeException e) {
+            IOUtils.closeQuietly(scratchFile);
+            IOUtils.closeQuietly(source);
+            throw e;
+        }
+    }
+
+    public Path createSpoolFile() throws IOException {
+        return tempDir.isBlank()
+                ? Files.createTempFile("evidence-", ".pdf")
+                : Files.createTempFile(Path.of(tempDir), "evidence-", ".pdf");
+    }
+
+    MemoryUsageSetting memoryUsageSetting() {
+        MemoryUsageSetting setting = MemoryUsageSetting.setupMixed(maxMainMemoryBytes, maxStorageBytes);
+        if (!tempDir.isBlank()) {
+            setting.setTempDir(new File(tempDir));
+        }
+        return setting;
+    }
+
+    // Feeds each page's text to the consumers and stops stripping once all of them are satisfied.
+    // Returns the number of pages that were actually stripped.
+    public int extract(PDDocument document, List<PageTextConsumer> consumers) throws IOException {
+        return extract(document, 1, Integer.MAX_VALUE, consumers);
+    }
+
+    int extract(PDDocument document, int startPage, int endPage, List<PageTextConsumer> consumers) throws IOException {
+        PageStreamingStripper stripper = new PageStreamingStripper(consumers);
+        stripper.setStartPage(startPage);
+        stripper.setEndPage(endPage);
+        stripper.writeText(document, stripper.pageBuffer());
+        return stripper.pagesStripped();
+    }
+}
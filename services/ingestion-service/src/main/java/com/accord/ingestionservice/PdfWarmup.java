@@ -0,0 +1,58 @@
+package com.accord.ingestionservice;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+// Runs a one-page PDF through PDFBox while the context starts, so the first message does not pay for
+// PDFBox's class loading and font setup. Setting up the standard fonts builds PDFBox's font cache on a
+// machine's first run, a scan of the system fonts that takes seconds; the fast-start image does that at
+// build time with -Dpdfbox.fontcache pointing into the image, so containers start with the cache in place.
+@Component
+@ConditionalOnProperty(name = "app.pdf.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class PdfWarmup implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfWarmup.class);
+
+    private final PdfTextExtractor pdfTextExtractor;
+
+    public PdfWarmup(PdfTextExtractor pdfTextExtractor) {
+        this.pdfTextExtractor = pdfTextExtractor;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long start = System.nanoTime();
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(72, 720);
+                content.showText("Accord PDF warm-up");
+                content.endText();
+            }
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            document.save(pdf);
+            try (PDDocument loaded = pdfTextExtractor.load(new ByteArrayInputStream(pdf.toByteArray()))) {
+                pdfTextExtractor.extract(loaded, List.of(new SnippetCollector(100)));
+            }
+            logger.info("-----> PDFBox warmed up in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            // Only costs the first message the same time again
+            logger.warn("PDFBox warm-up failed", e);
+        }
+    }
+}
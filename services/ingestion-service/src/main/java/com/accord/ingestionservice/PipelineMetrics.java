@@ -0,0 +1,195 @@
+package com.accord.ingestionservice;
+
+import com.accord.messaging.ProcessingLedger;
+import com.accord.messaging.QueueLagSource;
+import com.accord.messaging.QueueLagTracker;
+import com.accord.messaging.SnsPublishMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+// Micrometer meters for every ingestion stage, scraped from /actuator/prometheus.
+// Stage timers are started with startTimer() and stopped on the matching Timer.
+@Component
+public class PipelineMetrics implements QueueLagSource, SnsPublishMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer s3Head;
+    private final Timer s3Fetch;
+    private final Timer pdfLoad;
+    private final Timer textExtraction;
+    private final Timer snsPublish;
+    private final Counter pages;
+    private final Counter bytes;
+    private final DistributionSummary publishBatchSize;
+    private final Counter publishRetries;
+    private final Timer queueLag;
+    private final Timer ledgerClaim;
+    private final Counter redeliveries;
+    private final Counter rangedFetches;
+    private final Counter rangedFetchParts;
+    private final AtomicLong latestQueueLagMillis = new AtomicLong();
+    private final QueueLagTracker queueLagTracker = new QueueLagTracker();
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.s3Head = stageTimer("s3_head");
+        this.s3Fetch = stageTimer("s3_fetch");
+        this.pdfLoad = stageTimer("pdf_load");
+        this.textExtraction = stageTimer("text_extraction");
+        this.snsPublish = stageTimer("sns_publish");
+        this.pages = Counter.builder("accord.ingestion.pages")
+                .description("Pages stripped")
+                .register(meterRegistry);
+        this.bytes = Counter.builder("accord.ingestion.bytes")
+                .description("PDF bytes downloaded from S3")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.publishBatchSize = DistributionSummary.builder("accord.ingestion.publish.batch.size")
+                .description("Events per SNS PublishBatch request")
+                .register(meterRegistry);
+        this.publishRetries = Counter.builder("accord.ingestion.publish.retries")
+                .description("Batch entries SNS rejected and that were sent again")
+                .register(meterRegistry);
+        this.ledgerClaim = Timer.builder("accord.ingestion.ledger.claim")
+                .description("Processing ledger lookup for the messages of one poll")
+                .register(meterRegistry);
+        this.redeliveries = Counter.builder("accord.ingestion.redeliveries")
+                .description("Failed messages handed back to SQS with a visibility backoff")
+                .register(meterRegistry);
+        this.rangedFetches = Counter.builder("accord.ingestion.ranged_fetch")
+                .description("Objects downloaded with parallel ranged GetObject requests")
+                .register(meterRegistry);
+        this.rangedFetchParts = Counter.builder("accord.ingestion.ranged_fetch.parts")
+                .description("Ranged GetObject requests of the ranged fetch stage")
+                .register(meterRegistry);
+        this.queueLag = Timer.builder("accord.ingestion.queue.lag")
+                .description("Time between SQS receiving a message and this service first picking it up")
+                .register(meterRegistry);
+        Gauge.builder("accord.ingestion.queue.lag.latest", latestQueueLagMillis, lag -> lag.get() / 1000.0)
+                .description("Queue lag of the most recently received first delivery")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(meterRegistry);
+    }
+
+    public Timer s3Head() {
+        return s3Head;
+    }
+
+    public Timer s3Fetch() {
+        return s3Fetch;
+    }
+
+    public Timer pdfLoad() {
+        return pdfLoad;
+    }
+
+    public Timer textExtraction() {
+        return textExtraction;
+    }
+
+    public void recordDocument(long fileSize, int pagesStripped) {
+        bytes.increment(fileSize);
+        pages.increment(pagesStripped);
+    }
+
+    public void recordRangedFetch(int parts) {
+        rangedFetches.increment();
+        rangedFetchParts.increment(parts);
+    }
+
+    public <T> void registerSpoolQuota(T fetcher, ToDoubleFunction<T> reservedBytes) {
+        Gauge.builder("accord.ingestion.spool.reserved", fetcher, reservedBytes)
+                .description("Disk quota reserved by the spool files of the ranged fetch stage")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void recordPublishBatch(int entries, long durationNanos) {
+        publishBatchSize.record(entries);
+        snsPublish.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordPublishRetry() {
+        publishRetries.increment();
+    }
+
+    // result is memory_hit, disk_hit or miss
+    public void recordExtractionCache(String result) {
+        Counter.builder("accord.ingestion.extraction_cache")
+                .description("Extraction cache lookups")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public Timer ledgerClaim() {
+        return ledgerClaim;
+    }
+
+    public void recordLedgerStates(List<ProcessingLedger.State> states) {
+        for (ProcessingLedger.State state : states) {
+            Counter.builder("accord.ingestion.ledger")
+                    .description("Processing ledger claims by the state found")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    public void recordRedelivery() {
+        redeliveries.increment();
+    }
+
+    // stage is where it failed, the type is the exception's class name (unwrapped from CompletionException)
+    public void recordFailure(String stage, Throwable failure) {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        Counter.builder("accord.ingestion.failures")
+                .tag("stage", stage)
+                .tag("type", failure.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public long takeQueueLagMillis() {
+        return queueLagTracker.takeMaxLagMillis();
+    }
+
+    // Redeliveries are skipped: they keep the SentTimestamp of their first delivery
+    public void recordQueueLag(MessageHeaders headers) {
+        long lagMillis = QueueLagTracker.firstDeliveryLagMillis(headers, System.currentTimeMillis());
+        if (lagMillis < 0) {
+            return;
+        }
+        queueLag.record(lagMillis, TimeUnit.MILLISECONDS);
+        latestQueueLagMillis.set(lagMillis);
+        queueLagTracker.record(lagMillis);
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("accord.ingestion.stage")
+                .description("Time spent per document in each ingestion stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+}
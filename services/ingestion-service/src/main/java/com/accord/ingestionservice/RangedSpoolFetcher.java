@@ -0,0 +1,198 @@
+package com.accord.ingestionservice;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Optional fetch stage for large objects. A single GetObject stream is bound by what one connection
+// delivers, so objects of at least threshold-bytes are split into part-size ranges that are fetched with
+// parallel ranged GetObject requests, each written straight to its place in a spool file preallocated to
+// the object's size. The result is mapped (MappedSpoolFile), so PDFBox reads it without its own buffers.
+//
+// Spool files of this stage count against a disk quota: a fetch blocks until its size fits, and an
+// object larger than the whole quota is left to the streaming download.
+@Component
+public class RangedSpoolFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RangedSpoolFetcher.class);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final S3Client s3Client;
+    private final PdfTextExtractor pdfTextExtractor;
+    private final ExecutorService rangedFetchExecutor;
+    private final PipelineMetrics pipelineMetrics;
+    private final boolean enabled;
+    private final long thresholdBytes;
+    private final long partSizeBytes;
+    // In KiB, so that a Semaphore can hold up to 2 TiB
+    private final int quotaKib;
+    private final Semaphore quota;
+
+    public RangedSpoolFetcher(S3Client s3Client, PdfTextExtractor pdfTextExtractor,
+                              @Qualifier("rangedFetchExecutor") ExecutorService rangedFetchExecutor,
+                              PipelineMetrics pipelineMetrics,
+                              @Value("${app.pdf.ranged-fetch.enabled:false}") boolean enabled,
+                              @Value("${app.pdf.ranged-fetch.threshold-bytes:33554432}") long thresholdBytes,
+                              @Value("${app.pdf.ranged-fetch.part-size-bytes:8388608}") long partSizeBytes,
+                              @Value("${app.pdf.ranged-fetch.max-disk-bytes:2147483648}") long maxDiskBytes) {
+        if (partSizeBytes <= 0) {
+            throw new IllegalArgumentException("app.pdf.ranged-fetch.part-size-bytes must be positive");
+        }
+        this.s3Client = s3Client;
+        this.pdfTextExtractor = pdfTextExtractor;
+        this.rangedFetchExecutor = rangedFetchExecutor;
+        this.pipelineMetrics = pipelineMetrics;
+        this.enabled = enabled;
+        this.thresholdBytes = thresholdBytes;
+        this.partSizeBytes = partSizeBytes;
+        this.quotaKib = kib(maxDiskBytes);
+        this.quota = new Semaphore(quotaKib, true);
+        pipelineMetrics.registerSpoolQuota(this, fetcher -> (double) (fetcher.quotaKib - fetcher.quota.availablePermits()) * 1024);
+    }
+
+    // When enabled the caller needs the object size up front, so it does a HeadObject even without the extraction cache
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean shouldHandle(long objectSize) {
+        return enabled && objectSize > 0 && objectSize >= thresholdBytes && kib(objectSize) <= quotaKib;
+    }
+
+    // getObjectRequest must pin one version of the object (ifMatch or versionId), so that every range
+    // reads the same bytes. The caller closes the returned file, which deletes it and frees its quota.
+    public MappedSpoolFile fetch(GetObjectRequest getObjectRequest, long objectSize) throws IOException, InterruptedException {
+        int permits = kib(objectSize);
+        quota.acquire(permits);
+        Path spoolFile = null;
+        MappedSpoolFile mapped = null;
+        try {
+            spoolFile = pdfTextExtractor.createSpoolFile();
+            try (RandomAccessFile file = new RandomAccessFile(spoolFile.toFile(), "rw")) {
+                file.setLength(objectSize);
+                int parts = fetchRanges(getObjectRequest, objectSize, file.getChannel());
+                pipelineMetrics.recordRangedFetch(parts);
+            }
+            mapped = MappedSpoolFile.map(spoolFile, () -> quota.release(permits));
+            return mapped;
+        } finally {
+            if (mapped == null) {
+                try {
+                    if (spoolFile != null) {
+                        Files.deleteIfExists(spoolFile);
+                    }
+                } finally {
+                    quota.release(permits);
+                }
+            }
+        }
+    }
+
+    // The first range is fetched on the calling thread, the others on the ranged fetch pool. After a failure
+    // the remaining ranges are skipped, and the spool file is only given up once no range writes to it any more.
+    private int fetchRanges(GetObjectRequest getObjectRequest, long objectSize, FileChannel channel)
+            throws IOException, InterruptedException {
+        int parts = (int) ((objectSize + partSizeBytes - 1) / partSizeBytes);
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<Future<?>> pending = new ArrayList<>(parts);
+        for (int part = 1; part < parts; part++) {
+            long first = part * partSizeBytes;
+            long last = Math.min(objectSize, first + partSizeBytes) - 1;
+            pending.add(rangedFetchExecutor.submit(() -> {
+                fetchRange(getObjectRequest, first, last, channel, aborted);
+                return null;
+            }));
+        }
+
+        Throwable failure = null;
+        try {
+            fetchRange(getObjectRequest, 0, Math.min(objectSize, partSizeBytes) - 1, channel, aborted);
+        } catch (IOException | RuntimeException e) {
+            aborted.set(true);
+            failure = e;
+        }
+        try {
+            for (Future<?> part : pending) {
+                try {
+                    part.get();
+                } catch (ExecutionException e) {
+                    aborted.set(true);
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            aborted.set(true);
+            pending.forEach(part -> part.cancel(true));
+            throw e;
+        }
+
+        if (failure instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (failure != null) {
+            throw new IOException("Ranged fetch of " + getObjectRequest.key() + " failed", failure);
+        }
+        logger.info("-----> Fetched {} ({} bytes) in {} range(s).", getObjectRequest.key(), objectSize, parts);
+        return parts;
+    }
+
+    private void fetchRange(GetObjectRequest getObjectRequest, long first, long last, FileChannel channel,
+                            AtomicBoolean aborted) throws IOException {
+        if (aborted.get()) {
+            return;
+        }
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        ByteBuffer writeBuffer = ByteBuffer.wrap(buffer);
+        long position = first;
+        try (ResponseInputStream<GetObjectResponse> range = s3Client.getObject(getObjectRequest.toBuilder()
+                .range("bytes=" + first + "-" + last)
+                .build())) {
+            int read;
+            while (position <= last && (read = range.read(buffer)) != -1) {
+                if (aborted.get()) {
+                    // Closing would drain the rest of the range first
+                    range.abort();
+                    return;
+                }
+                writeBuffer.clear().limit((int) Math.min(read, last + 1 - position));
+                while (writeBuffer.hasRemaining()) {
+                    position += channel.write(writeBuffer, position);
+                }
+            }
+        }
+        if (position != last + 1) {
+            throw new EOFException("Range " + first + "-" + last + " of " + getObjectRequest.key()
+                    + " ended after " + (position - first) + " bytes");
+        }
+    }
+
+    private static int kib(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, (bytes + 1023) / 1024);
+    }
+}
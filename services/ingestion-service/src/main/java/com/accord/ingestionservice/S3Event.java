@@ -25,5 +25,12 @@ record S3Bucket(
 
 record S3Object(
         // The 'key' is the full name/path of the file in the S3 bucket.
-        String key
+        String key,
+        // Only set for versioned buckets; lets a redelivered notification process the version it announced.
+        String versionId,
+        // Orders the events of one key; the same in a duplicate delivery of the same event
+        String sequencer,
+        // The object's ETag without quotes and its size in bytes; absent on delete events
+        @JsonProperty("eTag") String eTag,
+        Long size
 ) {}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.accord.ingestionservice;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Lists every object under a bucket prefix. A single ListObjectsV2 pagination is sequential, so the
+// prefix is first split on '/' up to splitDepth levels (e.g. statements/2024/03/) and each resulting
+// sub-prefix becomes a partition with its own paginated listing. Objects directly under a split
+// prefix form a partition of their own.
+class S3PrefixSource implements BackfillSource {
+
+    private static final String TREE = "tree:";
+    private static final String DIRECT = "direct:";
+    private static final String DELIMITER = "/";
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final String prefix;
+    private final String suffix;
+    private final int splitDepth;
+
+    S3PrefixSource(S3Client s3Client, String bucketName, String prefix, String suffix, int splitDepth) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.splitDepth = splitDepth;
+    }
+
+    @Override
+    public String description() {
+        return "s3://" + bucketName + "/" + prefix;
+    }
+
+    @Override
+    public List<String> partitions() {
+        List<String> partitions = new ArrayList<>();
+        split(prefix, splitDepth, partitions);
+        return partitions;
+    }
+
+    private void split(String parent, int depth, List<String> partitions) {
+        if (depth <= 0) {
+            partitions.add(TREE + parent);
+            return;
+        }
+        List<String> children = new ArrayList<>();
+        boolean hasDirectObjects = false;
+        for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(parent)
+                .delimiter(DELIMITER)
+                .build())) {
+            hasDirectObjects |= page.hasContents() && !page.contents().isEmpty();
+            page.commonPrefixes().stream().map(CommonPrefix::prefix).forEach(children::add);
+        }
+        if (hasDirectObjects) {
+            partitions.add(DIRECT + parent);
+        }
+        for (String child : children) {
+            split(child, depth - 1, partitions);
+        }
+    }
+
+    @Override
+    public void list(String partition, BackfillCheckpoint.PartitionState resumeFrom, ItemSink sink) throws InterruptedException {
+        boolean direct = partition.startsWith(DIRECT);
+        String partitionPrefix = partition.substring(direct ? DIRECT.length() : TREE.length());
+        ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(partitionPrefix);
+        if (direct) {
+            request.delimiter(DELIMITER);
+        }
+        if (resumeFrom != null && resumeFrom.lastKey() != null) {
+            request.startAfter(resumeFrom.lastKey());
+        }
+        long position = resumeFrom != null ? resumeFrom.position() : 0;
+        for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(request.build())) {
+            for (var object : page.contents()) {
+                if (object.key().endsWith(suffix)) {
+                    sink.accept(new BackfillItem(bucketName, object.key(), null, position++));
+                }
+            }
+        }
+    }
+}
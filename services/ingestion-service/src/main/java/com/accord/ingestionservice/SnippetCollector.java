@@ -0,0 +1,30 @@
+package com.accord.ingestionservice;
+
+// Keeps the first N characters of the document text for the event's textSnippet.
+public class SnippetCollector implements PageTextConsumer {
+
+    private final int maxLength;
+    private final StringBuilder snippet;
+
+    public SnippetCollector(int maxLength) {
+        this.maxLength = maxLength;
+        this.snippet = new StringBuilder(maxLength);
+    }
+
+    @Override
+    public void accept(int pageNumber, String pageText) {
+        int remaining = maxLength - snippet.length();
+        if (remaining > 0) {
+            snippet.append(pageText, 0, Math.min(pageText.length(), remaining));
+        }
+    }
+
+    @Override
+    public boolean isSatisfied() {
+        return snippet.length() >= maxLength;
+    }
+
+    public String snippet() {
+        return snippet.toString();
+    }
+}
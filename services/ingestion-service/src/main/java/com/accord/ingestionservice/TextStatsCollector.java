@@ -0,0 +1,26 @@
+package com.accord.ingestionservice;
+
+// Counts characters per page and in total. Needs every page, so it never lets extraction stop early.
+public class TextStatsCollector implements PageTextConsumer {
+
+    private final int[] pageCharCounts;
+    private long textLength;
+
+    public TextStatsCollector(int pageCount) {
+        this.pageCharCounts = new int[pageCount];
+    }
+
+    @Override
+    public void accept(int pageNumber, String pageText) {
+        pageCharCounts[pageNumber - 1] = pageText.length();
+        textLength += pageText.length();
+    }
+
+    public long textLength() {
+        return textLength;
+    }
+
+    public int[] pageCharCounts() {
+        return pageCharCounts;
+    }
+}
@@ -0,0 +1,63 @@
+package com.accord.ingestionservice;
+
+import com.accord.events.EventCodec;
+import com.accord.events.EventEncoding;
+import com.accord.events.TransactionProcessedEvent;
+import com.accord.messaging.SnsBatchPublisher;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Encodes TransactionProcessedEvents and hands them to the shared SnsBatchPublisher, which batches,
+// retries and drains them on shutdown. publish() blocks once max-buffered events are waiting for SNS,
+// which slows the pdf workers and through them the SQS poller. The returned future completes once SNS
+// accepted the event; MessageListener acknowledges the SQS message on it.
+@Component
+public class TransactionEventPublisher implements DisposableBean {
+
+    private final EventCodec eventCodec;
+    private final EventEncoding eventEncoding;
+    private final SnsBatchPublisher batchPublisher;
+
+    public TransactionEventPublisher(SnsAsyncClient snsAsyncClient, EventCodec eventCodec, PipelineMetrics pipelineMetrics,
+                                     @Value("${app.sns.topic-arn}") String topicArn,
+                                     @Value("${app.events.encoding:json}") String eventEncoding,
+                                     @Value("${app.ingestion.publisher.linger:PT0.05S}") Duration linger,
+                                     @Value("${app.ingestion.publisher.max-buffered:1000}") int maxBuffered,
+                                     @Value("${app.ingestion.publisher.max-attempts:5}") int maxAttempts,
+                                     @Value("${app.ingestion.publisher.retry-backoff:PT0.1S}") Duration retryBackoff) {
+        this.eventCodec = eventCodec;
+        this.eventEncoding = EventEncoding.fromAttribute(eventEncoding);
+        // The attribute tells consumers how to read the payload, so they can be upgraded before the producer
+        Map<String, MessageAttributeValue> messageAttributes = Map.of(EventEncoding.ATTRIBUTE_NAME,
+                MessageAttributeValue.builder()
+                        .dataType("String")
+                        .stringValue(this.eventEncoding.attributeValue())
+                        .build());
+        this.batchPublisher = new SnsBatchPublisher(snsAsyncClient, topicArn, messageAttributes,
+                "TransactionProcessedEvent", pipelineMetrics,
+                new SnsBatchPublisher.Settings(linger, maxBuffered, maxAttempts, retryBackoff));
+    }
+
+    public CompletableFuture<Void> publish(TransactionProcessedEvent event) throws InterruptedException {
+        String payload;
+        try {
+            payload = eventCodec.encode(event, eventEncoding);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return batchPublisher.publish(payload, "TransactionProcessedEvent for " + event.fileKey());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        batchPublisher.close();
+    }
+}
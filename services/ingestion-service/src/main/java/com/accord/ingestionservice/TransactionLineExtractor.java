@@ -0,0 +1,380 @@
+package com.accord.ingestionservice;
+
+import com.accord.events.TransactionLines;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+// Pulls transaction lines (date, amount, counterparty, reference) out of the document text in one pass.
+// Every page is run through the TransactionRules automaton character by character; a line is a
+// candidate when it names a transaction keyword and no balance keyword, and only then the date regex
+// must match at its start and the amount regex on the tokens at its end. Lines that fail are dropped.
+// Needs every page, so it never lets extraction stop early. One instance per document.
+// At most maxLines lines and about maxBytes of encoded event are kept; past either the batch is truncated.
+public class TransactionLineExtractor implements PageTextConsumer {
+
+    private static final int MAX_COUNTERPARTY_LENGTH = 64;
+    // JSON for the numeric columns of one line: date, amount, counterparty index, page and separators
+    private static final int LINE_BYTES = 28;
+
+    private final TransactionRules rules;
+    private final int maxLines;
+    private final int maxBytes;
+    private final Matcher dateMatcher;
+    private final Matcher amountMatcher;
+    private final Matcher referenceMatcher;
+
+    private int[] dates = new int[16];
+    private long[] amountsMinor = new long[16];
+    private int[] counterpartyIndexes = new int[16];
+    private String[] references = new String[16];
+    private int[] pages = new int[16];
+    private int size;
+    private int encodedBytes;
+    private boolean truncated;
+    private final List<String> counterpartyDictionary = new ArrayList<>();
+    private final Map<String, Integer> counterpartyIds = new HashMap<>();
+    private final StringBuilder counterparty = new StringBuilder(MAX_COUNTERPARTY_LENGTH);
+
+    // The keywords seen on the current line: the longest transaction keyword, and the first reference keyword
+    private int transactionKeyword;
+    private int transactionKeywordEnd;
+    private int referenceStart;
+    private int referenceEnd;
+    private boolean balanceLine;
+
+    public TransactionLineExtractor(TransactionRules rules, int maxLines, int maxBytes) {
+        this.rules = rules;
+        this.maxLines = maxLines;
+        this.maxBytes = maxBytes;
+        this.dateMatcher = rules.date.matcher("");
+        this.amountMatcher = rules.amount.matcher("");
+        this.referenceMatcher = rules.reference.matcher("");
+    }
+
+    @Override
+    public void accept(int pageNumber, String pageText) {
+        if (truncated) {
+            return;
+        }
+        dateMatcher.reset(pageText);
+        amountMatcher.reset(pageText);
+        referenceMatcher.reset(pageText);
+        int length = pageText.length();
+        int lineStart = 0;
+        int state = rules.startState;
+        int previousSymbol = TransactionRules.SEPARATOR;
+        startLine();
+        for (int i = 0; i < length; i++) {
+            char c = pageText.charAt(i);
+            if (c == '\n' || c == '\r') {
+                endLine(pageText, lineStart, i, pageNumber);
+                lineStart = i + 1;
+                state = rules.startState;
+                previousSymbol = TransactionRules.SEPARATOR;
+                startLine();
+                continue;
+            }
+            int symbol = TransactionRules.symbol(c);
+            // A run of separators is one separator, so "CARD  PAYMENT" still matches
+            if (symbol == TransactionRules.SEPARATOR && previousSymbol == TransactionRules.SEPARATOR) {
+                continue;
+            }
+            previousSymbol = symbol;
+            state = rules.next(state, symbol);
+            int keyword = rules.matches[state];
+            if (keyword >= 0 && (i + 1 == length || TransactionRules.symbol(pageText.charAt(i + 1)) == TransactionRules.SEPARATOR)) {
+                keywordAt(pageText, keyword, i + 1);
+            }
+        }
+        endLine(pageText, lineStart, length, pageNumber);
+    }
+
+    public TransactionLines transactionLines() {
+        return new TransactionLines(Arrays.copyOf(dates, size), Arrays.copyOf(amountsMinor, size),
+                List.copyOf(counterpartyDictionary), Arrays.copyOf(counterpartyIndexes, size),
+                Arrays.copyOf(references, size), Arrays.copyOf(pages, size), truncated);
+    }
+
+    private void startLine() {
+        transactionKeyword = -1;
+        transactionKeywordEnd = -1;
+        referenceStart = -1;
+        referenceEnd = -1;
+        balanceLine = false;
+    }
+
+    private void keywordAt(String text, int keyword, int end) {
+        switch (rules.kind(keyword)) {
+            case BALANCE -> balanceLine = true;
+            case REFERENCE -> {
+                if (referenceEnd < 0) {
+                    referenceEnd = end;
+                    referenceStart = keywordStart(text, keyword, end);
+                }
+            }
+            default -> {
+                if (transactionKeyword < 0
+                        || rules.keywordText(keyword).length() > rules.keywordText(transactionKeyword).length()) {
+                    transactionKeyword = keyword;
+                    transactionKeywordEnd = end;
+                }
+            }
+        }
+    }
+
+    private void endLine(String text, int start, int end, int pageNumber) {
+        if (truncated || transactionKeyword < 0 || balanceLine) {
+            return;
+        }
+        dateMatcher.region(start, end);
+        if (!dateMatcher.lookingAt()) {
+            return;
+        }
+        int date = epochDay(text);
+        if (date == Integer.MIN_VALUE) {
+            return;
+        }
+        int dateEnd = dateMatcher.end();
+
+        // The amounts are the last tokens of the line, so they are looked for from its end: the amount regex
+        // is tried at the start of each token going back, past a CR/DR marker, until a token is no amount.
+        // With two amounts the last one is the running balance and the one before it is taken.
+        int amountStart = -1;
+        long amount = 0;
+        boolean amountSigned = false;
+        int amountsFound = 0;
+        int tokenEnd = end;
+        while (amountsFound < 2) {
+            while (tokenEnd > dateEnd && Character.isWhitespace(text.charAt(tokenEnd - 1))) {
+                tokenEnd--;
+            }
+            int tokenStart = tokenEnd;
+            while (tokenStart > dateEnd && !Character.isWhitespace(text.charAt(tokenStart - 1))) {
+                tokenStart--;
+            }
+            if (tokenStart == tokenEnd) {
+                break;
+            }
+            if (isDebitCreditMarker(text, tokenStart, tokenEnd)) {
+                tokenEnd = tokenStart;
+                continue;
+            }
+            amountMatcher.region(tokenStart, end);
+            if (!amountMatcher.lookingAt()) {
+                break;
+            }
+            amountStart = tokenStart;
+            amount = amountMinor(text);
+            amountSigned = amountMatcher.start(1) >= 0 || amountMatcher.start(2) >= 0 || amountMatcher.start(6) >= 0;
+            amountsFound++;
+            tokenEnd = tokenStart;
+        }
+        if (amountsFound == 0) {
+            return;
+        }
+        // An unsigned amount takes the direction of the keyword
+        if (!amountSigned && rules.kind(transactionKeyword) == TransactionRules.Kind.DEBIT) {
+            amount = -amount;
+        }
+        if (size >= maxLines) {
+            truncated = true;
+            return;
+        }
+
+        String reference = null;
+        int nameEnd = amountStart;
+        if (referenceEnd >= 0 && referenceEnd <= amountStart) {
+            referenceMatcher.region(referenceEnd, amountStart);
+            if (referenceMatcher.lookingAt() && hasDigit(text, referenceMatcher.start(1), referenceMatcher.end(1))) {
+                reference = text.substring(referenceMatcher.start(1), referenceMatcher.end(1));
+            }
+            nameEnd = referenceStart;
+        }
+
+        // The counterparty follows the transaction keyword, or precedes it when nothing does
+        String name = null;
+        if (transactionKeywordEnd <= nameEnd) {
+            name = counterparty(text, Math.max(transactionKeywordEnd, dateEnd), nameEnd);
+        }
+        if (name == null) {
+            int keywordStart = keywordStart(text, transactionKeyword, transactionKeywordEnd);
+            if (keywordStart > dateEnd) {
+                name = counterparty(text, dateEnd, Math.min(keywordStart, nameEnd));
+            }
+        }
+        Integer known = name == null ? null : counterpartyIds.get(name);
+        int bytes = LINE_BYTES + (reference == null ? 0 : reference.length() + 2)
+                + (name != null && known == null ? name.length() + 3 : 0);
+        if (encodedBytes + bytes > maxBytes) {
+            truncated = true;
+            return;
+        }
+        encodedBytes += bytes;
+        int counterpartyIndex = -1;
+        if (known != null) {
+            counterpartyIndex = known;
+        } else if (name != null) {
+            counterpartyIndex = counterpartyDictionary.size();
+            counterpartyDictionary.add(name);
+            counterpartyIds.put(name, counterpartyIndex);
+        }
+        add(date, amount, counterpartyIndex, reference, pageNumber);
+    }
+
+    private void add(int date, long amount, int counterpartyIndex, String reference, int pageNumber) {
+        if (size == dates.length) {
+            int capacity = Math.min(maxLines, size * 2);
+            dates = Arrays.copyOf(dates, capacity);
+            amountsMinor = Arrays.copyOf(amountsMinor, capacity);
+            counterpartyIndexes = Arrays.copyOf(counterpartyIndexes, capacity);
+            references = Arrays.copyOf(references, capacity);
+            pages = Arrays.copyOf(pages, capacity);
+        }
+        dates[size] = date;
+        amountsMinor[size] = amount;
+        counterpartyIndexes[size] = counterpartyIndex;
+        references[size] = reference;
+        pages[size] = pageNumber;
+        size++;
+    }
+
+    // Integer.MIN_VALUE when the digits do not make a valid date
+    private int epochDay(String text) {
+        int day;
+        int month;
+        int year;
+        if (dateMatcher.start(1) >= 0) {
+            int first = number(text, dateMatcher.start(1), dateMatcher.end(1));
+            int second = number(text, dateMatcher.start(2), dateMatcher.end(2));
+            day = rules.dateOrder == TransactionRules.DateOrder.DMY ? first : second;
+            month = rules.dateOrder == TransactionRules.DateOrder.DMY ? second : first;
+            year = year(text, dateMatcher.start(3), dateMatcher.end(3));
+        } else if (dateMatcher.start(4) >= 0) {
+            year = number(text, dateMatcher.start(4), dateMatcher.end(4));
+            month = number(text, dateMatcher.start(5), dateMatcher.end(5));
+            day = number(text, dateMatcher.start(6), dateMatcher.end(6));
+        } else {
+            day = number(text, dateMatcher.start(7), dateMatcher.end(7));
+            month = month(text, dateMatcher.start(8));
+            year = year(text, dateMatcher.start(9), dateMatcher.end(9));
+        }
+        try {
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return Integer.MIN_VALUE;
+        }
+    }
+
+    private long amountMinor(String text) {
+        long units = 0;
+        for (int i = amountMatcher.start(3); i < amountMatcher.end(3); i++) {
+            char c = text.charAt(i);
+            if (c != ',') {
+                units = units * 10 + (c - '0');
+            }
+        }
+        long minor = units * 100 + number(text, amountMatcher.start(4), amountMatcher.end(4));
+        boolean negative = amountMatcher.start(1) >= 0 && amountMatcher.start(5) >= 0
+                || amountMatcher.start(2) >= 0 && text.charAt(amountMatcher.start(2)) == '-'
+                || amountMatcher.start(6) >= 0 && text.charAt(amountMatcher.start(6)) == 'D';
+        return negative ? -minor : minor;
+    }
+
+    // Trimmed, quotes and punctuation stripped from both ends, whitespace runs collapsed; null when empty
+    private String counterparty(String text, int start, int end) {
+        while (start < end && !Character.isLetterOrDigit(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && !Character.isLetterOrDigit(text.charAt(end - 1)) && text.charAt(end - 1) != ')') {
+            end--;
+        }
+        if (start >= end) {
+            return null;
+        }
+        counterparty.setLength(0);
+        boolean space = false;
+        for (int i = start; i < end && counterparty.length() < MAX_COUNTERPARTY_LENGTH; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '"') {
+                space = true;
+            } else {
+                if (space) {
+                    counterparty.append(' ');
+                    space = false;
+                }
+                counterparty.append(c);
+            }
+        }
+        return counterparty.toString();
+    }
+
+    // Walks back over the keyword's characters from its end; a separator in the keyword may be a run in the text
+    private int keywordStart(String text, int keyword, int end) {
+        String keywordText = rules.keywordText(keyword);
+        int i = end;
+        for (int k = keywordText.length() - 1; k >= 0; k--) {
+            if (keywordText.charAt(k) == ' ') {
+                while (i > 0 && TransactionRules.symbol(text.charAt(i - 1)) == TransactionRules.SEPARATOR) {
+                    i--;
+                }
+            } else {
+                i--;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isDebitCreditMarker(String text, int start, int end) {
+        return end - start == 2 && (text.regionMatches(true, start, "CR", 0, 2) || text.regionMatches(true, start, "DR", 0, 2));
+    }
+
+    private static boolean hasDigit(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (Character.isDigit(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int number(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static int year(String text, int start, int end) {
+        int year = number(text, start, end);
+        return end - start == 2 ? 2000 + year : year;
+    }
+
+    // 0 for an unknown month name, which LocalDate rejects
+    private static int month(String text, int start) {
+        String name = text.substring(start, start + 3).toUpperCase(Locale.ROOT);
+        return switch (name) {
+            case "JAN" -> 1;
+            case "FEB" -> 2;
+            case "MAR" -> 3;
+            case "APR" -> 4;
+            case "MAY" -> 5;
+            case "JUN" -> 6;
+            case "JUL" -> 7;
+            case "AUG" -> 8;
+            case "SEP" -> 9;
+            case "OCT" -> 10;
+            case "NOV" -> 11;
+            case "DEC" -> 12;
+            default -> 0;
+        };
+    }
+}
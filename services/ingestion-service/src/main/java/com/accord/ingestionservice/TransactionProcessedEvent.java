@@ -1,9 +0,0 @@
-package com.accord.ingestionservice;
-
-public record TransactionProcessedEvent(
-        String bucketName,
-        String fileKey,
-        long fileSize,
-        int pageCount,
-        String textSnippet
-) {}
\ No newline at end of file
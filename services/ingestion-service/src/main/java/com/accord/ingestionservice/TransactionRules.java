@@ -0,0 +1,171 @@
+package com.accord.ingestionservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// The compiled rule set of the transaction line stage, built once and shared by every document.
+// Statement keywords are matched with an Aho-Corasick automaton compiled into a dense transition table
+// over a small alphabet (letters case-folded, any punctuation or whitespace run is one separator), so
+// a page costs one table lookup per character however many keywords there are. Keywords are compiled
+// with a leading separator and are only taken when a separator follows, so they match whole words.
+// The regexes for dates, amounts and references only run on the lines a keyword anchored.
+@Component
+public class TransactionRules {
+
+    // DEBIT and CREDIT keywords also give the direction of an unsigned amount. REFERENCE anchors the
+    // payment reference, and BALANCE marks the balance lines a statement repeats, which are not transactions.
+    enum Kind {
+        DEBIT, CREDIT, TRANSACTION, REFERENCE, BALANCE
+    }
+
+    public enum DateOrder {
+        DMY, MDY
+    }
+
+    private record Keyword(String text, Kind kind) {}
+
+    private static final List<Keyword> KEYWORDS = List.of(
+            new Keyword("CARD PAYMENT", Kind.DEBIT), new Keyword("DIRECT DEBIT", Kind.DEBIT),
+            new Keyword("STANDING ORDER", Kind.DEBIT), new Keyword("BILL PAYMENT", Kind.DEBIT),
+            new Keyword("WITHDRAWAL", Kind.DEBIT), new Keyword("CASH", Kind.DEBIT), new Keyword("ATM", Kind.DEBIT),
+            new Keyword("POS", Kind.DEBIT), new Keyword("PURCHASE", Kind.DEBIT), new Keyword("FEE", Kind.DEBIT),
+            new Keyword("CHARGE", Kind.DEBIT), new Keyword("DEBIT", Kind.DEBIT),
+            new Keyword("DEPOSIT", Kind.CREDIT), new Keyword("SALARY", Kind.CREDIT), new Keyword("REFUND", Kind.CREDIT),
+            new Keyword("INTEREST", Kind.CREDIT), new Keyword("CREDIT", Kind.CREDIT),
+            new Keyword("TRANSFER IN", Kind.CREDIT), new Keyword("PAYMENT RECEIVED", Kind.CREDIT),
+            new Keyword("TRANSFER", Kind.TRANSACTION), new Keyword("PAYMENT", Kind.TRANSACTION),
+            new Keyword("FASTER PAYMENT", Kind.TRANSACTION), new Keyword("CHEQUE", Kind.TRANSACTION),
+            new Keyword("BACS", Kind.TRANSACTION), new Keyword("SEPA", Kind.TRANSACTION), new Keyword("WIRE", Kind.TRANSACTION),
+            new Keyword("REF", Kind.REFERENCE), new Keyword("REFERENCE", Kind.REFERENCE),
+            new Keyword("OPENING BALANCE", Kind.BALANCE), new Keyword("CLOSING BALANCE", Kind.BALANCE),
+            new Keyword("BROUGHT FORWARD", Kind.BALANCE), new Keyword("CARRIED FORWARD", Kind.BALANCE));
+
+    // Symbol classes: 0 for digits and non-ASCII characters (no keyword contains them), 1 for separators, 2..27 for A-Z
+    static final int OTHER = 0;
+    static final int SEPARATOR = 1;
+    private static final int SYMBOLS = 28;
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            if (c >= 'A' && c <= 'Z') {
+                CLASSES[c] = (byte) (2 + c - 'A');
+            } else if (c >= 'a' && c <= 'z') {
+                CLASSES[c] = (byte) (2 + c - 'a');
+            } else if (c >= '0' && c <= '9') {
+                CLASSES[c] = OTHER;
+            } else {
+                CLASSES[c] = SEPARATOR;
+            }
+        }
+    }
+
+    // A date at the start of the line: 04/03/2024, 04.03.24, 2024-03-04 or 4 Mar 2024
+    final Pattern date = Pattern.compile(
+            "\\s*(?:(\\d{1,2})[/.-](\\d{1,2})[/.-](\\d{4}|\\d{2})|(\\d{4})-(\\d{2})-(\\d{2})|(\\d{1,2})\\s+([A-Za-z]{3})[a-z]*\\.?\\s+(\\d{4}|\\d{2}))(?![\\d/.-])");
+    // 1,204.77  -54.20  (54.20)  $54.20  54.20 DR, with an optional $, pound or euro sign; at most 15
+    // integer digits, so the amount in minor units always fits in a long
+    final Pattern amount = Pattern.compile(
+            "(?<![\\w.,-])(\\()?([-+])?[$\\u00A3\\u20AC]?\\s?(\\d{1,3}(?:,\\d{3}){1,4}|\\d{1,15})\\.(\\d{2})(\\))?(?:\\s?(CR|DR)\\b)?(?![\\w.,])");
+    // After a REFERENCE keyword: optional 'NO', '#' or ':', then a token
+    final Pattern reference = Pattern.compile("[\\s:.#]*(?:NO\\b[\\s:.#]*)?([A-Za-z0-9][A-Za-z0-9/-]{2,31})");
+
+    final DateOrder dateOrder;
+    final int startState;
+    final int[] transitions;
+    // Per state the longest keyword that ends there, or -1
+    final int[] matches;
+    private final String[] keywordTexts;
+    private final Kind[] keywordKinds;
+
+    public TransactionRules(@Value("${app.pdf.transactions.date-order:DMY}") DateOrder dateOrder) {
+        this.dateOrder = dateOrder;
+        this.keywordTexts = new String[KEYWORDS.size()];
+        this.keywordKinds = new Kind[KEYWORDS.size()];
+
+        // Trie over the symbol classes, every keyword with its leading separator
+        List<int[]> children = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        children.add(newNode());
+        terminal.add(-1);
+        for (int k = 0; k < KEYWORDS.size(); k++) {
+            Keyword keyword = KEYWORDS.get(k);
+            keywordTexts[k] = keyword.text();
+            keywordKinds[k] = keyword.kind();
+            int state = 0;
+            String text = " " + keyword.text().toUpperCase(Locale.ROOT);
+            for (int i = 0; i < text.length(); i++) {
+                int symbol = symbol(text.charAt(i));
+                if (symbol == OTHER) {
+                    throw new IllegalArgumentException("Keywords are letters and spaces only: " + keyword.text());
+                }
+                if (children.get(state)[symbol] == 0) {
+                    children.get(state)[symbol] = children.size();
+                    children.add(newNode());
+                    terminal.add(-1);
+                }
+                state = children.get(state)[symbol];
+            }
+            terminal.set(state, k);
+        }
+
+        // Breadth first, failure links are folded into a complete transition table (a DFA)
+        int states = children.size();
+        this.transitions = new int[states * SYMBOLS];
+        this.matches = new int[states];
+        int[] failure = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        matches[0] = -1;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            int child = children.get(0)[symbol];
+            transitions[symbol] = child;
+            if (child != 0) {
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            matches[state] = terminal.get(state) >= 0 ? terminal.get(state) : matches[failure[state]];
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                int child = children.get(state)[symbol];
+                if (child != 0) {
+                    failure[child] = transitions[failure[state] * SYMBOLS + symbol];
+                    transitions[state * SYMBOLS + symbol] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * SYMBOLS + symbol] = transitions[failure[state] * SYMBOLS + symbol];
+                }
+            }
+        }
+        // Every line starts as if after a separator
+        this.startState = transitions[SEPARATOR];
+    }
+
+    private static int[] newNode() {
+        return new int[SYMBOLS];
+    }
+
+    static int symbol(char c) {
+        return c < 128 ? CLASSES[c] : OTHER;
+    }
+
+    int next(int state, int symbol) {
+        return transitions[state * SYMBOLS + symbol];
+    }
+
+    Kind kind(int keyword) {
+        return keywordKinds[keyword];
+    }
+
+    // As listed above, without the leading separator
+    String keywordText(int keyword) {
+        return keywordTexts[keyword];
+    }
+}
@@ -0,0 +1,62 @@
+package com.accord.ingestionservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BackfillCheckpointTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void savesOnlyUpToTheFirstItemStillInFlight() throws Exception {
+		Path file = directory.resolve("checkpoint.json");
+		BackfillCheckpoint checkpoint = BackfillCheckpoint.load(objectMapper, file, "s3://evidence/2024/");
+		BackfillCheckpoint.PartitionProgress progress = checkpoint.start("tree:2024/03/");
+		var first = progress.listed(new BackfillItem("evidence", "2024/03/a.pdf", null, 0));
+		var second = progress.listed(new BackfillItem("evidence", "2024/03/b.pdf", null, 1));
+		var third = progress.listed(new BackfillItem("evidence", "2024/03/c.pdf", null, 2));
+
+		progress.completed(first);
+		progress.completed(third);
+		checkpoint.save();
+
+		BackfillCheckpoint.PartitionState state = BackfillCheckpoint.load(objectMapper, file, "s3://evidence/2024/")
+				.state("tree:2024/03/");
+		assertThat(state.complete()).isFalse();
+		assertThat(state.lastKey()).isEqualTo("2024/03/a.pdf");
+		assertThat(state.position()).isEqualTo(1);
+
+		progress.completed(second);
+		progress.listingDone();
+		checkpoint.save();
+
+		state = BackfillCheckpoint.load(objectMapper, file, "s3://evidence/2024/").state("tree:2024/03/");
+		assertThat(state.complete()).isTrue();
+		assertThat(state.lastKey()).isEqualTo("2024/03/c.pdf");
+	}
+
+	@Test
+	void refusesACheckpointOfAnotherSource() throws Exception {
+		Path file = directory.resolve("checkpoint.json");
+		BackfillCheckpoint.load(objectMapper, file, "s3://evidence/2024/").save();
+
+		assertThatThrownBy(() -> BackfillCheckpoint.load(objectMapper, file, "s3://evidence/2023/"))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void parsesQuotedInventoryLines() {
+		String[] columns = InventoryManifestSource.parseCsvLine("\"evidence\",\"2024/03/st%C3%A9ment+1.pdf\",\"1024\"");
+
+		assertThat(columns).containsExactly("evidence", "2024/03/st%C3%A9ment+1.pdf", "1024");
+	}
+}
@@ -0,0 +1,54 @@
+package com.accord.ingestionservice;
+
+import com.accord.events.TransactionLines;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExtractionCacheTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ExtractionResult result = new ExtractionResult(1024, 2, "Statement", 30, new int[]{10, 20},
+			"ab12", new int[]{1, 2, 3}, new TransactionLines(new int[]{19786}, new long[]{-5420}, List.of("GROCER & SONS"),
+					new int[]{0}, new String[]{"INV-2024-031"}, new int[]{1}, false));
+
+	@TempDir
+	Path diskDirectory;
+
+	@Test
+	void keysDifferByVersionAndSettings() throws Exception {
+		ExtractionCache cache = newCache("");
+		ExtractionKey key = ExtractionKey.of("evidence", "a.pdf", null, "\"etag-1\"", "snippet=500");
+		cache.put(key, result);
+
+		assertThat(cache.get(key)).isSameAs(result);
+		assertThat(cache.get(ExtractionKey.of("evidence", "a.pdf", null, "\"etag-2\"", "snippet=500"))).isNull();
+		assertThat(cache.get(ExtractionKey.of("evidence", "a.pdf", null, "\"etag-1\"", "snippet=200"))).isNull();
+	}
+
+	@Test
+	void survivesARestartThroughTheDiskTier() throws Exception {
+		ExtractionKey key = ExtractionKey.of("evidence", "a.pdf", "3HL4kqtJlcpXroDTDmJ", "\"etag-1\"", "snippet=500");
+		newCache(diskDirectory.toString()).put(key, result);
+
+		ExtractionResult restored = newCache(diskDirectory.toString()).get(key);
+
+		assertThat(restored.textSnippet()).isEqualTo(result.textSnippet());
+		assertThat(restored.pageCharCounts()).containsExactly(10, 20);
+		assertThat(restored.minHashSignature()).containsExactly(1, 2, 3);
+		assertThat(restored.transactionLines().amountsMinor()).containsExactly(-5420);
+		assertThat(restored.transactionLines().counterparty(0)).isEqualTo("GROCER & SONS");
+		assertThat(meterRegistry.counter("accord.ingestion.extraction_cache", "result", "disk_hit").count()).isEqualTo(1);
+	}
+
+	private ExtractionCache newCache(String diskDirectory) throws Exception {
+		return new ExtractionCache(objectMapper, new PipelineMetrics(meterRegistry), true, 1024 * 1024, diskDirectory, 100);
+	}
+}
@@ -0,0 +1,108 @@
+package com.accord.ingestionservice;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedSpoolFileTests {
+
+	// 16-byte chunks, so small files cross several chunk boundaries
+	private static final int CHUNK_SHIFT = 4;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsAcrossChunkBoundaries() throws Exception {
+		byte[] content = content(50);
+		try (MappedSpoolFile spoolFile = MappedSpoolFile.map(write(content), CHUNK_SHIFT, () -> {});
+			 RandomAccessRead reader = spoolFile.newReader()) {
+			assertThat(reader.length()).isEqualTo(50);
+			assertThat(reader.readFully(50)).isEqualTo(content);
+			assertThat(reader.isEOF()).isTrue();
+			assertThat(reader.read()).isEqualTo(-1);
+
+			reader.seek(14);
+			byte[] buffer = new byte[20];
+			assertThat(reader.read(buffer, 0, buffer.length)).isEqualTo(20);
+			assertThat(buffer).isEqualTo(slice(content, 14, 20));
+			assertThat(reader.getPosition()).isEqualTo(34);
+
+			assertThat(reader.peek()).isEqualTo(content[34] & 0xff);
+			assertThat(reader.getPosition()).isEqualTo(34);
+			reader.rewind(3);
+			assertThat(reader.read()).isEqualTo(content[31] & 0xff);
+
+			reader.seek(45);
+			assertThat(reader.available()).isEqualTo(5);
+			assertThat(reader.read(buffer)).isEqualTo(5);
+			assertThat(reader.read(buffer)).isEqualTo(-1);
+		}
+	}
+
+	@Test
+	void readersHaveTheirOwnPosition() throws Exception {
+		byte[] content = content(40);
+		try (MappedSpoolFile spoolFile = MappedSpoolFile.map(write(content), CHUNK_SHIFT, () -> {});
+			 RandomAccessRead first = spoolFile.newReader();
+			 RandomAccessRead second = spoolFile.newReader()) {
+			first.seek(20);
+			assertThat(second.read()).isEqualTo(content[0] & 0xff);
+			assertThat(first.read()).isEqualTo(content[20] & 0xff);
+		}
+	}
+
+	@Test
+	void hashesTheWholeFile() throws Exception {
+		byte[] content = content(100);
+		try (MappedSpoolFile spoolFile = MappedSpoolFile.map(write(content), CHUNK_SHIFT, () -> {})) {
+			assertThat(spoolFile.sha256())
+					.isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)));
+		}
+	}
+
+	@Test
+	void closeDeletesTheFileAndRunsTheCallbackOnce() throws Exception {
+		Path file = write(content(30));
+		AtomicInteger released = new AtomicInteger();
+		MappedSpoolFile spoolFile = MappedSpoolFile.map(file, CHUNK_SHIFT, released::incrementAndGet);
+		RandomAccessRead reader = spoolFile.newReader();
+		reader.close();
+
+		spoolFile.close();
+		spoolFile.close();
+
+		assertThat(file).doesNotExist();
+		assertThat(released).hasValue(1);
+		assertThatThrownBy(spoolFile::newReader).isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(reader::read).isInstanceOf(IOException.class);
+	}
+
+	private Path write(byte[] content) throws IOException {
+		return Files.write(directory.resolve("spool.pdf"), content);
+	}
+
+	private static byte[] content(int length) {
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) (i * 7 + 3);
+		}
+		return content;
+	}
+
+	private static byte[] slice(byte[] content, int offset, int length) {
+		byte[] slice = new byte[length];
+		System.arraycopy(content, offset, slice, 0, length);
+		return slice;
+	}
+}
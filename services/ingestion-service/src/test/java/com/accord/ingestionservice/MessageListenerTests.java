@@ -0,0 +1,241 @@
+package com.accord.ingestionservice;
+
+import com.accord.messaging.ProcessingLedger;
+import com.accord.messaging.VisibilityBackoff;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageListenerTests {
+
+	// Publishes nothing: each key either completes, fails, or waits on the barrier before completing
+	private static class FakeEvidenceProcessor extends EvidenceProcessor {
+
+		private final Set<String> failingKeys;
+		private final CountDownLatch barrier;
+		private final List<String> processed = new CopyOnWriteArrayList<>();
+		private final List<String> versions = new CopyOnWriteArrayList<>();
+		private volatile boolean barrierTimedOut;
+
+		FakeEvidenceProcessor(Set<String> failingKeys, CountDownLatch barrier) {
+			super(null, null, null, null, null, null, null, null, 500, false, false, 128, 3, false, 1000, 16384, 1);
+			this.failingKeys = failingKeys;
+			this.barrier = barrier;
+		}
+
+		@Override
+		public CompletableFuture<Void> processPdfAndPublishEvent(String bucketName, String objectKey, String versionId,
+																  String eTag, long size) throws InterruptedException {
+			processed.add(objectKey);
+			versions.add(versionId + " " + eTag + " " + size);
+			barrier.countDown();
+			if (!barrier.await(5, TimeUnit.SECONDS)) {
+				barrierTimedOut = true;
+			}
+			return failingKeys.contains(objectKey)
+					? CompletableFuture.failedFuture(new IllegalStateException("SNS rejected " + objectKey))
+					: CompletableFuture.completedFuture(null);
+		}
+	}
+
+	// Claims every key unless a state was preset for it, and records what was completed and released
+	private static class FakeLedger implements ProcessingLedger {
+
+		private final Map<String, State> presetStates = new HashMap<>();
+		private final List<String> completed = new CopyOnWriteArrayList<>();
+		private final List<String> released = new CopyOnWriteArrayList<>();
+		private boolean unavailable;
+
+		@Override
+		public List<State> claim(List<String> keys) {
+			if (unavailable) {
+				throw new IllegalStateException("ledger down");
+			}
+			return keys.stream().map(key -> presetStates.getOrDefault(key, State.CLAIMED)).toList();
+		}
+
+		@Override
+		public void complete(List<String> keys) {
+			completed.addAll(keys);
+		}
+
+		@Override
+		public void release(List<String> keys) {
+			released.addAll(keys);
+		}
+	}
+
+	private static class RecordingAcknowledgement implements BatchAcknowledgement<String> {
+
+		private final List<Message<String>> acknowledged = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void acknowledge() {
+			throw new UnsupportedOperationException("the listener acknowledges message by message");
+		}
+
+		@Override
+		public CompletableFuture<Void> acknowledgeAsync() {
+			throw new UnsupportedOperationException("the listener acknowledges message by message");
+		}
+
+		@Override
+		public void acknowledge(Collection<Message<String>> messages) {
+			acknowledged.addAll(messages);
+		}
+
+		@Override
+		public CompletableFuture<Void> acknowledgeAsync(Collection<Message<String>> messages) {
+			acknowledged.addAll(messages);
+			return CompletableFuture.completedFuture(null);
+		}
+	}
+
+	private final ExecutorService pdfWorkerExecutor = Executors.newFixedThreadPool(4);
+	private final FakeLedger ledger = new FakeLedger();
+	private final RecordingAcknowledgement acknowledgement = new RecordingAcknowledgement();
+	private final List<Message<?>> retried = new CopyOnWriteArrayList<>();
+	private final List<Message<?>> retriedSoon = new CopyOnWriteArrayList<>();
+	private final VisibilityBackoff visibilityBackoff = new VisibilityBackoff(Duration.ofSeconds(1), Duration.ofSeconds(1)) {
+		@Override
+		public CompletableFuture<Void> retryLater(Message<?> message) {
+			retried.add(message);
+			return CompletableFuture.completedFuture(null);
+		}
+
+		@Override
+		public CompletableFuture<Void> retrySoon(Message<?> message) {
+			retriedSoon.add(message);
+			return CompletableFuture.completedFuture(null);
+		}
+	};
+
+	@AfterEach
+	void tearDown() {
+		pdfWorkerExecutor.shutdownNow();
+	}
+
+	@Test
+	void fansEveryRecordOfTheBatchOutToThePdfWorkers() {
+		// Every record waits until all three have started, so this only passes if they run side by side
+		FakeEvidenceProcessor processor = new FakeEvidenceProcessor(Set.of(), new CountDownLatch(3));
+		Message<String> first = notification("a.pdf", "b.pdf");
+		Message<String> second = notification("c.pdf");
+
+		listener(processor).receiveMessages(List.of(first, second), acknowledgement);
+
+		assertThat(processor.processed).containsExactlyInAnyOrder("a.pdf", "b.pdf", "c.pdf");
+		assertThat(processor.barrierTimedOut).isFalse();
+		assertThat(acknowledgement.acknowledged).containsExactlyInAnyOrder(first, second);
+		assertThat(ledger.completed).containsExactlyInAnyOrder("evidence/a.pdf@v1", "evidence/b.pdf@v1", "evidence/c.pdf@v1");
+		assertThat(retried).isEmpty();
+	}
+
+	@Test
+	void acknowledgesEachMessageOnItsOwnAndLeavesFailuresForRedelivery() {
+		FakeEvidenceProcessor processor = new FakeEvidenceProcessor(Set.of("b.pdf"), new CountDownLatch(0));
+		Message<String> succeeding = notification("a.pdf");
+		Message<String> failing = notification("b.pdf", "c.pdf");
+
+		listener(processor).receiveMessages(List.of(succeeding, failing), acknowledgement);
+
+		assertThat(acknowledgement.acknowledged).containsExactly(succeeding);
+		assertThat(retried).containsExactly(failing);
+		// The sibling record that succeeded stays done, so the redelivery only reprocesses b.pdf
+		assertThat(ledger.completed).containsExactlyInAnyOrder("evidence/a.pdf@v1", "evidence/c.pdf@v1");
+		assertThat(ledger.released).containsExactly("evidence/b.pdf@v1");
+	}
+
+	@Test
+	void skipsProcessedObjectsAndRetriesThoseHeldElsewhere() {
+		FakeEvidenceProcessor processor = new FakeEvidenceProcessor(Set.of(), new CountDownLatch(0));
+		ledger.presetStates.put("evidence/done.pdf@v1", ProcessingLedger.State.DONE);
+		ledger.presetStates.put("evidence/busy.pdf@v1", ProcessingLedger.State.IN_PROGRESS);
+		Message<String> done = notification("done.pdf");
+		Message<String> busy = notification("busy.pdf");
+
+		listener(processor).receiveMessages(List.of(done, busy), acknowledgement);
+
+		assertThat(processor.processed).isEmpty();
+		assertThat(acknowledgement.acknowledged).containsExactly(done);
+		assertThat(retried).isEmpty();
+		assertThat(retriedSoon).containsExactly(busy);
+	}
+
+	@Test
+	void leavesUnreadableNotificationsForRedelivery() {
+		FakeEvidenceProcessor processor = new FakeEvidenceProcessor(Set.of(), new CountDownLatch(0));
+		Message<String> unreadable = MessageBuilder.withPayload("not an S3 event").build();
+		Message<String> readable = notification("a.pdf");
+
+		listener(processor).receiveMessages(List.of(unreadable, readable), acknowledgement);
+
+		assertThat(processor.processed).containsExactly("a.pdf");
+		assertThat(acknowledgement.acknowledged).containsExactly(readable);
+		assertThat(retried).containsExactly(unreadable);
+	}
+
+	@Test
+	void leavesTheWholeBatchForRedeliveryWhenTheLedgerIsDown() {
+		FakeEvidenceProcessor processor = new FakeEvidenceProcessor(Set.of(), new CountDownLatch(0));
+		ledger.unavailable = true;
+		Message<String> first = notification("a.pdf");
+		Message<String> second = notification("b.pdf");
+
+		listener(processor).receiveMessages(List.of(first, second), acknowledgement);
+
+		assertThat(processor.processed).isEmpty();
+		assertThat(acknowledgement.acknowledged).isEmpty();
+		assertThat(retried).containsExactly(first, second);
+	}
+
+	@Test
+	void passesTheVersionTheNotificationAnnouncedToTheProcessor() {
+		FakeEvidenceProcessor processor = new FakeEvidenceProcessor(Set.of(), new CountDownLatch(0));
+		Message<String> announced = MessageBuilder.withPayload("{\"Records\":[{\"s3\":{\"bucket\":{\"name\":\"evidence\"},"
+				+ "\"object\":{\"key\":\"a.pdf\",\"size\":482113,\"eTag\":\"d41d8cd98f00b204e9800998ecf8427e\","
+				+ "\"versionId\":\"v2\"}}}]}").build();
+		Message<String> bare = notification("b.pdf");
+
+		listener(processor).receiveMessages(List.of(announced, bare), acknowledgement);
+
+		// Without an eTag the processor falls back to a HeadObject
+		assertThat(processor.versions).containsExactlyInAnyOrder("v2 d41d8cd98f00b204e9800998ecf8427e 482113", "v1 null -1");
+	}
+
+	private MessageListener listener(EvidenceProcessor processor) {
+		return new MessageListener(new ObjectMapper(), processor, pdfWorkerExecutor,
+				new PipelineMetrics(new SimpleMeterRegistry()), ledger, visibilityBackoff);
+	}
+
+	private static Message<String> notification(String... objectKeys) {
+		StringBuilder records = new StringBuilder();
+		for (String objectKey : objectKeys) {
+			if (!records.isEmpty()) {
+				records.append(',');
+			}
+			records.append("{\"s3\":{\"bucket\":{\"name\":\"evidence\"},\"object\":{\"key\":\"")
+					.append(objectKey).append("\",\"versionId\":\"v1\"}}}");
+		}
+		return MessageBuilder.withPayload("{\"Records\":[" + records + "]}").build();
+	}
+}
@@ -0,0 +1,84 @@
+package com.accord.ingestionservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MinHashFingerprinterTests {
+
+	private static final String STATEMENT = "Statement of account 2024: ACME Ltd paid 9.99 GBP";
+
+	@Test
+	void signaturesDoNotChangeBetweenBuilds() {
+		// The fraud service compares signatures from every ingestion instance and release, so the seeds
+		// and hashing must not drift; a deliberate change needs the fraud index to be rebuilt
+		assertThat(Arrays.copyOf(signature(STATEMENT), 4))
+				.containsExactly(-1658306703, -1441158054, -1824367259, -1156907878);
+	}
+
+	@Test
+	void ignoresCasePunctuationAndPageBreaks() {
+		int[] signature = signature(STATEMENT);
+
+		assertThat(signature("STATEMENT  of account, 2024 -- acme LTD paid 9.99 gbp"))
+				.isEqualTo(signature);
+		assertThat(signature("Statement of account 2024: ACME", "Ltd paid 9.99 GBP"))
+				.isEqualTo(signature);
+	}
+
+	@Test
+	void nearlyIdenticalDocumentsAgreeAlmostEverywhere() {
+		String document = words(1, 300);
+		String edited = document.replaceFirst("w\\d+ ", "changed ");
+
+		assertThat(similarity(signature(document), signature(edited))).isGreaterThan(0.9);
+	}
+
+	@Test
+	void estimatesTheShingleOverlap() {
+		String document = words(1, 300);
+		String firstHalf = document.substring(0, document.length() / 2);
+
+		// Half of the shingles are shared
+		assertThat(similarity(signature(document), signature(firstHalf))).isCloseTo(0.5, within(0.15));
+		assertThat(similarity(signature(document), signature(words(2, 300)))).isLessThan(0.1);
+	}
+
+	@Test
+	void textShorterThanOneShingleHasNoSignature() {
+		assertThat(signature("two words")).isNull();
+		assertThat(signature("three words here")).isNotNull();
+	}
+
+	private static int[] signature(String... pages) {
+		MinHashFingerprinter fingerprinter = new MinHashFingerprinter(128, 3);
+		for (int i = 0; i < pages.length; i++) {
+			fingerprinter.accept(i + 1, pages[i]);
+		}
+		return fingerprinter.signature();
+	}
+
+	private static double similarity(int[] a, int[] b) {
+		int equal = 0;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] == b[i]) {
+				equal++;
+			}
+		}
+		return (double) equal / a.length;
+	}
+
+	// Pseudo-random words from a 500-word vocabulary, a sentence per twelve words
+	private static String words(int seed, int count) {
+		Random random = new Random(seed);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			text.append('w').append(random.nextInt(500)).append(i % 12 == 11 ? ".\n" : " ");
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,181 @@
+package com.accord.ingestionservice;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfTextExtractionTests {
+
+	private static final int PAGE_COUNT = 25;
+	private static final int PAGES_PER_TASK = 2;
+
+	@TempDir
+	Path directory;
+
+	private final PdfTextExtractor pdfTextExtractor = new PdfTextExtractor(16 * 1024 * 1024, -1, "");
+	private ForkJoinPool pageExtractionPool;
+	private File pdfFile;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		pageExtractionPool = new ForkJoinPool(3);
+		pdfFile = writePdf(directory.resolve("statement.pdf").toFile(), PAGE_COUNT);
+	}
+
+	@AfterEach
+	void tearDown() {
+		pageExtractionPool.shutdownNow();
+	}
+
+	@Test
+	void sequentialEngineHandsOutPagesInOrder() throws IOException {
+		RecordingConsumer consumer = new RecordingConsumer(Integer.MAX_VALUE);
+		try (PDDocument document = pdfTextExtractor.load(pdfFile)) {
+			assertThat(pdfTextExtractor.extract(document, List.of(consumer))).isEqualTo(PAGE_COUNT);
+		}
+
+		assertInPageOrder(consumer, PAGE_COUNT);
+	}
+
+	@Test
+	void sequentialEngineStopsOnceEveryConsumerIsSatisfied() throws IOException {
+		RecordingConsumer consumer = new RecordingConsumer(3);
+		SnippetCollector snippetCollector = new SnippetCollector(5);
+		try (PDDocument document = pdfTextExtractor.load(pdfFile)) {
+			assertThat(pdfTextExtractor.extract(document, List.of(snippetCollector, consumer))).isEqualTo(3);
+		}
+
+		assertInPageOrder(consumer, 3);
+		assertThat(snippetCollector.snippet()).isEqualTo("Page ");
+	}
+
+	@Test
+	void snippetAloneStopsAfterTheFirstPage() throws IOException {
+		SnippetCollector snippetCollector = new SnippetCollector(5);
+		try (PDDocument document = pdfTextExtractor.load(pdfFile)) {
+			assertThat(pdfTextExtractor.extract(document, List.of(snippetCollector))).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void snippetSpanningPagesStopsOnThePageThatFillsIt() throws IOException {
+		// Each page strips to "Page n" and a line separator, so ten characters need part of the second page
+		SnippetCollector snippetCollector = new SnippetCollector(10);
+		try (PDDocument document = pdfTextExtractor.load(pdfFile)) {
+			assertThat(pdfTextExtractor.extract(document, List.of(snippetCollector))).isEqualTo(2);
+		}
+
+		assertThat(snippetCollector.snippet()).startsWith("Page 1").hasSize(10);
+	}
+
+	@Test
+	void unsatisfiedConsumersKeepTheStripperGoing() throws IOException {
+		RecordingConsumer consumer = new RecordingConsumer(Integer.MAX_VALUE);
+		try (PDDocument document = pdfTextExtractor.load(pdfFile)) {
+			assertThat(pdfTextExtractor.extract(document, List.of(new SnippetCollector(5), consumer))).isEqualTo(PAGE_COUNT);
+		}
+	}
+
+	@Test
+	void parallelEngineHandsOutPagesInOrder() throws IOException {
+		AtomicInteger opens = new AtomicInteger();
+		RecordingConsumer consumer = new RecordingConsumer(Integer.MAX_VALUE);
+
+		int pagesHandled = parallelEngine().extract(countingSource(opens), PAGE_COUNT, List.of(consumer));
+
+		assertThat(pagesHandled).isEqualTo(PAGE_COUNT);
+		assertInPageOrder(consumer, PAGE_COUNT);
+		assertThat(opens).hasValue((PAGE_COUNT + PAGES_PER_TASK - 1) / PAGES_PER_TASK);
+	}
+
+	@Test
+	void parallelEngineStopsOnceEveryConsumerIsSatisfied() throws IOException {
+		AtomicInteger opens = new AtomicInteger();
+		RecordingConsumer consumer = new RecordingConsumer(3);
+
+		int pagesHandled = parallelEngine().extract(countingSource(opens), PAGE_COUNT, List.of(consumer));
+
+		// Whole chunks are handed out, so the second chunk completes the third page's consumer
+		assertThat(pagesHandled).isEqualTo(4);
+		assertInPageOrder(consumer, 4);
+		// One chunk per worker in flight, plus the one submitted after the first chunk was handed out
+		assertThat(opens.get()).isLessThanOrEqualTo(pageExtractionPool.getParallelism() + 1);
+	}
+
+	private ParallelPdfTextExtractor parallelEngine() {
+		ParallelPdfTextExtractor engine = new ParallelPdfTextExtractor(pdfTextExtractor, pageExtractionPool, 1, PAGES_PER_TASK);
+		assertThat(engine.shouldHandle(PAGE_COUNT)).isTrue();
+		return engine;
+	}
+
+	private PdfSource countingSource(AtomicInteger opens) {
+		return () -> {
+			opens.incrementAndGet();
+			return pdfTextExtractor.load(pdfFile);
+		};
+	}
+
+	private static void assertInPageOrder(RecordingConsumer consumer, int pages) {
+		assertThat(consumer.pageNumbers).containsExactlyElementsOf(IntStream.rangeClosed(1, pages).boxed().toList());
+		for (int i = 0; i < pages; i++) {
+			assertThat(consumer.pageTexts.get(i)).contains("Page " + (i + 1));
+		}
+	}
+
+	private static File writePdf(File file, int pageCount) throws IOException {
+		try (PDDocument document = new PDDocument()) {
+			for (int pageNumber = 1; pageNumber <= pageCount; pageNumber++) {
+				PDPage page = new PDPage();
+				document.addPage(page);
+				try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+					content.beginText();
+					content.setFont(PDType1Font.HELVETICA, 12);
+					content.newLineAtOffset(72, 700);
+					content.showText("Page " + pageNumber);
+					content.endText();
+				}
+			}
+			document.save(file);
+		}
+		return file;
+	}
+
+	// Records what it is handed and is satisfied after a fixed number of pages
+	private static class RecordingConsumer implements PageTextConsumer {
+
+		private final int satisfiedAfter;
+		private final List<Integer> pageNumbers = new ArrayList<>();
+		private final List<String> pageTexts = new ArrayList<>();
+
+		RecordingConsumer(int satisfiedAfter) {
+			this.satisfiedAfter = satisfiedAfter;
+		}
+
+		@Override
+		public void accept(int pageNumber, String pageText) {
+			pageNumbers.add(pageNumber);
+			pageTexts.add(pageText);
+		}
+
+		@Override
+		public boolean isSatisfied() {
+			return pageNumbers.size() >= satisfiedAfter;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package com.accord.ingestionservice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnippetCollectorTests {
+
+	@Test
+	void keepsTheFirstCharactersAcrossPages() {
+		SnippetCollector collector = new SnippetCollector(10);
+
+		collector.accept(1, "Page one ");
+		assertThat(collector.isSatisfied()).isFalse();
+		collector.accept(2, "Page two");
+
+		assertThat(collector.snippet()).isEqualTo("Page one P");
+		assertThat(collector.isSatisfied()).isTrue();
+	}
+
+	@Test
+	void ignoresPagesOnceFull() {
+		SnippetCollector collector = new SnippetCollector(4);
+
+		collector.accept(1, "Statement");
+		collector.accept(2, "More");
+
+		assertThat(collector.snippet()).isEqualTo("Stat");
+	}
+
+	@Test
+	void shortDocumentsNeverSatisfyIt() {
+		SnippetCollector collector = new SnippetCollector(100);
+
+		collector.accept(1, "");
+		collector.accept(2, "Short");
+
+		assertThat(collector.snippet()).isEqualTo("Short");
+		assertThat(collector.isSatisfied()).isFalse();
+	}
+}
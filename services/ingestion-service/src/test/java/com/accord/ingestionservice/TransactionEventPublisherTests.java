@@ -0,0 +1,88 @@
+package com.accord.ingestionservice;
+
+import com.accord.events.EventCodec;
+import com.accord.events.EventEncoding;
+import com.accord.events.TransactionProcessedEvent;
+import com.accord.messaging.SnsBatchPublisher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Batching, retries and shutdown are covered by SnsBatchPublisherTests in accord-messaging
+class TransactionEventPublisherTests {
+
+	// Accepts every entry and keeps it
+	private static class RecordingSns implements SnsAsyncClient {
+
+		private final List<PublishBatchRequestEntry> entries = new CopyOnWriteArrayList<>();
+
+		@Override
+		public CompletableFuture<PublishBatchResponse> publishBatch(PublishBatchRequest request) {
+			entries.addAll(request.publishBatchRequestEntries());
+			return CompletableFuture.completedFuture(PublishBatchResponse.builder()
+					.successful(request.publishBatchRequestEntries().stream()
+							.map(entry -> PublishBatchResultEntry.builder().id(entry.id()).build())
+							.toList())
+					.build());
+		}
+
+		@Override
+		public String serviceName() {
+			return "sns";
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	@Test
+	void publishesTheEncodedEventWithItsEncodingAttribute() throws Exception {
+		RecordingSns sns = new RecordingSns();
+		TransactionEventPublisher publisher = newPublisher(sns);
+
+		publisher.publish(event("file.pdf", "Statement")).get(5, TimeUnit.SECONDS);
+
+		assertThat(sns.entries).hasSize(1);
+		assertThat(sns.entries.get(0).message()).contains("\"fileKey\":\"file.pdf\"");
+		assertThat(sns.entries.get(0).messageAttributes().get(EventEncoding.ATTRIBUTE_NAME).stringValue())
+				.isEqualTo(EventEncoding.JSON.attributeValue());
+		publisher.destroy();
+	}
+
+	@Test
+	void failsAnEventTooLargeForSnsWithoutSendingIt() throws Exception {
+		RecordingSns sns = new RecordingSns();
+		TransactionEventPublisher publisher = newPublisher(sns);
+
+		CompletableFuture<Void> tooLarge = publisher.publish(event("large.pdf", "x".repeat(SnsBatchPublisher.MAX_BATCH_BYTES)));
+
+		assertThat(tooLarge).failsWithin(Duration.ofSeconds(5));
+		assertThat(sns.entries).isEmpty();
+		publisher.destroy();
+	}
+
+	private static TransactionEventPublisher newPublisher(SnsAsyncClient sns) {
+		return new TransactionEventPublisher(sns, new EventCodec(new ObjectMapper()),
+				new PipelineMetrics(new SimpleMeterRegistry()), "arn:aws:sns:us-east-1:000000000000:test", "json",
+				Duration.ofMillis(10), 100, 3, Duration.ofMillis(10));
+	}
+
+	private static TransactionProcessedEvent event(String fileKey, String textSnippet) {
+		return new TransactionProcessedEvent("evidence", fileKey, 1024, 1, textSnippet, textSnippet.length(),
+				new int[]{textSnippet.length()}, null, null, null, false);
+	}
+}
@@ -0,0 +1,104 @@
+package com.accord.ingestionservice;
+
+import com.accord.events.TransactionLines;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionLineExtractorTests {
+
+	private static final String STATEMENT = String.join("\n",
+			"ACCORD BANK",
+			"Statement of account 0042-118734",
+			"Date        Description                         Amount      Balance",
+			"01/03/2024  Opening balance                                  1,204.77",
+			"04/03/2024  CARD PAYMENT \"GROCER & SONS\"       -54.20      1,150.57",
+			"05/03/2024  Card  payment TESCO STORES 3321     12.99      1,137.58",
+			"06/03/2024  ACME LTD DIRECT DEBIT REF: INV-2024-031   120.00   1,017.58",
+			"2024-03-07  SALARY ACME LTD                 2,500.00   3,517.58",
+			"8 Mar 2024  FASTER PAYMENT RECEIVED J SMITH REF 998877 (45.00)",
+			"09/03/24 TRANSFER TO SAVINGS 100.00 DR",
+			"31/02/2024 CARD PAYMENT BAD DATE 1.00",
+			"10/03/2024 Something else 4.00",
+			"31/03/2024  Closing balance                                  3,400.00");
+
+	@Test
+	void extractsAnchoredLines() {
+		TransactionLines lines = extract(TransactionRules.DateOrder.DMY, 1000, STATEMENT);
+
+		assertThat(lines.size()).isEqualTo(6);
+		assertThat(lines.truncated()).isFalse();
+		assertThat(lines.dates()).containsExactly(day(2024, 3, 4), day(2024, 3, 5), day(2024, 3, 6),
+				day(2024, 3, 7), day(2024, 3, 8), day(2024, 3, 9));
+		// Unsigned amounts on debit keywords go out, the balance column is not the amount
+		assertThat(lines.amountsMinor()).containsExactly(-5420, -1299, -12000, 250000, -4500, -10000);
+		assertThat(lines.references()).containsExactly(null, null, "INV-2024-031", null, "998877", null);
+		assertThat(lines.pages()).containsOnly(1);
+
+		assertThat(lines.counterparty(0)).isEqualTo("GROCER & SONS");
+		assertThat(lines.counterparty(1)).isEqualTo("TESCO STORES 3321");
+		assertThat(lines.counterparty(2)).isEqualTo("ACME LTD");
+		assertThat(lines.counterparty(3)).isEqualTo("ACME LTD");
+		assertThat(lines.counterpartyDictionary()).hasSize(5);
+	}
+
+	@Test
+	void readsNumericDatesInTheConfiguredOrder() {
+		TransactionLines lines = extract(TransactionRules.DateOrder.MDY, 1000, "03/04/2024 CARD PAYMENT ACME LTD 9.99");
+
+		assertThat(lines.dates()).containsExactly(day(2024, 3, 4));
+	}
+
+	@Test
+	void keepsTheFirstLinesAndFlagsTruncation() {
+		TransactionLineExtractor extractor = new TransactionLineExtractor(new TransactionRules(TransactionRules.DateOrder.DMY), 2, 16384);
+		extractor.accept(1, "01/03/2024 CARD PAYMENT ACME 1.00\n02/03/2024 CARD PAYMENT ACME 2.00");
+		extractor.accept(2, "03/03/2024 CARD PAYMENT ACME 3.00");
+
+		TransactionLines lines = extractor.transactionLines();
+		assertThat(lines.amountsMinor()).containsExactly(-100, -200);
+		assertThat(lines.truncated()).isTrue();
+	}
+
+	@Test
+	void stopsAtTheByteBudget() {
+		TransactionLineExtractor extractor = new TransactionLineExtractor(new TransactionRules(TransactionRules.DateOrder.DMY), 1000, 100);
+		for (int day = 1; day <= 9; day++) {
+			extractor.accept(day, "0" + day + "/03/2024 CARD PAYMENT ACME " + day + ".00");
+		}
+
+		// 35 bytes for the first line (it adds ACME to the dictionary), 28 for each one after it
+		TransactionLines lines = extractor.transactionLines();
+		assertThat(lines.amountsMinor()).containsExactly(-100, -200, -300);
+		assertThat(lines.truncated()).isTrue();
+	}
+
+	@Test
+	void keywordsOnlyMatchWholeWords() {
+		TransactionLines lines = extract(TransactionRules.DateOrder.DMY, 1000, "01/03/2024 POSTCODE CASHEW 3.00");
+
+		assertThat(lines.size()).isZero();
+	}
+
+	@Test
+	void dropsAmountsTooLongToFitInMinorUnits() {
+		TransactionLines lines = extract(TransactionRules.DateOrder.DMY, 1000, String.join("\n",
+				"01/03/2024 CARD PAYMENT ACME 12345678901234567890.00",
+				"02/03/2024 CARD PAYMENT ACME 1,234,567,890,123,456.00",
+				"03/03/2024 CARD PAYMENT ACME 999,999,999,999,999.99"));
+
+		assertThat(lines.amountsMinor()).containsExactly(-99999999999999999L);
+	}
+
+	private static TransactionLines extract(TransactionRules.DateOrder dateOrder, int maxLines, String page) {
+		TransactionLineExtractor extractor = new TransactionLineExtractor(new TransactionRules(dateOrder), maxLines, 16384);
+		extractor.accept(1, page);
+		return extractor.transactionLines();
+	}
+
+	private static int day(int year, int month, int day) {
+		return (int) LocalDate.of(year, month, day).toEpochDay();
+	}
+}
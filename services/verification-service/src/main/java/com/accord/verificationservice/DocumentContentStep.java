@@ -0,0 +1,29 @@
+package com.accord.verificationservice;
+
+import com.accord.events.TransactionProcessedEvent;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+// Rejects evidence that produced no pages or no text at all.
+@Component
+@Order(1)
+public class DocumentContentStep implements VerificationStep {
+
+    @Override
+    public String name() {
+        return "document-content";
+    }
+
+    @Override
+    public CompletableFuture<StepResult> verify(TransactionProcessedEvent event) {
+        if (event.pageCount() <= 0) {
+            return CompletableFuture.completedFuture(StepResult.fail("document has no pages"));
+        }
+        if (event.textSnippet() == null || event.textSnippet().isBlank()) {
+            return CompletableFuture.completedFuture(StepResult.fail("no text could be extracted"));
+        }
+        return CompletableFuture.completedFuture(StepResult.pass());
+    }
+}
@@ -0,0 +1,130 @@
+package com.accord.verificationservice;
+
+import com.accord.messaging.ProcessingLedger;
+import com.accord.messaging.QueueLagSource;
+import com.accord.messaging.QueueLagTracker;
+import com.accord.messaging.SnsPublishMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Micrometer meters for the verification stages, scraped from /actuator/prometheus.
+@Component
+public class PipelineMetrics implements QueueLagSource, SnsPublishMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer snsPublish;
+    private final Counter publishRetries;
+    private final Timer queueLag;
+    private final Timer ledgerClaim;
+    private final Counter redeliveries;
+    private final AtomicLong latestQueueLagMillis = new AtomicLong();
+    private final QueueLagTracker queueLagTracker = new QueueLagTracker();
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.snsPublish = Timer.builder("accord.verification.sns.publish")
+                .description("PublishBatch call for up to 10 VerifiedEvents")
+                .register(meterRegistry);
+        this.publishRetries = Counter.builder("accord.verification.publish.retries")
+                .description("Batch entries SNS rejected and that were sent again")
+                .register(meterRegistry);
+        this.ledgerClaim = Timer.builder("accord.verification.ledger.claim")
+                .description("Processing ledger lookup for the messages of one poll")
+                .register(meterRegistry);
+        this.redeliveries = Counter.builder("accord.verification.redeliveries")
+                .description("Failed messages handed back to SQS with a visibility backoff")
+                .register(meterRegistry);
+        this.queueLag = Timer.builder("accord.verification.queue.lag")
+                .description("Time between SQS receiving a message and this service first picking it up")
+                .register(meterRegistry);
+        Gauge.builder("accord.verification.queue.lag.latest", latestQueueLagMillis, lag -> lag.get() / 1000.0)
+                .description("Queue lag of the most recently received first delivery")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(meterRegistry);
+    }
+
+    @Override
+    public void recordPublishBatch(int entries, long durationNanos) {
+        snsPublish.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordPublishRetry() {
+        publishRetries.increment();
+    }
+
+    // Whole pipeline for one event, tagged with its outcome (VERIFIED / REJECTED)
+    public Timer verification(String status) {
+        return Timer.builder("accord.verification.duration")
+                .description("Time to run every verification step for one event")
+                .tag("status", status)
+                .register(meterRegistry);
+    }
+
+    public Timer step(String stepName) {
+        return Timer.builder("accord.verification.step")
+                .description("Time spent in one verification step")
+                .tag("step", stepName)
+                .register(meterRegistry);
+    }
+
+    public Timer ledgerClaim() {
+        return ledgerClaim;
+    }
+
+    public void recordLedgerStates(List<ProcessingLedger.State> states) {
+        for (ProcessingLedger.State state : states) {
+            Counter.builder("accord.verification.ledger")
+                    .description("Processing ledger claims by the state found")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    public void recordRedelivery() {
+        redeliveries.increment();
+    }
+
+    // stage is where it failed, the type is the exception's class name (unwrapped from CompletionException)
+    public void recordFailure(String stage, Throwable failure) {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        Counter.builder("accord.verification.failures")
+                .tag("stage", stage)
+                .tag("type", failure.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public long takeQueueLagMillis() {
+        return queueLagTracker.takeMaxLagMillis();
+    }
+
+    // Redeliveries are skipped: they keep the SentTimestamp of their first delivery
+    public void recordQueueLag(MessageHeaders headers) {
+        long lagMillis = QueueLagTracker.firstDeliveryLagMillis(headers, System.currentTimeMillis());
+        if (lagMillis < 0) {
+            return;
+        }
+        queueLag.record(lagMillis, TimeUnit.MILLISECONDS);
+        latestQueueLagMillis.set(lagMillis);
+        queueLagTracker.record(lagMillis);
+    }
+}
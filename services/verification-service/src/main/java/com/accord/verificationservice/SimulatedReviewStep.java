@@ -0,0 +1,37 @@
+package com.accord.verificationservice;
+
+import com.accord.events.TransactionProcessedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Stands in for the external review the service will eventually call. It used to be a
+// Thread.sleep on the listener thread; the delay now runs on a timer so no thread is held.
+@Component
+@Order(2)
+public class SimulatedReviewStep implements VerificationStep {
+
+    private final Duration delay;
+
+    public SimulatedReviewStep(@Value("${app.verification.simulated-delay:PT1.5S}") Duration delay) {
+        this.delay = delay;
+    }
+
+    @Override
+    public String name() {
+        return "simulated-review";
+    }
+
+    @Override
+    public CompletableFuture<StepResult> verify(TransactionProcessedEvent event) {
+        if (delay.isZero()) {
+            return CompletableFuture.completedFuture(StepResult.pass());
+        }
+        return CompletableFuture.supplyAsync(StepResult::pass,
+                CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
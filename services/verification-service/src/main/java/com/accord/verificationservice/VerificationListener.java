@@ -1,43 +1,142 @@
 package com.accord.verificationservice;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.accord.events.EventEncoding;
+import com.accord.events.SnsEnvelopeDecoder;
+import com.accord.events.TransactionProcessedEvent;
+import com.accord.messaging.LedgerSettlement;
+import com.accord.messaging.ProcessingLedger;
+import com.accord.messaging.VisibilityBackoff;
 import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Component
 public class VerificationListener {
 
     private static final Logger logger = LoggerFactory.getLogger(VerificationListener.class);
-    private final ObjectMapper objectMapper;
+    private final SnsEnvelopeDecoder snsEnvelopeDecoder;
+    private final VerificationPipeline verificationPipeline;
+    private final VerifiedEventPublisher verifiedEventPublisher;
+    private final PipelineMetrics pipelineMetrics;
+    private final ProcessingLedger processingLedger;
+    private final VisibilityBackoff visibilityBackoff;
 
-    public VerificationListener(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public VerificationListener(SnsEnvelopeDecoder snsEnvelopeDecoder, VerificationPipeline verificationPipeline,
+                                VerifiedEventPublisher verifiedEventPublisher, PipelineMetrics pipelineMetrics,
+                                ProcessingLedger processingLedger, VisibilityBackoff visibilityBackoff) {
+        this.snsEnvelopeDecoder = snsEnvelopeDecoder;
+        this.verificationPipeline = verificationPipeline;
+        this.verifiedEventPublisher = verifiedEventPublisher;
+        this.pipelineMetrics = pipelineMetrics;
+        this.processingLedger = processingLedger;
+        this.visibilityBackoff = visibilityBackoff;
     }
 
-    // We listen for the raw JSON String from the SQS queue
-    @SqsListener("${spring.cloud.aws.sqs.queue-name}")
-    public void receiveMessage(String snsMessageJson) {
-        logger.info("====================================================");
-        logger.info("VERIFICATION SERVICE: Received new message from queue!");
+    // We listen for the SQS message bodies together with their headers: with raw message delivery the
+    // 'accord-encoding' attribute arrives as an SQS message attribute instead of inside an SNS envelope.
+    // Messages come in polls of up to 10 so the whole poll is claimed in the processing ledger with one
+    // call; a message whose VerifiedEvent was already published is acknowledged without verifying again.
+    // The outcomes of the poll are recorded in the ledger together once its last pipeline finished.
+    // The method only starts the pipelines and returns their future, so the listener thread is free
+    // immediately; the container keeps at most max-in-flight messages between receive and completion.
+    // A failed message is left unacknowledged and comes back after an exponential backoff, ending up in
+    // the dead-letter queue if it keeps failing.
+    @SqsListener(id = "verification", value = "${spring.cloud.aws.sqs.queue-name}",
+            maxMessagesPerPoll = "${app.verification.max-messages-per-poll:10}",
+            maxConcurrentMessages = "${app.verification.max-in-flight:100}",
+            acknowledgementMode = "MANUAL")
+    public CompletableFuture<Void> receiveMessages(List<Message<String>> messages, BatchAcknowledgement<String> acknowledgement) {
+        List<String> ledgerKeys = new ArrayList<>(messages.size());
+        for (Message<String> message : messages) {
+            pipelineMetrics.recordQueueLag(message.getHeaders());
+            ledgerKeys.add(String.valueOf(message.getHeaders().getId()));
+        }
+        List<ProcessingLedger.State> states;
         try {
-            // Step 1: Parse the outer SNS envelope to get to the 'Message' field
-            JsonNode rootNode = objectMapper.readTree(snsMessageJson);
-            String eventPayload = rootNode.get("Message").asText();
-
-            // Step 2: Parse the actual message payload into our event object
-            TransactionProcessedEvent event = objectMapper.readValue(eventPayload, TransactionProcessedEvent.class);
+            Timer.Sample ledgerClaim = pipelineMetrics.startTimer();
+            states = processingLedger.claim(ledgerKeys);
+            ledgerClaim.stop(pipelineMetrics.ledgerClaim());
+            pipelineMetrics.recordLedgerStates(states);
+        } catch (RuntimeException e) {
+            logger.error("Processing ledger unavailable, leaving {} message(s) for redelivery", messages.size(), e);
+            pipelineMetrics.recordFailure("ledger", e);
+            messages.forEach(this::retryLater);
+            return CompletableFuture.completedFuture(null);
+        }
 
-            logger.info("-----> Event parsed successfully for file: {}", event.fileKey());
-            logger.info("-----> Verifying details...");
-            Thread.sleep(1500); // Simulate work
-            logger.info("-----> SUCCESS: Details for {} VERIFIED.", event.fileKey());
+        LedgerSettlement settlement = new LedgerSettlement(processingLedger);
+        List<CompletableFuture<Void>> pending = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Message<String> message = messages.get(i);
+            String ledgerKey = ledgerKeys.get(i);
+            switch (states.get(i)) {
+                case DONE -> pending.add(acknowledgement.acknowledgeAsync(List.of(message)));
+                case IN_PROGRESS -> retrySoon(message);
+                case CLAIMED -> pending.add(verifyAndPublish(message)
+                        .whenComplete((ignored, e) -> {
+                            if (e == null) {
+                                settlement.complete(ledgerKey);
+                            } else {
+                                settlement.release(ledgerKey);
+                                retryLater(message);
+                            }
+                        })
+                        .thenCompose(ignored -> acknowledgement.acknowledgeAsync(List.of(message)))
+                        // Failures are handled above; an unacknowledged but done message is skipped next time
+                        .exceptionally(e -> null));
+            }
+        }
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, e) -> settlement.settle());
+    }
 
+    private CompletableFuture<Void> verifyAndPublish(Message<String> message) {
+        TransactionProcessedEvent event;
+        try {
+            // Stream through the SNS envelope (if any) and decode the event in the negotiated encoding
+            event = snsEnvelopeDecoder.decodeTransactionProcessed(message.getPayload(),
+                    message.getHeaders().get(EventEncoding.ATTRIBUTE_NAME, String.class));
         } catch (Exception e) {
-            logger.error("Error parsing SNS message or processing event", e);
+            logger.error("Error parsing SNS message {}", message.getHeaders().getId(), e);
+            pipelineMetrics.recordFailure("parse", e);
+            return CompletableFuture.failedFuture(e);
         }
-        logger.info("====================================================");
+
+        logger.info("VERIFICATION SERVICE: Verifying details for {}...", event.fileKey());
+        return verificationPipeline.verify(event)
+                .thenCompose(verifiedEvent -> {
+                    logger.info("-----> Details for {} {}.", event.fileKey(), verifiedEvent.status());
+                    return verifiedEventPublisher.publish(verifiedEvent);
+                })
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        logger.error("Error verifying or publishing result for {}", event.fileKey(), e);
+                        pipelineMetrics.recordFailure("verify_or_publish", e);
+                    }
+                });
+    }
+
+    private void retryLater(Message<String> message) {
+        pipelineMetrics.recordRedelivery();
+        visibilityBackoff.retryLater(message).exceptionally(e -> {
+            logger.warn("Could not change the visibility of message {}", message.getHeaders().getId(), e);
+            return null;
+        });
+    }
+
+    // Not a failure: brought back after the fixed in-progress delay, once its holder has had time to finish
+    private void retrySoon(Message<String> message) {
+        visibilityBackoff.retrySoon(message).exceptionally(e -> {
+            logger.warn("Could not change the visibility of message {}", message.getHeaders().getId(), e);
+            return null;
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package com.accord.verificationservice;
+
+import com.accord.events.TransactionProcessedEvent;
+import com.accord.events.VerifiedEvent;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+// Runs the verification steps one after another as a CompletableFuture chain.
+// The first failing step short-circuits the rest and the event is marked REJECTED.
+@Component
+public class VerificationPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificationPipeline.class);
+
+    private final List<VerificationStep> steps;
+    private final PipelineMetrics pipelineMetrics;
+
+    public VerificationPipeline(List<VerificationStep> steps, PipelineMetrics pipelineMetrics) {
+        this.steps = steps;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    public CompletableFuture<VerifiedEvent> verify(TransactionProcessedEvent event) {
+        Timer.Sample verification = pipelineMetrics.startTimer();
+        CompletableFuture<VerificationStep.StepResult> chain = CompletableFuture.completedFuture(VerificationStep.StepResult.pass());
+        for (VerificationStep step : steps) {
+            chain = chain.thenCompose(previous -> {
+                if (!previous.passed()) {
+                    return CompletableFuture.completedFuture(previous);
+                }
+                Timer.Sample stepTimer = pipelineMetrics.startTimer();
+                return step.verify(event).thenApply(result -> {
+                    stepTimer.stop(pipelineMetrics.step(step.name()));
+                    if (!result.passed()) {
+                        logger.warn("-----> Step {} rejected {}: {}", step.name(), event.fileKey(), result.detail());
+                    }
+                    return result;
+                });
+            });
+        }
+        return chain.thenApply(result -> {
+            String status = result.passed() ? "VERIFIED" : "REJECTED";
+            verification.stop(pipelineMetrics.verification(status));
+            return new VerifiedEvent(status, event.fileKey(), UUID.randomUUID().toString(), Instant.now());
+        });
+    }
+}
@@ -1,9 +1,14 @@
 package com.accord.verificationservice;
 
+import com.accord.messaging.ExitOnRefresh;
+import com.accord.messaging.LedgerConfig;
+import com.accord.messaging.ListenerTuningConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
 @SpringBootApplication
+@Import({ExitOnRefresh.class, LedgerConfig.class, ListenerTuningConfig.class})
 public class VerificationServiceApplication {
 
 	public static void main(String[] args) {
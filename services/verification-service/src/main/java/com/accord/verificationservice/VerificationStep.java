@@ -0,0 +1,25 @@
+package com.accord.verificationservice;
+
+import com.accord.events.TransactionProcessedEvent;
+
+import java.util.concurrent.CompletableFuture;
+
+// One check in the verification pipeline. Implementations must not block the calling thread;
+// slow work should complete the returned future from another thread.
+public interface VerificationStep {
+
+    String name();
+
+    CompletableFuture<StepResult> verify(TransactionProcessedEvent event);
+
+    record StepResult(boolean passed, String detail) {
+
+        static StepResult pass() {
+            return new StepResult(true, null);
+        }
+
+        static StepResult fail(String detail) {
+            return new StepResult(false, detail);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.accord.verificationservice;
+
+import com.accord.events.EventCodec;
+import com.accord.events.EventEncoding;
+import com.accord.events.VerifiedEvent;
+import com.accord.messaging.SnsBatchPublisher;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Encodes VerifiedEvents and hands them to the shared SnsBatchPublisher, which batches, retries and
+// drains them on shutdown. The returned future completes when SNS accepted that particular event.
+@Component
+public class VerifiedEventPublisher implements DisposableBean {
+
+    private final EventCodec eventCodec;
+    private final EventEncoding eventEncoding;
+    private final SnsBatchPublisher batchPublisher;
+
+    public VerifiedEventPublisher(SnsAsyncClient snsAsyncClient, EventCodec eventCodec, PipelineMetrics pipelineMetrics,
+                                  @Value("${app.sns.verified-topic-arn}") String topicArn,
+                                  @Value("${app.events.encoding:json}") String eventEncoding,
+                                  @Value("${app.verification.publisher.linger:PT0.05S}") Duration linger,
+                                  @Value("${app.verification.publisher.max-buffered:1000}") int maxBuffered,
+                                  @Value("${app.verification.publisher.max-attempts:5}") int maxAttempts,
+                                  @Value("${app.verification.publisher.retry-backoff:PT0.1S}") Duration retryBackoff) {
+        this.eventCodec = eventCodec;
+        this.eventEncoding = EventEncoding.fromAttribute(eventEncoding);
+        Map<String, MessageAttributeValue> messageAttributes = Map.of(EventEncoding.ATTRIBUTE_NAME,
+                MessageAttributeValue.builder()
+                        .dataType("String")
+                        .stringValue(this.eventEncoding.attributeValue())
+                        .build());
+        this.batchPublisher = new SnsBatchPublisher(snsAsyncClient, topicArn, messageAttributes, "VerifiedEvent",
+                pipelineMetrics, new SnsBatchPublisher.Settings(linger, maxBuffered, maxAttempts, retryBackoff));
+    }
+
+    public CompletableFuture<Void> publish(VerifiedEvent event) {
+        try {
+            return batchPublisher.publish(eventCodec.encode(event, eventEncoding), "VerifiedEvent for " + event.fileKey());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        batchPublisher.close();
+    }
+}
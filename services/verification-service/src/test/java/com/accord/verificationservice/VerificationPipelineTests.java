@@ -0,0 +1,80 @@
+package com.accord.verificationservice;
+
+import com.accord.events.TransactionProcessedEvent;
+import com.accord.events.VerifiedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VerificationPipelineTests {
+
+	private final List<String> calls = new CopyOnWriteArrayList<>();
+	private final TransactionProcessedEvent event = new TransactionProcessedEvent("evidence", "a.pdf", 1024, 2,
+			"Statement", -1, null, "ab12", null, null, false);
+
+	// Completes from another thread after a short delay, like the real steps
+	private VerificationStep step(String name, CompletableFuture<VerificationStep.StepResult> outcome) {
+		return new VerificationStep() {
+			@Override
+			public String name() {
+				return name;
+			}
+
+			@Override
+			public CompletableFuture<StepResult> verify(TransactionProcessedEvent event) {
+				calls.add(name);
+				return outcome.thenApplyAsync(result -> result,
+						CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS));
+			}
+		};
+	}
+
+	@Test
+	void runsEveryStepInOrderAndVerifies() throws Exception {
+		VerifiedEvent verified = pipeline(
+				step("content", passed()),
+				step("review", passed())).verify(event).get(5, TimeUnit.SECONDS);
+
+		assertThat(calls).containsExactly("content", "review");
+		assertThat(verified.status()).isEqualTo("VERIFIED");
+		assertThat(verified.fileKey()).isEqualTo("a.pdf");
+	}
+
+	@Test
+	void theFirstFailingStepRejectsAndSkipsTheRest() throws Exception {
+		VerifiedEvent verified = pipeline(
+				step("content", CompletableFuture.completedFuture(VerificationStep.StepResult.fail("empty snippet"))),
+				step("review", passed())).verify(event).get(5, TimeUnit.SECONDS);
+
+		assertThat(calls).containsExactly("content");
+		assertThat(verified.status()).isEqualTo("REJECTED");
+	}
+
+	@Test
+	void aStepThatThrowsFailsTheVerification() {
+		CompletableFuture<VerifiedEvent> verification = pipeline(
+				step("content", CompletableFuture.failedFuture(new IllegalStateException("review service down"))),
+				step("review", passed())).verify(event);
+
+		assertThatThrownBy(() -> verification.get(5, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasRootCauseMessage("review service down");
+		assertThat(calls).containsExactly("content");
+	}
+
+	private static CompletableFuture<VerificationStep.StepResult> passed() {
+		return CompletableFuture.completedFuture(VerificationStep.StepResult.pass());
+	}
+
+	private static VerificationPipeline pipeline(VerificationStep... steps) {
+		return new VerificationPipeline(List.of(steps), new PipelineMetrics(new SimpleMeterRegistry()));
+	}
+}
@@ -0,0 +1,96 @@
+package com.accord.verificationservice;
+
+import com.accord.events.EventCodec;
+import com.accord.events.EventEncoding;
+import com.accord.events.VerifiedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Batching, retries and shutdown are covered by SnsBatchPublisherTests in accord-messaging
+class VerifiedEventPublisherTests {
+
+	// Accepts every entry and keeps it
+	private static class RecordingSns implements SnsAsyncClient {
+
+		private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+		private final List<PublishBatchRequestEntry> entries = new CopyOnWriteArrayList<>();
+
+		@Override
+		public CompletableFuture<PublishBatchResponse> publishBatch(PublishBatchRequest request) {
+			batchSizes.add(request.publishBatchRequestEntries().size());
+			entries.addAll(request.publishBatchRequestEntries());
+			return CompletableFuture.completedFuture(PublishBatchResponse.builder()
+					.successful(request.publishBatchRequestEntries().stream()
+							.map(entry -> PublishBatchResultEntry.builder().id(entry.id()).build())
+							.toList())
+					.build());
+		}
+
+		@Override
+		public String serviceName() {
+			return "sns";
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	private final RecordingSns sns = new RecordingSns();
+
+	@Test
+	void publishesTheEncodedEventWithItsEncodingAttribute() throws Exception {
+		VerifiedEventPublisher publisher = publisher(Duration.ofMillis(10));
+
+		publisher.publish(event("a.pdf")).get(5, TimeUnit.SECONDS);
+
+		assertThat(sns.entries).hasSize(1);
+		assertThat(sns.entries.get(0).message()).contains("\"fileKey\":\"a.pdf\"");
+		assertThat(sns.entries.get(0).messageAttributes().get(EventEncoding.ATTRIBUTE_NAME).stringValue())
+				.isEqualTo(EventEncoding.JSON.attributeValue());
+		publisher.destroy();
+	}
+
+	@Test
+	void sendsAPartialBatchOnShutdown() throws Exception {
+		VerifiedEventPublisher publisher = publisher(Duration.ofSeconds(30));
+
+		List<CompletableFuture<Void>> published = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			published.add(publisher.publish(event("a" + i + ".pdf")));
+		}
+		published.get(0).get(5, TimeUnit.SECONDS);
+		assertThat(published.get(11)).isNotDone();
+
+		publisher.destroy();
+
+		assertThat(published.get(11)).isCompleted();
+		assertThat(sns.batchSizes).containsExactly(10, 2);
+	}
+
+	private VerifiedEventPublisher publisher(Duration linger) {
+		return new VerifiedEventPublisher(sns, new EventCodec(new ObjectMapper().findAndRegisterModules()),
+				new PipelineMetrics(new SimpleMeterRegistry()), "arn:aws:sns:us-east-1:000000000000:verified", "json",
+				linger, 100, 3, Duration.ofMillis(10));
+	}
+
+	private static VerifiedEvent event(String fileKey) {
+		return new VerifiedEvent("VERIFIED", fileKey, "id-" + fileKey, Instant.parse("2024-03-01T10:15:30Z"));
+	}
+}